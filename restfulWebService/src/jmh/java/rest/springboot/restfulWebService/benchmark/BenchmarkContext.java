@@ -0,0 +1,36 @@
+package rest.springboot.restfulWebService.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import rest.springboot.restfulWebService.RestfulWebServiceApplication;
+
+/**
+ * BenchmarkContext boots the application without a web server, against the
+ * in-memory H2 database configured in omsTest.properties. OMSJpaConfig from
+ * the test classes is picked up by component scan, so its dataSource bean is
+ * allowed to be overridden by the auto-configured pool.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+final class BenchmarkContext {
+
+	private BenchmarkContext() {
+	}
+
+	/**
+	 * Starts the application context for one benchmark trial.
+	 * @return ConfigurableApplicationContext: Context to close on tear down.
+	 */
+	static ConfigurableApplicationContext start() {
+		System.setProperty("spring.devtools.restart.enabled", "false");
+
+		return new SpringApplicationBuilder(RestfulWebServiceApplication.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.config.additional-location=classpath:omsTest.properties",
+						"--spring.main.allow-bean-definition-overriding=true",
+						"--spring.jpa.show-sql=false",
+						"--logging.level.root=WARN");
+	}
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package rest.springboot.restfulWebService.benchmark;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import rest.springboot.restfulWebService.model.Orders;
+import rest.springboot.restfulWebService.model.User;
+
+/**
+ * JsonRoundTripBenchmark measures serializing entities to JSON and reading
+ * them back, with an ObjectMapper configured like the application's.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonRoundTripBenchmark {
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+	private final Orders order = new Orders(new Date(), Arrays.asList(1L, 3L, 5L, 7L), 42L);
+	private final User user = new User("Ashutosh", "Bhubaneswar", 9876543210L, "adash@example.com");
+
+	@Benchmark
+	public Orders ordersRoundTrip() throws IOException {
+		return objectMapper.readValue(objectMapper.writeValueAsBytes(order), Orders.class);
+	}
+
+	@Benchmark
+	public User userRoundTrip() throws IOException {
+		return objectMapper.readValue(objectMapper.writeValueAsBytes(user), User.class);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package rest.springboot.restfulWebService.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import rest.springboot.restfulWebService.logging.PayloadLog;
+import rest.springboot.restfulWebService.model.User;
+
+/**
+ * LoggingBenchmark measures what logging costs a request returning a page of
+ * 100 users: serializing the page through the entity accessors, and logging
+ * the page in full versus by size through PayloadLog, at each log level.
+ * Log events, including any from the model package, are formatted into a
+ * discarding appender, so the cost includes building the message but not I/O.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingBenchmark {
+
+	private static final int PAGE_SIZE = 100;
+
+	@Param({ "INFO", "DEBUG", "TRACE" })
+	public String level;
+
+	private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+	private final List<User> users = new ArrayList<User>(PAGE_SIZE);
+	private Logger logger;
+
+	@Setup
+	public void setUp() {
+		for (int i = 0; i < PAGE_SIZE; i++) {
+			users.add(new User("User", "Address " + i, 9876543210L + i, "user" + i + "@example.com"));
+		}
+
+		logger = discarding(LoggingBenchmark.class.getName());
+		discarding(User.class.getPackage().getName());
+	}
+
+	/** Points the named logger at a discarding appender, at the level under test. */
+	private Logger discarding(String name) {
+		Logger target = (Logger) LoggerFactory.getLogger(name);
+		target.setLevel(Level.toLevel(level));
+		target.setAdditive(false);
+		target.detachAndStopAllAppenders();
+
+		DiscardingAppender appender = new DiscardingAppender();
+		appender.setContext(target.getLoggerContext());
+		appender.start();
+		target.addAppender(appender);
+		return target;
+	}
+
+	@Benchmark
+	public byte[] serializePage() throws IOException {
+		return objectMapper.writeValueAsBytes(users);
+	}
+
+	@Benchmark
+	public void logPageInFull() {
+		logger.debug("Users retrieved from USER repo: {}", users);
+	}
+
+	@Benchmark
+	public void logPageSize() {
+		PayloadLog.debug(logger, "{} users retrieved from USER repo.", users);
+	}
+
+	/** Appender that formats every event and drops it. */
+	static final class DiscardingAppender extends AppenderBase<ILoggingEvent> {
+		int length;
+
+		@Override
+		protected void append(ILoggingEvent event) {
+			length += event.getFormattedMessage().length();
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package rest.springboot.restfulWebService.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import rest.springboot.restfulWebService.model.Orders;
+import rest.springboot.restfulWebService.model.Product;
+import rest.springboot.restfulWebService.service.OrderService;
+import rest.springboot.restfulWebService.service.ProductService;
+
+/**
+ * OrderServiceBenchmark measures the OrderService persistence hot paths:
+ * order creation, lookup by id and listing a page of orders.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderServiceBenchmark {
+
+	/** Number of orders present before measurement starts. */
+	private static final int SEED_ORDERS = 1000;
+
+	private ConfigurableApplicationContext context;
+	private OrderService orderService;
+	private Orders order;
+	private List<Long> oids;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start();
+		orderService = context.getBean(OrderService.class);
+
+		ProductService productService = context.getBean(ProductService.class);
+		for (Product product : productService.getAllProducts()) {
+			productService.updateProductData(product.getId(), new Product(product.getName(),
+					Integer.MAX_VALUE / 2, product.getPrice(), product.getCategoryId()));
+		}
+
+		order = new Orders(null, Arrays.asList(1L, 3L, 5L), 1L);
+		List<Orders> seed = new ArrayList<Orders>(SEED_ORDERS);
+		for (int i = 0; i < SEED_ORDERS; i++) {
+			seed.add(order);
+		}
+		oids = orderService.addNewOrders(seed);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Orders createOrder() {
+		return orderService.addNewOrder(order);
+	}
+
+	@Benchmark
+	public Optional<Orders> getOrderById() {
+		return orderService.getOrderById(oids.get(next++ % SEED_ORDERS));
+	}
+
+	@Benchmark
+	public List<Orders> listOrders() {
+		return orderService.getAllOrders(0, 100);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+package rest.springboot.restfulWebService.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import rest.springboot.restfulWebService.model.Orders;
+import rest.springboot.restfulWebService.model.User;
+import rest.springboot.restfulWebService.repository.ProductRepository;
+import rest.springboot.restfulWebService.repository.UserRepository;
+import rest.springboot.restfulWebService.responseHandler.ResponseHandler;
+import rest.springboot.restfulWebService.service.OrderService;
+import rest.springboot.restfulWebService.service.UserService;
+
+/**
+ * OrderValidationBenchmark measures OrderService.validateOrders, which checks
+ * the users and products of a batch against cached id sets, against looking
+ * each of them up with existsById.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderValidationBenchmark {
+
+	/** Number of orders validated per call. */
+	private static final int BATCH_SIZE = 100;
+
+	private ConfigurableApplicationContext context;
+	private OrderService orderService;
+	private UserRepository userRepository;
+	private ProductRepository productRepository;
+	private List<Orders> batch;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		context = BenchmarkContext.start();
+		orderService = context.getBean(OrderService.class);
+		userRepository = context.getBean(UserRepository.class);
+		productRepository = context.getBean(ProductRepository.class);
+
+		UserService userService = context.getBean(UserService.class);
+		List<Long> uids = new ArrayList<Long>();
+		for (int i = 0; i < 10; i++) {
+			uids.add(userService.addNewUser(new User("Bench", "Bhubaneswar", 9876543210L, "bench" + i + "@example.com"))
+					.getUid());
+		}
+
+		batch = new ArrayList<Orders>(BATCH_SIZE);
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			batch.add(new Orders(null, Arrays.asList(1L + i % 5, 6L + i % 5), uids.get(i % uids.size())));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public ResponseHandler validateOrders() {
+		return orderService.validateOrders(batch);
+	}
+
+	@Benchmark
+	public boolean validateOrdersBaseline() {
+		for (Orders order : batch) {
+			if (!userRepository.existsById(order.getUserId())) {
+				return false;
+			}
+			for (Long productId : order.getProductId()) {
+				if (!productRepository.existsById(productId)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+}
\ No newline at end of file
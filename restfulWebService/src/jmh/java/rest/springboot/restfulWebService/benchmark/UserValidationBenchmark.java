@@ -0,0 +1,80 @@
+package rest.springboot.restfulWebService.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpStatus;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import rest.springboot.restfulWebService.model.User;
+import rest.springboot.restfulWebService.responseHandler.ResponseHandler;
+import rest.springboot.restfulWebService.serviceImpl.UserServiceImpl;
+
+/**
+ * UserValidationBenchmark measures UserService.validateUser for a valid
+ * request body and for one rejected on the name check, against the checks
+ * it replaced, which recompiled the name regex and allocated a
+ * ResponseHandler on every call.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserValidationBenchmark {
+
+	private final UserServiceImpl userService = new UserServiceImpl();
+	private final User validUser = new User("Ashutosh", "Bhubaneswar", 9876543210L, "adash@example.com");
+	private final User invalidUser = new User("Ashutosh1", "Bhubaneswar", 9876543210L, "adash@example.com");
+
+	@Benchmark
+	public ResponseHandler validUser() {
+		return userService.validateUser(validUser);
+	}
+
+	@Benchmark
+	public ResponseHandler invalidName() {
+		return userService.validateUser(invalidUser);
+	}
+
+	@Benchmark
+	public ResponseHandler validUserBaseline() {
+		return validateWithStringMatches(validUser);
+	}
+
+	@Benchmark
+	public ResponseHandler invalidNameBaseline() {
+		return validateWithStringMatches(invalidUser);
+	}
+
+	/** UserService.validateUser as it was before its rules were precompiled. */
+	private static ResponseHandler validateWithStringMatches(User user) {
+		if (user.getName() == null) {
+			return new ResponseHandler(HttpStatus.BAD_REQUEST, "User name can't be null");
+		}
+		if (!(user.getName().matches("^[a-zA-Z]*$"))) {
+			return new ResponseHandler(HttpStatus.BAD_REQUEST, "User name must be a string.");
+		}
+		if (user.getAddress() == null) {
+			return new ResponseHandler(HttpStatus.BAD_REQUEST, "User address can't be null");
+		}
+		if (user.getPhone() == 0) {
+			return new ResponseHandler(HttpStatus.BAD_REQUEST, "User phone number can't be null");
+		}
+		if (user.getEmail() == null) {
+			return new ResponseHandler(HttpStatus.BAD_REQUEST, "User email id can't be null");
+		}
+		return new ResponseHandler(HttpStatus.OK, "User request body is valid");
+	}
+}
\ No newline at end of file
@@ -5,6 +5,8 @@ import java.sql.SQLException;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * RestfulWebServiceApplication is the main class to enable 
@@ -14,6 +16,8 @@ import org.springframework.boot.autoconfigure.domain.EntityScan;
  */
 @SpringBootApplication
 @EntityScan(basePackages= {"rest.springboot.restfulWebService.model"})
+@EnableCaching
+@EnableScheduling
 public class RestfulWebServiceApplication {
 
 	public static void main(String[] args) throws SQLException {
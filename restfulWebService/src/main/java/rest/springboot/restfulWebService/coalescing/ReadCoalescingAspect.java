@@ -0,0 +1,57 @@
+package rest.springboot.restfulWebService.coalescing;
+
+import java.util.Optional;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import rest.springboot.restfulWebService.model.Orders;
+import rest.springboot.restfulWebService.model.User;
+
+/**
+ * ReadCoalescingAspect puts a SingleFlight in front of OrderService.getOrderById
+ * and UserService.getUser, so concurrent lookups of the same id share one
+ * database read. It runs outside the transaction of the call it coalesces;
+ * at that precedence arguments cannot be bound by the pointcut, so the id is
+ * read off the join point.
+ * Every caller gets a copy of its own of the order or user read, as callers
+ * such as the PUT handlers modify what they get.
+ * Disabled with oms.singleflight.enabled=false.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "oms.singleflight.enabled", matchIfMissing = true)
+public class ReadCoalescingAspect {
+
+	private final SingleFlight<Long, Optional<Orders>> orderReads;
+	private final SingleFlight<Long, Optional<User>> userReads;
+
+	@Autowired
+	public ReadCoalescingAspect(MeterRegistry meterRegistry) {
+		orderReads = new SingleFlight<Long, Optional<Orders>>("getOrderById", meterRegistry,
+				order -> order.map(Orders::new));
+		userReads = new SingleFlight<Long, Optional<User>>("getUser", meterRegistry, user -> user.map(User::new));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Around("execution(* rest.springboot.restfulWebService.service.OrderService.getOrderById(long))")
+	public Object coalesceOrderRead(ProceedingJoinPoint joinPoint) throws Throwable {
+		return orderReads.execute((Long) joinPoint.getArgs()[0], () -> (Optional<Orders>) joinPoint.proceed());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Around("execution(* rest.springboot.restfulWebService.service.UserService.getUser(long))")
+	public Object coalesceUserRead(ProceedingJoinPoint joinPoint) throws Throwable {
+		return userReads.execute((Long) joinPoint.getArgs()[0], () -> (Optional<User>) joinPoint.proceed());
+	}
+}
\ No newline at end of file
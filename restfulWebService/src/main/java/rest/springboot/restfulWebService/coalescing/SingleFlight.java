@@ -0,0 +1,103 @@
+package rest.springboot.restfulWebService.coalescing;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.UnaryOperator;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * SingleFlight runs at most one call per key at a time. Callers arriving
+ * while a call for their key is in flight wait for it and share its result,
+ * or its exception, instead of making their own. Nothing is kept once the
+ * call completes, so no result outlives its call; but a caller joining a
+ * read that started before a write committed gets the state from before
+ * that write, as if it had made the read itself a moment earlier.
+ * Given a copy function, every caller, the one that made the call included,
+ * gets a copy of the result of its own, so callers may modify what they get.
+ * Calls are counted in oms.singleflight.calls, tagged by name and by
+ * whether the caller led the call or shared it; shared / total is the
+ * collapse ratio.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class SingleFlight<K, V> {
+
+	/** Meter name of coalesced calls. */
+	static final String METRIC = "oms.singleflight.calls";
+
+	/** A call that may throw anything, such as ProceedingJoinPoint::proceed. */
+	@FunctionalInterface
+	public interface Call<V> {
+		V call() throws Throwable;
+	}
+
+	/** Results of the calls in flight, by key. */
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<K, CompletableFuture<V>>();
+
+	/** Makes each caller's copy of a result. */
+	private final UnaryOperator<V> copy;
+
+	private final Counter led;
+	private final Counter shared;
+
+	/** SingleFlight whose callers share the very same result. */
+	public SingleFlight(String name, MeterRegistry meterRegistry) {
+		this(name, meterRegistry, UnaryOperator.identity());
+	}
+
+	/** SingleFlight whose callers each get a copy of the result made by copy. */
+	public SingleFlight(String name, MeterRegistry meterRegistry, UnaryOperator<V> copy) {
+		this.copy = copy;
+		led = Counter.builder(METRIC).description("Calls made on behalf of all concurrent callers")
+				.tag("name", name).tag("result", "led").register(meterRegistry);
+		shared = Counter.builder(METRIC).description("Calls answered by another caller's call in flight")
+				.tag("name", name).tag("result", "shared").register(meterRegistry);
+		Gauge.builder("oms.singleflight.in.flight", inFlight, ConcurrentMap::size)
+				.description("Keys with a call in flight").tag("name", name).register(meterRegistry);
+	}
+
+	/**
+	 * Makes call for key, unless one is already in flight, and returns its result.
+	 * @param key: Key the call reads.
+	 * @param call: Read to make if none is in flight for key.
+	 * @return V: Result of the call made for key.
+	 * @throws Throwable whatever the call made for key threw.
+	 */
+	public V execute(K key, Call<V> call) throws Throwable {
+		CompletableFuture<V> mine = new CompletableFuture<V>();
+		CompletableFuture<V> theirs = inFlight.putIfAbsent(key, mine);
+		if (theirs != null) {
+			shared.increment();
+			return copy.apply(await(theirs));
+		}
+
+		led.increment();
+		try {
+			V result = call.call();
+			mine.complete(result);
+			return copy.apply(result);
+		} catch (Throwable t) {
+			mine.completeExceptionally(t);
+			throw t;
+		} finally {
+			inFlight.remove(key, mine);
+		}
+	}
+
+	/** Waits for a call in flight, rethrowing what it threw. */
+	private V await(CompletableFuture<V> call) throws Throwable {
+		try {
+			return call.get();
+		} catch (ExecutionException ee) {
+			throw ee.getCause();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw ie;
+		}
+	}
+}
\ No newline at end of file
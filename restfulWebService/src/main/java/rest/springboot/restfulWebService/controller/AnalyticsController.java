@@ -0,0 +1,76 @@
+package rest.springboot.restfulWebService.controller;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import rest.springboot.restfulWebService.stats.CategoryDayRevenue;
+import rest.springboot.restfulWebService.stats.CategoryRevenue;
+
+/**
+ * AnalyticsController class provides request handling methods for rollups
+ * of orders computed on request, such as revenue per category per day.
+ * Enabled with oms.analytics.enabled=true.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@RestController
+@RequestMapping("/oms")
+@ConditionalOnProperty(name = "oms.analytics.enabled", havingValue = "true")
+public class AnalyticsController {
+
+	/** Logger instance for AnalyticsController class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(AnalyticsController.class);
+
+	/** Injecting object dependency of CategoryRevenue. */
+	@Autowired
+	CategoryRevenue categoryRevenue;
+
+	/** Most days GET /analytics/category-revenue covers at once. */
+	@Value("${oms.analytics.max-range-days:366}")
+	int maxRangeDays;
+
+	/**
+	 * Retrieves the revenue of every product category on every day from
+	 * from to to, both inclusive.
+	 * @param from: First day, as yyyy-MM-dd.
+	 * @param to: Last day, as yyyy-MM-dd.
+	 * @return List<CategoryDayRevenue>: Revenue per category per day, by day
+	 * then category id; 400 if to is before from or the range is longer than
+	 * maxRangeDays.
+	 */
+	@GetMapping("/analytics/category-revenue")
+	public ResponseEntity<List<CategoryDayRevenue>> getRevenueByCategory(
+			@RequestParam(value = "from") @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+			@RequestParam(value = "to") @DateTimeFormat(iso = ISO.DATE) LocalDate to) {
+		LOGGER.trace("Retrieving revenue by category.");
+
+		if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+			LOGGER.error("Invalid range of days {} - {} requested.", from, to);
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+
+		try {
+			LOGGER.info("Calling categoryRevenue.getRevenueByCategory method to compute revenue by category.");
+			return new ResponseEntity<>(categoryRevenue.getRevenueByCategory(from, to), HttpStatus.OK);
+		} catch (Exception e) {
+			LOGGER.error("Failed to compute revenue by category for {} - {}.", from, to, e);
+
+			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+}
\ No newline at end of file
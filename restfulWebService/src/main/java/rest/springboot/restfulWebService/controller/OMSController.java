@@ -1,27 +1,53 @@
 package rest.springboot.restfulWebService.controller;
 
+import java.net.URI;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import rest.springboot.restfulWebService.exception.OutOfStockException;
+import rest.springboot.restfulWebService.exception.ShardKeyChangeException;
+import rest.springboot.restfulWebService.exception.UnknownProductException;
+import rest.springboot.restfulWebService.intake.IntakeStatus;
+import rest.springboot.restfulWebService.intake.OrderIntake;
+import rest.springboot.restfulWebService.exception.VersionConflictException;
+import rest.springboot.restfulWebService.logging.PayloadLog;
+import rest.springboot.restfulWebService.model.OrderPatch;
 import rest.springboot.restfulWebService.model.Orders;
 import rest.springboot.restfulWebService.model.Product;
-import rest.springboot.restfulWebService.model.User;
+import rest.springboot.restfulWebService.responseHandler.ETags;
+import rest.springboot.restfulWebService.responseHandler.MultiGetResponse;
+import rest.springboot.restfulWebService.responseHandler.ResponseHandler;
+import rest.springboot.restfulWebService.responseHandler.StreamingResponseWriter;
+import rest.springboot.restfulWebService.service.IdempotencyService;
 import rest.springboot.restfulWebService.service.OrderService;
 import rest.springboot.restfulWebService.service.ProductService;
 import rest.springboot.restfulWebService.service.UserService;
@@ -38,6 +64,39 @@ public class OMSController {
 	/** Logger instance for OMSController class. */
 	private static final Logger LOGGER = LoggerFactory.getLogger(OMSController.class);
 
+	/** Number of orders returned per page when no limit is given. */
+	static final int DEFAULT_PAGE_SIZE = 100;
+
+	/** Largest page of orders a single request may ask for. */
+	static final int MAX_PAGE_SIZE = 1000;
+
+	/** Largest number of orders accepted by a single batch request. */
+	static final int MAX_BATCH_SIZE = 10000;
+
+	/** Largest number of ids accepted by a single multi-get request. */
+	static final int MAX_MULTI_GET_IDS = 500;
+
+	/** Response header carrying the cursor for the next page of orders. */
+	static final String NEXT_AFTER_HEADER = "X-Next-After";
+
+	/** Response header carrying the number of the next page of orders. */
+	static final String NEXT_PAGE_HEADER = "X-Next-Page";
+
+	/** Response header carrying the cursor for the next page of a user's orders. */
+	static final String NEXT_BEFORE_HEADER = "X-Next-Before";
+
+	/** Response header carrying the number of rows a bulk delete removed. */
+	static final String DELETED_COUNT_HEADER = "X-Deleted-Count";
+
+	/** Request header by which clients ask for asynchronous processing (RFC 7240). */
+	static final String PREFER_HEADER = "Prefer";
+
+	/** Response header confirming the preference that was honored. */
+	static final String PREFERENCE_APPLIED_HEADER = "Preference-Applied";
+
+	/** Preference asking for an order to be accepted and written later. */
+	static final String RESPOND_ASYNC = "respond-async";
+
 	/** Injecting object dependency of ProductService. */
 	@Autowired
 	ProductService productService;
@@ -46,6 +105,18 @@ public class OMSController {
 	@Autowired
 	OrderService orderService;
 
+	/** Injecting object dependency of IdempotencyService. */
+	@Autowired
+	IdempotencyService idempotencyService;
+
+	/** Injecting object dependency of StreamingResponseWriter. */
+	@Autowired
+	StreamingResponseWriter streamingResponseWriter;
+
+	/** Injecting object dependency of OrderIntake, when enabled. */
+	@Autowired(required = false)
+	OrderIntake orderIntake;
+
 	/**
 	 * Retrieves list of all products from Product entity in H2 db.
 	 * Calls getAllProducts() from ProductService class to get the list of all 
@@ -71,49 +142,382 @@ public class OMSController {
 		}
 	}
 
+	/**
+	 * Retrieves product from Product entity in H2 db based on product id.
+	 * Calls getProduct() from ProductService class, served from the catalog cache.
+	 * @param id: Id of product to be retrieved.
+	 * @return Product: Product data retrieved.
+	 */
+	@GetMapping("/product/{id}")
+	public ResponseEntity<Product> getProductById(@PathVariable("id") long id) {
+		LOGGER.trace("Retrieving product by Product Id.");
+
+		LOGGER.info("Calling productService.getProduct method to retrieve product data by id.");
+		Optional<Product> productData = productService.getProduct(id);
+
+		if (productData.isPresent()) {
+			return new ResponseEntity<>(productData.get(), HttpStatus.OK);
+		} else {
+			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		}
+	}
+
+	/**
+	 * Creates a new product in Product entity in H2 db.
+	 * Calls addNewProduct() from ProductService class, which refreshes the catalog cache.
+	 * @param product: Product JSON containing name, qty, price & category id.
+	 * @return Product: New product created.
+	 */
+	@PostMapping("/product")
+	public ResponseEntity<Product> createProduct(@RequestBody Product product) {
+		LOGGER.trace("Creating a new product.");
+
+		try {
+			LOGGER.info("Calling ProductService.addNewProduct method to create a new product.");
+			return new ResponseEntity<>(productService.addNewProduct(product), HttpStatus.CREATED);
+		} catch (Exception e) {
+			LOGGER.error("Failed to create product in repo.");
+
+			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * Updates product in Product entity in H2 db.
+	 * Calls updateProductData() from ProductService class, which refreshes the catalog cache.
+	 * @param id: Id of product to be updated.
+	 * @param product: Product's data to be updated to.
+	 * @return Product: Product's data updated.
+	 */
+	@PutMapping("/product/{id}")
+	public ResponseEntity<Product> updateProduct(@PathVariable("id") long id, @RequestBody Product product) {
+		LOGGER.trace("Updating product.");
+
+		LOGGER.info("Calling productService.updateProductData method to update product data.");
+		Optional<Product> productData = productService.updateProductData(id, product);
+
+		if (productData.isPresent()) {
+			return new ResponseEntity<>(productData.get(), HttpStatus.OK);
+		} else {
+			LOGGER.error("Failed to update product in repo: No such product found in repo.");
+
+			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		}
+	}
+
+	/**
+	 * Deletes product from Product entity in H2 db.
+	 * Calls removeProduct() from ProductService class, which evicts it from the catalog cache.
+	 * @param id: Id of product to be deleted.
+	 * @return Http status code for deletion; 204- Success, 500- Failure.
+	 */
+	@DeleteMapping("/product/{id}")
+	public ResponseEntity<HttpStatus> deleteProduct(@PathVariable("id") long id) {
+		LOGGER.trace("Deleting product.");
+
+		try {
+			LOGGER.info("Calling productService.removeProduct method to delete product.");
+			productService.removeProduct(id);
+
+			return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+		} catch (Exception e) {
+			LOGGER.error("Failed to delete product from repo.");
+
+			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * Exports all products from Product entity in H2 db as NDJSON.
+	 * Calls streamAllProducts() from ProductService class; each product is
+	 * written as its own line as soon as it is read.
+	 * @return StreamingResponseBody: One product JSON document per line.
+	 */
+	@GetMapping(value = "/products", produces = StreamingResponseWriter.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> exportAllProducts() {
+		LOGGER.trace("Exporting all products.");
+
+		LOGGER.info("Calling ProductService.streamAllProducts method to export all products.");
+		StreamingResponseBody body = streamingResponseWriter.ndjson(productService::streamAllProducts);
+
+		return ResponseEntity.ok().contentType(StreamingResponseWriter.APPLICATION_NDJSON).body(body);
+	}
+
 	/**
 	 * Creates a new order in Orders entity in H2 db.
 	 * Calls addNewOrder() from OrderService class to create new order
 	 * in ORDER.
+	 * With an Idempotency-Key header, a retry of the same request gets the
+	 * original response back instead of creating another order. An order
+	 * for a user or product that does not exist is rejected with 400.
+	 * With "Prefer: respond-async" and OrderIntake enabled, the order is
+	 * only validated, priced and queued: 202 is returned with the order as
+	 * it will be written and a Location to poll for its status, or 429 if
+	 * the queue is full.
+	 * @param idempotencyKey: Client chosen key identifying this request.
+	 * @param prefer: Client preferences; respond-async asks for the order to be queued.
 	 * @param order: Orders JSON containing product id & user id.
-	 * @return Orders: New order created.
+	 * @return Orders: New order created, or accepted.
 	 */
 	@PostMapping("/order")
-	public ResponseEntity<Orders> createOrder(@RequestBody Orders order) {
+	public ResponseEntity<?> createOrder(
+			@RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+			@RequestHeader(value = PREFER_HEADER, required = false) String prefer,
+			@RequestBody Orders order) {
 		LOGGER.trace("Creating a new order.");
 
+		return idempotencyService.execute("POST /oms/order", idempotencyKey, order, () -> {
+			ResponseHandler validateResp = orderService.validateOrder(order);
+			if (validateResp.getResponseCode() != HttpStatus.OK) {
+				LOGGER.error(validateResp.getResponseStatus());
+				return new ResponseEntity<>(null, validateResp.getResponseCode());
+			}
+
+			if (orderIntake != null && prefersAsync(prefer)) {
+				return acceptOrder(order);
+			}
+
+			try {
+				LOGGER.info("Calling OrderService.addNewOrder method to create a new order.");
+				Orders _order = orderService.addNewOrder(order);
+
+				return new ResponseEntity<>(_order, HttpStatus.CREATED);
+			} catch (OutOfStockException oose) {
+				LOGGER.error("Failed to create order: {}", oose.getMessage());
+
+				return new ResponseEntity<>(null, HttpStatus.CONFLICT);
+			} catch (UnknownProductException upe) {
+				LOGGER.error("Failed to create order: {}", upe.getMessage());
+
+				return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+			} catch (Exception e) {
+				LOGGER.error("Failed to create order in repo.");
+
+				return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+			}
+		});
+	}
+
+	/** Queues a validated order with OrderIntake, mapping the outcome to a response. */
+	private ResponseEntity<?> acceptOrder(Orders order) {
 		try {
-			LOGGER.info("Calling OrderService.addNewOrder method to create a new order.");
-			Orders _order = orderService.addNewOrder(order);
+			LOGGER.info("Calling OrderIntake.accept method to queue a new order.");
+			Optional<Orders> accepted = orderIntake.accept(order);
+
+			if (!accepted.isPresent()) {
+				LOGGER.error("Order intake queue is full.");
+				return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").build();
+			}
+			return ResponseEntity.accepted().header(PREFERENCE_APPLIED_HEADER, RESPOND_ASYNC)
+					.location(URI.create("/oms/order/" + accepted.get().getOid() + "/status")).body(accepted.get());
+		} catch (OutOfStockException oose) {
+			LOGGER.error("Failed to accept order: {}", oose.getMessage());
+
+			return new ResponseEntity<>(null, HttpStatus.CONFLICT);
+		} catch (UnknownProductException upe) {
+			LOGGER.error("Failed to accept order: {}", upe.getMessage());
+
+			return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
+		}
+	}
+
+	/** Tells whether a Prefer header asks for respond-async. */
+	private static boolean prefersAsync(String prefer) {
+		if (prefer == null) {
+			return false;
+		}
+		for (String preference : prefer.split(",")) {
+			if (preference.trim().equalsIgnoreCase(RESPOND_ASYNC)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Retrieves the status of an order accepted with "Prefer: respond-async".
+	 * Calls status() from OrderIntake, which tracks queued orders until they
+	 * are written and looks older ones up in ORDERS.
+	 * @param id: Id of the order, as returned on acceptance.
+	 * @return IntakeStatus: PENDING, PERSISTED or FAILED with a reason; 404 if unknown.
+	 */
+	@GetMapping("/order/{id}/status")
+	public ResponseEntity<IntakeStatus> getOrderStatus(@PathVariable("id") long id) {
+		LOGGER.trace("Retrieving status of accepted order.");
+
+		if (orderIntake == null) {
+			LOGGER.error("Order intake is not enabled.");
+			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		}
+
+		Optional<IntakeStatus> status = orderIntake.status(id);
+		if (status.isPresent()) {
+			return new ResponseEntity<>(status.get(), HttpStatus.OK);
+		} else {
+			LOGGER.error("No accepted order with id {}.", id);
+
+			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		}
+	}
+
+	/**
+	 * Creates new orders in bulk in Orders entity in H2 db.
+	 * Calls addNewOrders() from OrderService class, which persists them through
+	 * JDBC batching in a single transaction. The users and products the
+	 * orders refer to are checked for the whole batch at once.
+	 * @param orders: List of Orders JSON containing product id & user id.
+	 * @return List<Long>: Ids assigned to the new orders, in request order.
+	 */
+	@PostMapping("/orders/batch")
+	public ResponseEntity<List<Long>> createOrders(@RequestBody List<Orders> orders) {
+		LOGGER.trace("Creating a batch of new orders.");
 
-			return new ResponseEntity<>(_order, HttpStatus.CREATED);
+		if (orders.isEmpty() || orders.size() > MAX_BATCH_SIZE) {
+			LOGGER.error("Batch size {} is outside 1..{}.", orders.size(), MAX_BATCH_SIZE);
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+
+		ResponseHandler validateResp = orderService.validateOrders(orders);
+		if (validateResp.getResponseCode() != HttpStatus.OK) {
+			LOGGER.error(validateResp.getResponseStatus());
+			return new ResponseEntity<>(validateResp.getResponseCode());
+		}
+
+		try {
+			PayloadLog.info(LOGGER, "Calling OrderService.addNewOrders method to create {} new orders.", orders);
+			return new ResponseEntity<>(orderService.addNewOrders(orders), HttpStatus.CREATED);
+		} catch (OutOfStockException oose) {
+			LOGGER.error("Failed to create batch of orders: {}", oose.getMessage());
+
+			return new ResponseEntity<>(null, HttpStatus.CONFLICT);
+		} catch (UnknownProductException upe) {
+			LOGGER.error("Failed to create batch of orders: {}", upe.getMessage());
+
+			return new ResponseEntity<>(null, HttpStatus.BAD_REQUEST);
 		} catch (Exception e) {
-			LOGGER.error("Failed to create order in repo.");
+			LOGGER.error("Failed to create batch of orders in repo.");
 
 			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
 		}
 	}
 
 	/**
-	 * Retrieves list of all orders from Orders entity in H2 db.
-	 * Calls getAllOrders() from OrderService class to get the list of all 
-	 * users from ORDERS.
-	 * @return List<Orders>: List of all orders.
+	 * Retrieves one page of orders from Orders entity in H2 db.
+	 * Calls getAllOrders() from OrderService class to get the orders whose id
+	 * follows "after". When the page is full, the id to pass as "after" for the
+	 * next page is returned in the X-Next-After header.
+	 * @param after: Order id after which the page starts; 0 for the first page.
+	 * @param limit: Maximum number of orders in the page, capped at MAX_PAGE_SIZE.
+	 * @return List<Orders>: Page of orders.
 	 */
 	@GetMapping("/orders")
-	public ResponseEntity<List<Orders>> getAllOrders() {
+	public ResponseEntity<List<Orders>> getAllOrders(
+			@RequestParam(value = "after", defaultValue = "0") long after,
+			@RequestParam(value = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+		LOGGER.trace("Retrieving page of orders.");
+
+		if (limit < 1 || limit > MAX_PAGE_SIZE) {
+			LOGGER.error("Page size {} is outside 1..{}.", limit, MAX_PAGE_SIZE);
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+
+		try {
+			LOGGER.info("Calling OrderService.getAllOrders method to list a page of orders.");
+			List<Orders> orders = orderService.getAllOrders(after, limit);
+
+			if (orders.isEmpty()) {
+				return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+			}
+
+			HttpHeaders headers = new HttpHeaders();
+			if (orders.size() == limit) {
+				headers.set(NEXT_AFTER_HEADER, String.valueOf(orders.get(orders.size() - 1).getOid()));
+			}
+			return new ResponseEntity<>(orders, headers, HttpStatus.OK);
+		} catch (Exception e) {
+			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * Streams all orders from Orders entity in H2 db as one JSON array.
+	 * Calls streamAllOrders() from OrderService class; each order is written to
+	 * the response as it comes off the database cursor.
+	 * @return StreamingResponseBody: JSON array of all orders.
+	 */
+	@GetMapping(value = "/orders", params = "stream=true")
+	public ResponseEntity<StreamingResponseBody> streamAllOrders() {
+		LOGGER.trace("Streaming all orders.");
+
+		LOGGER.info("Calling OrderService.streamAllOrders method to stream all orders.");
+		StreamingResponseBody body = streamingResponseWriter.jsonArray(orderService::streamAllOrders);
+
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+	}
+
+	/**
+	 * Exports all orders from Orders entity in H2 db as NDJSON.
+	 * Calls streamAllOrders() from OrderService class; each order is written
+	 * as its own line as soon as it comes off the database cursor.
+	 * @return StreamingResponseBody: One order JSON document per line.
+	 */
+	@GetMapping(value = "/orders", produces = StreamingResponseWriter.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> exportAllOrders() {
+		LOGGER.trace("Exporting all orders.");
+
+		LOGGER.info("Calling OrderService.streamAllOrders method to export all orders.");
+		StreamingResponseBody body = streamingResponseWriter.ndjson(orderService::streamAllOrders);
+
+		return ResponseEntity.ok().contentType(StreamingResponseWriter.APPLICATION_NDJSON).body(body);
+	}
+
+	/**
+	 * Retrieves one page of a user's orders, newest first, from Orders entity in H2 db.
+	 * Calls getOrdersByUser() from OrderService class. When the page is full, the
+	 * cursor to pass as "before" for the next page is returned in the
+	 * X-Next-Before header, formatted as "epochMillis:orderId".
+	 * @param id: Id of user whose orders are to be retrieved.
+	 * @param before: Cursor from the previous page; absent for the first page.
+	 * @param limit: Maximum number of orders in the page, capped at MAX_PAGE_SIZE.
+	 * @return List<Orders>: Page of the user's orders.
+	 */
+	@GetMapping("/user/{id}/orders")
+	public ResponseEntity<List<Orders>> getOrdersByUser(@PathVariable("id") long id,
+			@RequestParam(value = "before", required = false) String before,
+			@RequestParam(value = "limit", defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+		LOGGER.trace("Retrieving orders by User Id.");
+
+		Date beforeDate = null;
+		long beforeOid = 0;
 		try {
-			LOGGER.trace("Retrieving list of all orders.");
+			if (before != null) {
+				int separator = before.indexOf(':');
+				beforeDate = new Date(Long.parseLong(before.substring(0, separator)));
+				beforeOid = Long.parseLong(before.substring(separator + 1));
+			}
+		} catch (RuntimeException re) {
+			LOGGER.error("Malformed order cursor {}.", before);
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+		if (limit < 1 || limit > MAX_PAGE_SIZE) {
+			LOGGER.error("Page size {} is outside 1..{}.", limit, MAX_PAGE_SIZE);
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
 
-			List<Orders> orders = new ArrayList<Orders>();
-			LOGGER.info("Calling OrderService.getAllOrders method to list all orders.");
-			orderService.getAllOrders().forEach(orders::add);
+		try {
+			LOGGER.info("Calling orderService.getOrdersByUser method to list a page of user's orders.");
+			List<Orders> orders = orderService.getOrdersByUser(id, beforeDate, beforeOid, limit);
 
 			if (orders.isEmpty()) {
 				return new ResponseEntity<>(HttpStatus.NO_CONTENT);
 			}
 
-			return new ResponseEntity<>(orders, HttpStatus.OK);
+			HttpHeaders headers = new HttpHeaders();
+			if (orders.size() == limit) {
+				Orders last = orders.get(orders.size() - 1);
+				headers.set(NEXT_BEFORE_HEADER, last.getOrderDate().getTime() + ":" + last.getOid());
+			}
+			return new ResponseEntity<>(orders, headers, HttpStatus.OK);
 		} catch (Exception e) {
 			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
 		}
@@ -134,25 +538,92 @@ public class OMSController {
 		Optional<Orders> orderData = orderService.getOrderById(id);
 
 		if (orderData.isPresent()) {
-			return new ResponseEntity<>(orderData.get(), HttpStatus.OK);
+			return ResponseEntity.ok().eTag(ETags.of(orderData.get().getVersion())).body(orderData.get());
 		} else {
 			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
 		}
 	}
 
+	/**
+	 * Retrieves orders from Orders entity in H2 db for a list of order ids.
+	 * Calls getOrdersByIds() from OrderService class, which resolves them with
+	 * chunked IN queries instead of one lookup per id. Repeated ids are
+	 * looked up once.
+	 * @param ids: Comma separated order ids, at most MAX_MULTI_GET_IDS.
+	 * @return MultiGetResponse<Orders>: Orders in request order, and the ids not found.
+	 */
+	@GetMapping(value = "/orders", params = "ids")
+	public ResponseEntity<MultiGetResponse<Orders>> getOrdersByIds(@RequestParam("ids") List<Long> ids) {
+		LOGGER.trace("Retrieving orders by id list.");
+
+		if (ids.isEmpty() || ids.size() > MAX_MULTI_GET_IDS) {
+			LOGGER.error("Number of ids {} is outside 1..{}.", ids.size(), MAX_MULTI_GET_IDS);
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+
+		try {
+			PayloadLog.info(LOGGER, "Calling orderService.getOrdersByIds method to retrieve {} orders.", ids);
+			return new ResponseEntity<>(orderService.getOrdersByIds(new LinkedHashSet<Long>(ids)), HttpStatus.OK);
+		} catch (Exception e) {
+			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * Retrieves one page of orders placed on a calendar day from Orders entity in H2 db.
+	 * Calls getOrdersForDay() from OrderService class. When more orders follow,
+	 * the next page number is returned in the X-Next-Page header.
+	 * @param orderDate: Calendar day of the orders, as yyyy-MM-dd.
+	 * @param page: Zero based page number.
+	 * @param size: Number of orders per page, capped at MAX_PAGE_SIZE.
+	 * @return List<Orders>: Page of orders placed that day.
+	 */
 	@GetMapping("/order")
-	public ResponseEntity<List<Orders>> getOrdersByOrderDate(@RequestParam(value="orderDate") Date orderDate) {
-		LOGGER.trace("Retrieving order by Order date.");
+	public ResponseEntity<List<Orders>> getOrdersByOrderDate(
+			@RequestParam(value = "orderDate") @DateTimeFormat(iso = ISO.DATE) LocalDate orderDate,
+			@RequestParam(value = "page", defaultValue = "0") int page,
+			@RequestParam(value = "size", defaultValue = "" + DEFAULT_PAGE_SIZE) int size) {
+		LOGGER.trace("Retrieving orders by Order date.");
+
+		if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+			LOGGER.error("Invalid page {} of size {} requested.", page, size);
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
 
 		try {
-			List<Orders> orders = new ArrayList<Orders>();
-			LOGGER.info("Calling orderService.getOrderByDate method to retrieve order data by date.");
-			orderService.getOrderByDate(orderDate).forEach(orders::add);
+			LOGGER.info("Calling orderService.getOrdersForDay method to retrieve order data by date.");
+			return toPageResponse(orderService.getOrdersForDay(orderDate, page, size));
+		} catch (Exception e) {
+			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
 
-			if (orders.isEmpty()) {
-				return new ResponseEntity<>(HttpStatus.NO_CONTENT);
-			}
-			return new ResponseEntity<>(orders, HttpStatus.OK);
+	/**
+	 * Retrieves one page of orders placed in [from, to) from Orders entity in H2 db.
+	 * Calls getOrdersBetween() from OrderService class. When more orders follow,
+	 * the next page number is returned in the X-Next-Page header.
+	 * @param from: Inclusive lower bound, as an ISO-8601 instant.
+	 * @param to: Exclusive upper bound, as an ISO-8601 instant.
+	 * @param page: Zero based page number.
+	 * @param size: Number of orders per page, capped at MAX_PAGE_SIZE.
+	 * @return List<Orders>: Page of orders in order date order.
+	 */
+	@GetMapping(value = "/orders", params = { "from", "to" })
+	public ResponseEntity<List<Orders>> getOrdersByDateRange(
+			@RequestParam(value = "from") Instant from,
+			@RequestParam(value = "to") Instant to,
+			@RequestParam(value = "page", defaultValue = "0") int page,
+			@RequestParam(value = "size", defaultValue = "" + DEFAULT_PAGE_SIZE) int size) {
+		LOGGER.trace("Retrieving orders by Order date range.");
+
+		if (!from.isBefore(to) || page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+			LOGGER.error("Invalid range {} - {} or page {} of size {} requested.", from, to, page, size);
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+
+		try {
+			LOGGER.info("Calling orderService.getOrdersBetween method to retrieve order data by date range.");
+			return toPageResponse(orderService.getOrdersBetween(Date.from(from), Date.from(to), page, size));
 		} catch (Exception e) {
 			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
 		}
@@ -162,18 +633,28 @@ public class OMSController {
 	public ResponseEntity<Orders> updateOrder(@PathVariable("id") long id, @RequestBody Orders order) {
 		LOGGER.trace("Updating order.");
 
-		LOGGER.info("Calling orderService.getOrder method to retrieve order data by id.");
-		Optional<Orders> orderData = orderService.getOrderById(id);
-		//		Optional<Orders> orderData = ordersRepository.findById(id);
+		ResponseHandler validateResp = orderService.validateOrder(order);
+		if (validateResp.getResponseCode() != HttpStatus.OK) {
+			LOGGER.error(validateResp.getResponseStatus());
+			return new ResponseEntity<>(validateResp.getResponseCode());
+		}
 
-		if (orderData.isPresent()) {
-			Orders _order = orderData.get();
-			_order.setOrderDate(new Date());
-			_order.setProductId(order.getProductId());
-			_order.setUserId(order.getUserId());
-			LOGGER.info("Calling orderService.updateOrderData method to update order data.");
+		LOGGER.info("Calling orderService.updateOrderData method to update order data.");
+		Optional<Orders> orderData;
+		try {
+			orderData = orderService.updateOrderData(id, order);
+		} catch (OutOfStockException | VersionConflictException | ShardKeyChangeException e) {
+			LOGGER.error("Failed to update order: {}", e.getMessage());
+
+			return new ResponseEntity<>(HttpStatus.CONFLICT);
+		} catch (UnknownProductException upe) {
+			LOGGER.error("Failed to update order: {}", upe.getMessage());
 
-			return new ResponseEntity<>(orderService.updateOrderData(_order), HttpStatus.OK);
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+
+		if (orderData.isPresent()) {
+			return ResponseEntity.ok().eTag(ETags.of(orderData.get().getVersion())).body(orderData.get());
 		} else {
 			LOGGER.error("Failed to update order in repo: No such order found in repo.");
 
@@ -181,6 +662,59 @@ public class OMSController {
 		}
 	}
 
+	/**
+	 * Applies a partial update to an order in Orders entity in H2 db.
+	 * Calls patchOrder() from OrderService class, which changes the order with
+	 * one conditional UPDATE guarded by its version, without reading it first.
+	 * The If-Match header must carry the order's current ETag, as returned by
+	 * GET /order/{id}; the new ETag is returned.
+	 * @param id: Id of order to be updated.
+	 * @param ifMatch: ETag of the version the patch was made against.
+	 * @param patch: Attributes to change; null ones are left as is.
+	 * @return Http status code; 204- Success, 400- Invalid patch, 404- No such
+	 * order, 409- Version conflict, out of stock or user on another shard
+	 * bucket, 428- If-Match missing.
+	 */
+	@PatchMapping("/order/{id}")
+	public ResponseEntity<HttpStatus> patchOrder(@PathVariable("id") long id,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@RequestBody OrderPatch patch) {
+		LOGGER.trace("Patching order.");
+
+		Long version = ETags.toVersion(ifMatch);
+		if (version == null) {
+			LOGGER.error("Patch of order {} has no usable If-Match header: {}", id, ifMatch);
+			return new ResponseEntity<>(HttpStatus.PRECONDITION_REQUIRED);
+		}
+
+		ResponseHandler validateResp = orderService.validateOrderPatch(patch);
+		if (validateResp.getResponseCode() != HttpStatus.OK) {
+			LOGGER.error(validateResp.getResponseStatus());
+			return new ResponseEntity<>(validateResp.getResponseCode());
+		}
+
+		try {
+			LOGGER.info("Calling orderService.patchOrder method to patch order data.");
+			Optional<Long> newVersion = orderService.patchOrder(id, version, patch);
+
+			if (newVersion.isPresent()) {
+				return ResponseEntity.noContent().eTag(ETags.of(newVersion.get())).build();
+			} else {
+				LOGGER.error("Failed to patch order in repo: No such order found in repo.");
+
+				return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+			}
+		} catch (VersionConflictException | OutOfStockException | ShardKeyChangeException e) {
+			LOGGER.error("Failed to patch order: {}", e.getMessage());
+
+			return new ResponseEntity<>(HttpStatus.CONFLICT);
+		} catch (UnknownProductException upe) {
+			LOGGER.error("Failed to patch order: {}", upe.getMessage());
+
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+	}
+
 	@DeleteMapping("/orders/{id}")
 	public ResponseEntity<HttpStatus> deleteOrder(@PathVariable("id") long id) {
 		LOGGER.trace("Deleting order.");
@@ -190,6 +724,10 @@ public class OMSController {
 			orderService.removeOrder(id);
 			LOGGER.info("Order successfully deleted from repo.");
 			return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+		} catch (EmptyResultDataAccessException erdae) {
+			LOGGER.error("Failed to delete order: No such order found in repo.");
+
+			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
 		} catch (Exception e) {
 			LOGGER.error("Failed to delete order from repo.");
 
@@ -203,14 +741,27 @@ public class OMSController {
 
 		try {
 			LOGGER.info("Calling orderService.removeOrders method to delete all orders.");
-			orderService.removeOrders();
-			LOGGER.info("All orders successfully deleted from repo.");
+			long deleted = orderService.removeOrders();
+			LOGGER.info("All {} orders successfully deleted from repo.", deleted);
 
-			return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+			return ResponseEntity.noContent().header(DELETED_COUNT_HEADER, Long.toString(deleted)).build();
 		} catch (Exception e) {
 			LOGGER.error("Failed to delete user from repo.");
 
 			return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
 		}
 	}
+
+	/** Wraps a slice of orders into a response, advertising the next page if any. */
+	private ResponseEntity<List<Orders>> toPageResponse(Slice<Orders> orders) {
+		if (!orders.hasContent()) {
+			return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+		}
+
+		HttpHeaders headers = new HttpHeaders();
+		if (orders.hasNext()) {
+			headers.set(NEXT_PAGE_HEADER, String.valueOf(orders.getNumber() + 1));
+		}
+		return new ResponseEntity<>(orders.getContent(), headers, HttpStatus.OK);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package rest.springboot.restfulWebService.controller;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import rest.springboot.restfulWebService.sharding.ShardRebalancer;
+
+/**
+ * ShardController class provides request handling methods for inspecting and
+ * rebalancing the ORDERS shards. Enabled with oms.shards.enabled=true.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@RestController
+@RequestMapping("/oms")
+@ConditionalOnProperty(name = "oms.shards.enabled", havingValue = "true")
+public class ShardController {
+
+	/** Logger instance for ShardController class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ShardController.class);
+
+	/** Injecting object dependency of ShardRebalancer. */
+	@Autowired
+	ShardRebalancer shardRebalancer;
+
+	/**
+	 * Retrieves the number of orders on every shard.
+	 * @return Map<String, Long>: Orders per shard name.
+	 */
+	@GetMapping("/shards")
+	public ResponseEntity<Map<String, Long>> getShards() {
+		LOGGER.trace("Counting orders per shard.");
+
+		try {
+			return new ResponseEntity<>(shardRebalancer.countOrders(), HttpStatus.OK);
+		} catch (Exception e) {
+			LOGGER.error("Failed to count orders per shard.", e);
+
+			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * Moves buckets onto shards added since the last rebalance, until every
+	 * shard holds an even share. Order writes should be stopped meanwhile;
+	 * see ShardRebalancer.rebalance.
+	 * @return Map<String, Long>: Number of orders moved, as "moved".
+	 */
+	@PostMapping("/shards/rebalance")
+	public ResponseEntity<Map<String, Long>> rebalance() {
+		LOGGER.trace("Rebalancing shards.");
+
+		try {
+			LOGGER.info("Calling shardRebalancer.rebalance method to move misplaced orders.");
+			long moved = shardRebalancer.rebalance();
+			LOGGER.info("{} orders moved between shards.", moved);
+
+			return new ResponseEntity<>(Collections.singletonMap("moved", moved), HttpStatus.OK);
+		} catch (Exception e) {
+			LOGGER.error("Failed to rebalance shards.", e);
+
+			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+}
\ No newline at end of file
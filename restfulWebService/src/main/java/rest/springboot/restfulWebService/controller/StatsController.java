@@ -0,0 +1,134 @@
+package rest.springboot.restfulWebService.controller;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import rest.springboot.restfulWebService.model.DailyOrderStats;
+import rest.springboot.restfulWebService.model.UserOrderStats;
+import rest.springboot.restfulWebService.stats.OrderStats;
+
+/**
+ * StatsController class provides request handling methods for reading the
+ * order totals per user and per day kept by OrderStats, and for rebuilding
+ * them from ORDERS. Enabled with oms.stats.enabled=true.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@RestController
+@RequestMapping("/oms")
+@ConditionalOnProperty(name = "oms.stats.enabled", havingValue = "true")
+public class StatsController {
+
+	/** Logger instance for StatsController class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(StatsController.class);
+
+	/** Injecting object dependency of OrderStats. */
+	@Autowired
+	OrderStats orderStats;
+
+	/** Most days GET /stats/days returns at once. */
+	@Value("${oms.stats.max-range-days:366}")
+	int maxRangeDays;
+
+	/**
+	 * Retrieves the number of orders, line items and revenue of a user.
+	 * @param userId: Id of the user.
+	 * @return UserOrderStats: Totals of the user's orders; all 0 if it has none.
+	 */
+	@GetMapping("/stats/users/{userId}")
+	public ResponseEntity<UserOrderStats> getUserStats(@PathVariable("userId") long userId) {
+		LOGGER.trace("Retrieving order totals of a user.");
+
+		try {
+			return new ResponseEntity<>(orderStats.getUserStats(userId), HttpStatus.OK);
+		} catch (Exception e) {
+			LOGGER.error("Failed to retrieve order totals of user {}.", userId, e);
+
+			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * Retrieves the number of orders, line items and revenue of a day.
+	 * @param day: Calendar day, as yyyy-MM-dd.
+	 * @return DailyOrderStats: Totals of the orders placed that day.
+	 */
+	@GetMapping("/stats/days/{day}")
+	public ResponseEntity<DailyOrderStats> getDailyStats(
+			@PathVariable("day") @DateTimeFormat(iso = ISO.DATE) LocalDate day) {
+		LOGGER.trace("Retrieving order totals of a day.");
+
+		try {
+			return new ResponseEntity<>(orderStats.getDailyStats(day, day).get(0), HttpStatus.OK);
+		} catch (Exception e) {
+			LOGGER.error("Failed to retrieve order totals of {}.", day, e);
+
+			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * Retrieves the number of orders, line items and revenue of every day
+	 * from from to to, both inclusive.
+	 * @param from: First day, as yyyy-MM-dd.
+	 * @param to: Last day, as yyyy-MM-dd.
+	 * @return List<DailyOrderStats>: Totals of every day, in day order; 400 if
+	 * to is before from or the range is longer than maxRangeDays.
+	 */
+	@GetMapping(value = "/stats/days", params = { "from", "to" })
+	public ResponseEntity<List<DailyOrderStats>> getDailyStats(
+			@RequestParam(value = "from") @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+			@RequestParam(value = "to") @DateTimeFormat(iso = ISO.DATE) LocalDate to) {
+		LOGGER.trace("Retrieving order totals of a range of days.");
+
+		if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+			LOGGER.error("Invalid range of days {} - {} requested.", from, to);
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+
+		try {
+			return new ResponseEntity<>(orderStats.getDailyStats(from, to), HttpStatus.OK);
+		} catch (Exception e) {
+			LOGGER.error("Failed to retrieve order totals of {} - {}.", from, to, e);
+
+			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
+	/**
+	 * Recomputes the order totals of every user and day from ORDERS, as the
+	 * nightly rebuild does.
+	 * @return Map<String, Integer>: Number of rows written, as "users" and "days".
+	 */
+	@PostMapping("/stats/rebuild")
+	public ResponseEntity<Map<String, Integer>> rebuild() {
+		LOGGER.trace("Rebuilding order totals.");
+
+		try {
+			LOGGER.info("Calling orderStats.rebuild method to recompute order totals.");
+			return new ResponseEntity<>(orderStats.rebuild(), HttpStatus.OK);
+		} catch (Exception e) {
+			LOGGER.error("Failed to rebuild order totals.", e);
+
+			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+}
\ No newline at end of file
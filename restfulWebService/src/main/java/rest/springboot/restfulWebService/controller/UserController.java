@@ -2,24 +2,39 @@ package rest.springboot.restfulWebService.controller;
 
 import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import rest.springboot.restfulWebService.exception.DuplicateEmailException;
+import rest.springboot.restfulWebService.exception.VersionConflictException;
+import rest.springboot.restfulWebService.logging.PayloadLog;
 import rest.springboot.restfulWebService.model.User;
+import rest.springboot.restfulWebService.model.UserPatch;
+import rest.springboot.restfulWebService.responseHandler.ETags;
+import rest.springboot.restfulWebService.responseHandler.MultiGetResponse;
 import rest.springboot.restfulWebService.responseHandler.ResponseHandler;
+import rest.springboot.restfulWebService.responseHandler.StreamingResponseWriter;
+import rest.springboot.restfulWebService.service.IdempotencyService;
 import rest.springboot.restfulWebService.service.UserService;
 
 /**
@@ -38,18 +53,37 @@ public class UserController {
 	@Autowired
 	UserService userService;
 
+	/** Injecting object dependency of StreamingResponseWriter. */
+	@Autowired
+	StreamingResponseWriter streamingResponseWriter;
+
+	/** Injecting object dependency of IdempotencyService. */
+	@Autowired
+	IdempotencyService idempotencyService;
+
 	/**
 	 * Creates a new user in User entity in H2 db.
 	 * Calls addNewUser() from UserService class to create new user 
 	 * in USER.
+	 * With an Idempotency-Key header, a retry of the same request gets the
+	 * original response back instead of creating the user again. A user
+	 * whose email id is already taken is rejected with 409.
+	 * @param idempotencyKey: Client chosen key identifying this request.
 	 * @param user: User JSON containing name, address, phone & email of
 	 * user to be created.
 	 * @return User: New user created.
 	 */
 	@PostMapping("/user")
-	public ResponseEntity<User> createUser(@RequestBody User user) {
+	public ResponseEntity<?> createUser(
+			@RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+			@RequestBody User user) {
 		LOGGER.trace("Creating a new User.");
 
+		return idempotencyService.execute("POST /oms/user", idempotencyKey, user, () -> addNewUser(user));
+	}
+
+	/** Validates and creates a user, mapping the outcome to a response. */
+	private ResponseEntity<User> addNewUser(User user) {
 		ResponseHandler validateResp = userService.validateUser(user);
 
 		if(HttpStatus.OK == validateResp.getResponseCode()) {
@@ -61,6 +95,10 @@ public class UserController {
 				LOGGER.error(sicve.getMessage());
 				System.out.println("returning from catch");
 				return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+			} catch (DuplicateEmailException | DataIntegrityViolationException e) {
+				LOGGER.error("Failed to create new user: {}", e.getMessage());
+
+				return new ResponseEntity<>(null, HttpStatus.CONFLICT);
 			}
 
 			if(null == _user) {
@@ -103,6 +141,22 @@ public class UserController {
 		}
 	}
 
+	/**
+	 * Exports all users from User entity in H2 db as NDJSON.
+	 * Calls streamAllUsers() from UserService class; each user is written
+	 * as its own line as soon as it comes off the database cursor.
+	 * @return StreamingResponseBody: One user JSON document per line.
+	 */
+	@GetMapping(value = "/users", produces = StreamingResponseWriter.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> exportAllUsers() {
+		LOGGER.trace("Exporting all users.");
+
+		LOGGER.info("Calling UserService.streamAllUsers method to export all users.");
+		StreamingResponseBody body = streamingResponseWriter.ndjson(userService::streamAllUsers);
+
+		return ResponseEntity.ok().contentType(StreamingResponseWriter.APPLICATION_NDJSON).body(body);
+	}
+
 	/**
 	 * Retrieves user from User entity in H2 db based on user's id.
 	 * Calls getUser() from UserService class to retrieve user from 
@@ -119,7 +173,7 @@ public class UserController {
 
 		try {
 			if (userData.isPresent()) {
-				return new ResponseEntity<>(userData.get(), HttpStatus.OK);
+				return ResponseEntity.ok().eTag(ETags.of(userData.get().getVersion())).body(userData.get());
 			} else {
 				return new ResponseEntity<>(HttpStatus.NOT_FOUND);
 			}
@@ -128,37 +182,48 @@ public class UserController {
 		}
 	}
 
+	/**
+	 * Retrieves users from User entity in H2 db for a list of user ids.
+	 * Calls getUsersByIds() from UserService class, which resolves them with
+	 * chunked IN queries instead of one lookup per id. Repeated ids are
+	 * looked up once.
+	 * @param ids: Comma separated user ids, at most OMSController.MAX_MULTI_GET_IDS.
+	 * @return MultiGetResponse<User>: Users in request order, and the ids not found.
+	 */
+	@GetMapping(value = "/users", params = "ids")
+	public ResponseEntity<MultiGetResponse<User>> getUsersByIds(@RequestParam("ids") List<Long> ids) {
+		LOGGER.trace("Retrieving users by id list.");
+
+		if (ids.isEmpty() || ids.size() > OMSController.MAX_MULTI_GET_IDS) {
+			LOGGER.error("Number of ids {} is outside 1..{}.", ids.size(), OMSController.MAX_MULTI_GET_IDS);
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+
+		try {
+			PayloadLog.info(LOGGER, "Calling userService.getUsersByIds method to retrieve {} users.", ids);
+			return new ResponseEntity<>(userService.getUsersByIds(new LinkedHashSet<Long>(ids)), HttpStatus.OK);
+		} catch (Exception e) {
+			return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+		}
+	}
+
 	/**
 	 * Updates user in User entity in H2 db.
-	 * Calls getUser() from UserService class to retrieve user from 
-	 * USER based on parameter "id".
 	 * Calls updateUserData() from UserService class to update user's 
-	 * data in USER.
+	 * data in USER based on parameter "id".
 	 * @param id: Id of user to be updated.
 	 * @param user: User's data to be updated to.
 	 * @return User: User's data updated.
 	 */
 	@PutMapping("/user/{id}")
 	public ResponseEntity<User> updateUser(@PathVariable("id") long id, @RequestBody User user) {
-
-		Optional<User> usersData = userService.getUser(id);
-		if(usersData.isPresent()) {
-			User _user = usersData.get();
-		}
 		LOGGER.trace("Updating user");
 
-		LOGGER.info("Calling userService.getUser method to retrieve user's data by id.");
-		Optional<User> userData = userService.getUser(id);
+		LOGGER.info("Calling userService.updateUserData method to update user's data.");
+		Optional<User> userData = userService.updateUserData(id, user);
 
 		if (userData.isPresent()) {
-			User _user = userData.get();
-			_user.setName(user.getName());
-			_user.setAddress(user.getAddress());
-			_user.setPhone(user.getPhone());
-			_user.setEmail(user.getEmail());
-
-			LOGGER.info("Calling userService.updateUserData method to update user's data.");
-			return new ResponseEntity<>(userService.updateUserData(_user), HttpStatus.OK);
+			return ResponseEntity.ok().eTag(ETags.of(userData.get().getVersion())).body(userData.get());
 		} else {
 			LOGGER.error("Failed to update user in repo: No such user found in repo.");
 
@@ -166,6 +231,54 @@ public class UserController {
 		}
 	}
 
+	/**
+	 * Applies a partial update to a user in User entity in H2 db.
+	 * Calls patchUser() from UserService class, which changes the user with
+	 * one conditional UPDATE guarded by its version, without reading it first.
+	 * The If-Match header must carry the user's current ETag, as returned by
+	 * GET /user/{id}; the new ETag is returned.
+	 * @param id: Id of user to be updated.
+	 * @param ifMatch: ETag of the version the patch was made against.
+	 * @param patch: Attributes to change; null ones are left as is.
+	 * @return Http status code; 204- Success, 400- Invalid patch, 404- No such
+	 * user, 409- Version conflict or email taken, 428- If-Match missing.
+	 */
+	@PatchMapping("/user/{id}")
+	public ResponseEntity<HttpStatus> patchUser(@PathVariable("id") long id,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@RequestBody UserPatch patch) {
+		LOGGER.trace("Patching user.");
+
+		Long version = ETags.toVersion(ifMatch);
+		if (version == null) {
+			LOGGER.error("Patch of user {} has no usable If-Match header: {}", id, ifMatch);
+			return new ResponseEntity<>(HttpStatus.PRECONDITION_REQUIRED);
+		}
+
+		ResponseHandler validateResp = userService.validateUserPatch(patch);
+		if (validateResp.getResponseCode() != HttpStatus.OK) {
+			LOGGER.error(validateResp.getResponseStatus());
+			return new ResponseEntity<>(validateResp.getResponseCode());
+		}
+
+		try {
+			LOGGER.info("Calling userService.patchUser method to patch user's data.");
+			Optional<Long> newVersion = userService.patchUser(id, version, patch);
+
+			if (newVersion.isPresent()) {
+				return ResponseEntity.noContent().eTag(ETags.of(newVersion.get())).build();
+			} else {
+				LOGGER.error("Failed to patch user in repo: No such user found in repo.");
+
+				return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+			}
+		} catch (VersionConflictException | DataIntegrityViolationException e) {
+			LOGGER.error("Failed to patch user: {}", e.getMessage());
+
+			return new ResponseEntity<>(HttpStatus.CONFLICT);
+		}
+	}
+
 	/**
 	 * Deletes user from User entity in H2 db.
 	 * Calls removeUser() from UserService class to delete user from USER.
@@ -192,7 +305,8 @@ public class UserController {
 	/**
 	 * Deletes all users from User entity in H2 db.
 	 * Calls removeUsers() from UserService class to delete all users from USER.
-	 * @return Http status code for deletion; 204- Success, 500- Failure.
+	 * @return Http status code for deletion; 204- Success, 500- Failure. The
+	 * X-Deleted-Count header carries the number of users deleted.
 	 */
 	@DeleteMapping("/users")
 	public ResponseEntity<HttpStatus> deleteAllUsers() {
@@ -200,10 +314,10 @@ public class UserController {
 
 		try {
 			LOGGER.info("Calling userService.removeUsers method to delete all users.");
-			userService.removeUsers();
-			LOGGER.info("All users successfully deleted from repo.");
+			long deleted = userService.removeUsers();
+			LOGGER.info("All {} users successfully deleted from repo.", deleted);
 
-			return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+			return ResponseEntity.noContent().header(OMSController.DELETED_COUNT_HEADER, Long.toString(deleted)).build();
 		} catch (Exception e) {
 			LOGGER.error("Failed to deleted all users from repo.");
 
@@ -0,0 +1,74 @@
+package rest.springboot.restfulWebService.datasource;
+
+import org.springframework.boot.jdbc.DataSourceBuilder;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * DataSourceNode class provides holder for the connection settings of one
+ * database besides spring.datasource, such as a read replica or a shard.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class DataSourceNode {
+
+	private String url;
+	private String username;
+	private String password;
+	private String driverClassName;
+	private int maximumPoolSize = 10;
+
+	/**
+	 * Builds a connection pool for this node. Pools are not beans, so they
+	 * must be closed by whoever builds them.
+	 * @param poolName: Name of the pool, as shown in logs and hikaricp metrics.
+	 * @return HikariDataSource: Pool of connections to this node.
+	 */
+	public HikariDataSource build(String poolName) {
+		HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class).url(url)
+				.username(username).password(password).driverClassName(driverClassName).build();
+		dataSource.setPoolName(poolName);
+		dataSource.setMaximumPoolSize(maximumPoolSize);
+		return dataSource;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public void setUrl(String url) {
+		this.url = url;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public void setUsername(String username) {
+		this.username = username;
+	}
+
+	public String getPassword() {
+		return password;
+	}
+
+	public void setPassword(String password) {
+		this.password = password;
+	}
+
+	public String getDriverClassName() {
+		return driverClassName;
+	}
+
+	public void setDriverClassName(String driverClassName) {
+		this.driverClassName = driverClassName;
+	}
+
+	public int getMaximumPoolSize() {
+		return maximumPoolSize;
+	}
+
+	public void setMaximumPoolSize(int maximumPoolSize) {
+		this.maximumPoolSize = maximumPoolSize;
+	}
+}
\ No newline at end of file
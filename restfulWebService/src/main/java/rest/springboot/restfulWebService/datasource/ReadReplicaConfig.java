@@ -0,0 +1,76 @@
+package rest.springboot.restfulWebService.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * ReadReplicaConfig replaces the auto-configured DataSource with one that
+ * routes the read-only transactions of service reads, as marked by
+ * ReplicaReadAspect, to the replicas in oms.read-replicas.nodes,
+ * and everything else to the primary in spring.datasource.*.
+ * Enabled with oms.read-replicas.enabled=true.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Configuration
+@ConditionalOnProperty(name = "oms.read-replicas.enabled", havingValue = "true")
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+public class ReadReplicaConfig {
+
+	/**
+	 * Routing target of dataSource; not a bean itself, as every DataSource
+	 * bean is picked up for schema initialization.
+	 */
+	private ReplicaRoutingDataSource routingDataSource;
+
+	/**
+	 * DataSource used by JPA. Connections are only fetched on the first
+	 * statement, by when the transaction is known to be read-only or not.
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(DataSourceProperties dataSourceProperties,
+			ReadReplicaProperties readReplicaProperties, MeterRegistry meterRegistry) {
+		HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class)
+				.build();
+		primary.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+
+		List<HikariDataSource> replicas = new ArrayList<HikariDataSource>();
+		for (DataSourceNode node : readReplicaProperties.getNodes()) {
+			HikariDataSource replica = node.build("replica-" + replicas.size());
+			replica.setReadOnly(true);
+			replicas.add(replica);
+		}
+
+		routingDataSource = new ReplicaRoutingDataSource(primary, replicas, readReplicaProperties, meterRegistry);
+		routingDataSource.afterPropertiesSet();
+		return new LazyConnectionDataSourceProxy(routingDataSource);
+	}
+
+	/** Checks the lag of every replica, taking lagging ones out of rotation. */
+	@Scheduled(fixedDelayString = "${oms.read-replicas.check-interval-ms:5000}")
+	public void checkReplicas() {
+		routingDataSource.checkReplicas();
+	}
+
+	@PreDestroy
+	void close() {
+		routingDataSource.close();
+	}
+}
\ No newline at end of file
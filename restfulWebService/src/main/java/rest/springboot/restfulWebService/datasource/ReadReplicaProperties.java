@@ -0,0 +1,73 @@
+package rest.springboot.restfulWebService.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * ReadReplicaProperties class provides holder for the oms.read-replicas.*
+ * settings: the replicas read-only transactions are routed to, and how
+ * their replication lag is checked.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@ConfigurationProperties("oms.read-replicas")
+public class ReadReplicaProperties {
+
+	/** Whether read-only transactions are routed to the replicas. */
+	private boolean enabled;
+
+	/** Replicas lagging further behind the primary are not read from. */
+	private Duration maxLag = Duration.ofSeconds(5);
+
+	/** Query run on each replica to read its lag in seconds; none means no lag. */
+	private String lagQuery;
+
+	/** Column of the lag query holding the lag in seconds; the first if none. */
+	private String lagColumn;
+
+	/** Replicas to read from. */
+	private List<DataSourceNode> nodes = new ArrayList<DataSourceNode>();
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getMaxLag() {
+		return maxLag;
+	}
+
+	public void setMaxLag(Duration maxLag) {
+		this.maxLag = maxLag;
+	}
+
+	public String getLagQuery() {
+		return lagQuery;
+	}
+
+	public void setLagQuery(String lagQuery) {
+		this.lagQuery = lagQuery;
+	}
+
+	public String getLagColumn() {
+		return lagColumn;
+	}
+
+	public void setLagColumn(String lagColumn) {
+		this.lagColumn = lagColumn;
+	}
+
+	public List<DataSourceNode> getNodes() {
+		return nodes;
+	}
+
+	public void setNodes(List<DataSourceNode> nodes) {
+		this.nodes = nodes;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package rest.springboot.restfulWebService.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * ReplicaReadAspect lets the service methods marked
+ * Transactional(readOnly = true) read from a replica, by marking the
+ * current thread for ReplicaRoutingDataSource for the length of the call.
+ * Other read-only transactions, such as those Spring Data repositories open
+ * on their own for the caches and checks of PriceTable, KnownIds,
+ * InventoryServiceImpl and IdempotencyService, stay on the primary: what
+ * they read is kept or acted upon, so it must not lag. As connections are
+ * only fetched on the first statement, the mark may be set inside the
+ * transaction, where the annotation can be bound.
+ * Enabled with oms.read-replicas.enabled=true.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "oms.read-replicas.enabled", havingValue = "true")
+public class ReplicaReadAspect {
+
+	@Around("execution(public * rest.springboot.restfulWebService.serviceImpl.*.*(..)) && @annotation(transactional)")
+	public Object allowReplica(ProceedingJoinPoint joinPoint, Transactional transactional) throws Throwable {
+		if (!transactional.readOnly()) {
+			return joinPoint.proceed();
+		}
+
+		boolean allowed = ReplicaRoutingDataSource.isReplicaAllowed();
+		ReplicaRoutingDataSource.setReplicaAllowed(true);
+		try {
+			return joinPoint.proceed();
+		} finally {
+			ReplicaRoutingDataSource.setReplicaAllowed(allowed);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,200 @@
+package rest.springboot.restfulWebService.datasource;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * ReplicaRoutingDataSource hands out connections to a replica when the
+ * current transaction is read-only and was opened by a service read, as
+ * marked by ReplicaReadAspect, and to the primary otherwise. Replicas
+ * are taken in turn, skipping any that failed its last check or lagged
+ * more than max-lag behind; with none left, reads fall back to the primary.
+ * Replicas enter rotation once they first pass a check.
+ * The transaction must be known to be read-only before a connection is
+ * asked for, so this is used behind a LazyConnectionDataSourceProxy.
+ * Reads on a replica may not yet see the latest writes on the primary.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+	/** Logger instance for ReplicaRoutingDataSource class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+	/** Lookup key of the primary. */
+	static final String PRIMARY = "primary";
+
+	/** Meter name of connections handed out, tagged by target. */
+	static final String CONNECTIONS_METRIC = "oms.datasource.connections";
+
+	/** Whether the current thread runs a service read that may go to a replica. */
+	private static final ThreadLocal<Boolean> REPLICA_ALLOWED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+	/** A replica, as of its last check. */
+	private static final class Replica {
+		final String name;
+		final HikariDataSource dataSource;
+		volatile boolean healthy;
+		volatile double lagSeconds;
+
+		Replica(String name, HikariDataSource dataSource) {
+			this.name = name;
+			this.dataSource = dataSource;
+		}
+	}
+
+	private final HikariDataSource primary;
+	private final List<Replica> replicas = new ArrayList<Replica>();
+	private final ReadReplicaProperties properties;
+	private final AtomicInteger next = new AtomicInteger();
+
+	private final Counter primaryConnections;
+	private final Counter fallbacks;
+	private final Map<String, Counter> replicaConnections = new HashMap<String, Counter>();
+
+	public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaDataSources,
+			ReadReplicaProperties properties, MeterRegistry meterRegistry) {
+		this.primary = primary;
+		this.properties = properties;
+
+		Map<Object, Object> targets = new HashMap<Object, Object>();
+		targets.put(PRIMARY, primary);
+		for (HikariDataSource dataSource : replicaDataSources) {
+			Replica replica = new Replica(dataSource.getPoolName(), dataSource);
+			replicas.add(replica);
+			targets.put(replica.name, dataSource);
+
+			replicaConnections.put(replica.name, Counter.builder(CONNECTIONS_METRIC)
+					.description("Connections handed out").tag("target", replica.name).register(meterRegistry));
+			Gauge.builder("oms.datasource.replica.lag", replica, r -> r.lagSeconds).baseUnit("seconds")
+					.description("Replication lag as of the last check").tag("replica", replica.name)
+					.register(meterRegistry);
+			Gauge.builder("oms.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+					.description("Whether reads are routed to the replica").tag("replica", replica.name)
+					.register(meterRegistry);
+		}
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+
+		primaryConnections = Counter.builder(CONNECTIONS_METRIC).description("Connections handed out")
+				.tag("target", PRIMARY).register(meterRegistry);
+		fallbacks = Counter.builder("oms.datasource.replica.fallbacks")
+				.description("Read-only transactions sent to the primary as no replica was usable")
+				.register(meterRegistry);
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!REPLICA_ALLOWED.get() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+				|| replicas.isEmpty()) {
+			primaryConnections.increment();
+			return PRIMARY;
+		}
+
+		int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+		for (int i = 0; i < replicas.size(); i++) {
+			Replica replica = replicas.get((start + i) % replicas.size());
+			if (replica.healthy) {
+				replicaConnections.get(replica.name).increment();
+				return replica.name;
+			}
+		}
+
+		fallbacks.increment();
+		primaryConnections.increment();
+		return PRIMARY;
+	}
+
+	static boolean isReplicaAllowed() {
+		return REPLICA_ALLOWED.get();
+	}
+
+	static void setReplicaAllowed(boolean allowed) {
+		if (allowed) {
+			REPLICA_ALLOWED.set(Boolean.TRUE);
+		} else {
+			REPLICA_ALLOWED.remove();
+		}
+	}
+
+	/**
+	 * Checks every replica, taking it out of rotation if it cannot be reached
+	 * or lags more than max-lag behind the primary, and back in once it is fine.
+	 */
+	public void checkReplicas() {
+		double maxLagSeconds = properties.getMaxLag().toMillis() / 1000.0;
+		for (Replica replica : replicas) {
+			boolean healthy;
+			try {
+				replica.lagSeconds = lagSeconds(replica.dataSource);
+				healthy = replica.lagSeconds <= maxLagSeconds;
+			} catch (SQLException | RuntimeException e) {
+				LOGGER.debug("Check of replica {} failed: {}", replica.name, e.getMessage());
+				replica.lagSeconds = Double.NaN;
+				healthy = false;
+			}
+
+			if (healthy != replica.healthy) {
+				if (healthy) {
+					LOGGER.info("Replica {} is in rotation, {} s behind.", replica.name, replica.lagSeconds);
+				} else {
+					LOGGER.error("Replica {} taken out of rotation, {} s behind.", replica.name, replica.lagSeconds);
+				}
+			}
+			replica.healthy = healthy;
+		}
+	}
+
+	/** Runs the lag query on a replica; a null lag, e.g. replication stopped, counts as unreachable. */
+	private double lagSeconds(DataSource dataSource) throws SQLException {
+		try (Connection connection = dataSource.getConnection()) {
+			if (properties.getLagQuery() == null) {
+				if (!connection.isValid(1)) {
+					throw new SQLException("Connection is not valid");
+				}
+				return 0;
+			}
+
+			try (Statement statement = connection.createStatement();
+					ResultSet resultSet = statement.executeQuery(properties.getLagQuery())) {
+				if (!resultSet.next()) {
+					throw new SQLException("Lag query returned no row");
+				}
+				double lag = (properties.getLagColumn() == null) ? resultSet.getDouble(1)
+						: resultSet.getDouble(properties.getLagColumn());
+				if (resultSet.wasNull()) {
+					throw new SQLException("Lag query returned null");
+				}
+				return lag;
+			}
+		}
+	}
+
+	/** Closes the connection pools of the primary and the replicas. */
+	@Override
+	public void close() {
+		replicas.forEach(replica -> replica.dataSource.close());
+		primary.close();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package rest.springboot.restfulWebService.exception;
+
+/**
+ * DuplicateEmailException is thrown when a new user is created with an
+ * email id that already belongs to another user.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class DuplicateEmailException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public DuplicateEmailException(String message) {
+		super(message);
+	}
+}
\ No newline at end of file
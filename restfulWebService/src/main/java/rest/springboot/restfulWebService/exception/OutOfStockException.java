@@ -0,0 +1,24 @@
+package rest.springboot.restfulWebService.exception;
+
+/**
+ * OutOfStockException is thrown when an order asks for more units of a
+ * product than are left in stock.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class OutOfStockException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Id of the product that could not be reserved. */
+	private final long productId;
+
+	public OutOfStockException(long productId, String message) {
+		super(message);
+		this.productId = productId;
+	}
+
+	public long getProductId() {
+		return productId;
+	}
+}
\ No newline at end of file
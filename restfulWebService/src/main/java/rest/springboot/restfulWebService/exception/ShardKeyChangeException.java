@@ -0,0 +1,17 @@
+package rest.springboot.restfulWebService.exception;
+
+/**
+ * ShardKeyChangeException is thrown when an update would give an order to
+ * a user whose orders are kept in another bucket, as the bucket is part of
+ * the order's id and cannot change.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class ShardKeyChangeException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ShardKeyChangeException(String message) {
+		super(message);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,24 @@
+package rest.springboot.restfulWebService.exception;
+
+/**
+ * UnknownProductException is thrown when an order refers to a product that
+ * does not exist, e.g. one deleted after the order was validated.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class UnknownProductException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Id of the product that does not exist. */
+	private final long productId;
+
+	public UnknownProductException(long productId) {
+		super("Product " + productId + " does not exist.");
+		this.productId = productId;
+	}
+
+	public long getProductId() {
+		return productId;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+package rest.springboot.restfulWebService.exception;
+
+/**
+ * VersionConflictException is thrown when a conditional update names a
+ * version of a row that is no longer current, because another update got
+ * there first.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class VersionConflictException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Version the update expected to find. */
+	private final long expectedVersion;
+
+	public VersionConflictException(long expectedVersion, String message) {
+		super(message);
+		this.expectedVersion = expectedVersion;
+	}
+
+	public long getExpectedVersion() {
+		return expectedVersion;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,151 @@
+package rest.springboot.restfulWebService.filter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * BloomFilter is a fixed size, thread safe set of strings that answers
+ * "definitely absent" or "maybe present". It never forgets a string, so it
+ * cannot remove one either; rebuild it to drop removed strings.
+ * Bit positions come from double hashing a 64-bit FNV-1a hash of the UTF-8
+ * bytes, finalized with the MurmurHash3 mixer.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class BloomFilter {
+
+	private final AtomicLongArray words;
+	private final long bits;
+	private final int hashes;
+	private final long expectedInsertions;
+
+	/** Number of bits set so far. */
+	private final AtomicLong setBits = new AtomicLong();
+
+	/** Number of put calls that set at least one bit. */
+	private final AtomicLong insertions = new AtomicLong();
+
+	private BloomFilter(long bits, int hashes, long expectedInsertions) {
+		this.words = new AtomicLongArray((int) ((bits + 63) >>> 6));
+		this.bits = bits;
+		this.hashes = hashes;
+		this.expectedInsertions = expectedInsertions;
+	}
+
+	/**
+	 * Sizes a filter to stay at the given false positive probability up to
+	 * the given number of insertions.
+	 * @param expectedInsertions: Number of strings the filter is sized for.
+	 * @param fpp: Target false positive probability, in (0, 1).
+	 * @return BloomFilter: Empty filter.
+	 */
+	public static BloomFilter create(long expectedInsertions, double fpp) {
+		if (expectedInsertions < 1 || !(fpp > 0 && fpp < 1)) {
+			throw new IllegalArgumentException("Invalid Bloom filter size " + expectedInsertions + " or fpp " + fpp);
+		}
+
+		long bits = Math.max(64, (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+		if (bits > (long) Integer.MAX_VALUE * 64) {
+			throw new IllegalArgumentException("Bloom filter of " + bits + " bits is too large");
+		}
+		int hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+		return new BloomFilter(bits, hashes, expectedInsertions);
+	}
+
+	/**
+	 * Adds value to the filter.
+	 * @return boolean: true if the filter changed, i.e. value was definitely absent before.
+	 */
+	public boolean put(String value) {
+		long hash = hash(value);
+		long h1 = hash;
+		long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+
+		boolean changed = false;
+		for (int i = 0; i < hashes; i++) {
+			long bit = Math.floorMod(h1 + i * h2, bits);
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+
+			long current;
+			while (((current = words.get(word)) & mask) == 0) {
+				if (words.compareAndSet(word, current, current | mask)) {
+					setBits.incrementAndGet();
+					changed = true;
+					break;
+				}
+			}
+		}
+		if (changed) {
+			insertions.incrementAndGet();
+		}
+		return changed;
+	}
+
+	/**
+	 * @return boolean: false if value was definitely never added; true if it may have been.
+	 */
+	public boolean mightContain(String value) {
+		long hash = hash(value);
+		long h1 = hash;
+		long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+
+		for (int i = 0; i < hashes; i++) {
+			long bit = Math.floorMod(h1 + i * h2, bits);
+			if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** @return long: Size of the filter in bits. */
+	public long bitSize() {
+		return bits;
+	}
+
+	/** @return int: Number of bits set per string. */
+	public int hashFunctions() {
+		return hashes;
+	}
+
+	/** @return long: Number of strings the filter was sized for. */
+	public long expectedInsertions() {
+		return expectedInsertions;
+	}
+
+	/** @return long: Approximate number of distinct strings added. */
+	public long approximateInsertions() {
+		return insertions.get();
+	}
+
+	/** @return double: Fraction of bits set. */
+	public double fillRatio() {
+		return (double) setBits.get() / bits;
+	}
+
+	/** @return double: Probability that an absent string is reported as maybe present, at the current fill. */
+	public double expectedFpp() {
+		return Math.pow(fillRatio(), hashes);
+	}
+
+	private static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= (b & 0xff);
+			hash *= 0x100000001b3L;
+		}
+		return mix(hash);
+	}
+
+	/** MurmurHash3 64-bit finalizer. */
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,219 @@
+package rest.springboot.restfulWebService.filter;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import rest.springboot.restfulWebService.repository.UserRepository;
+
+/**
+ * EmailFilter keeps a Bloom filter of the email ids in USER, so that
+ * creating a user with a new email id skips the lookup for an existing one.
+ * Only a "maybe" from the filter is confirmed against USER.
+ * The filter is built once the application is ready, added to as users are
+ * created or change email id, and rebuilt once enough email ids have been
+ * deleted or replaced, or it holds more than it was sized for. Until it is
+ * built every email id is a "maybe". The unique index on USER.EMAIL stays
+ * the authority: an email id the filter misses while being rebuilt still
+ * fails the insert.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Component
+public class EmailFilter {
+
+	/** Logger instance for EmailFilter class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(EmailFilter.class);
+
+	/** Meter name of email id checks, tagged by result. */
+	static final String CHECKS_METRIC = "oms.email.filter.checks";
+
+	/** Target false positive probability of the filter. */
+	@Value("${oms.email-filter.fpp:0.01}")
+	double fpp;
+
+	/** Smallest number of email ids the filter is sized for. */
+	@Value("${oms.email-filter.expected-insertions:1000000}")
+	long expectedInsertions;
+
+	/** Injecting object dependency of UserRepository. */
+	@Autowired
+	UserRepository userRepository;
+
+	/** Injecting the transaction manager used to stream email ids. */
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	/** Injecting the registry the filter's meters are registered in. */
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	/** Filter consulted by checks; null until first built. */
+	private volatile BloomFilter filter;
+
+	/** Filter being rebuilt, which additions also go to; null otherwise. */
+	private volatile BloomFilter building;
+
+	/** Email ids deleted or replaced since the filter was built. */
+	private final AtomicLong stale = new AtomicLong();
+
+	/** Set while a rebuild is queued or running in the background. */
+	private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+
+	private TransactionTemplate readTransaction;
+	private Counter negative;
+	private Counter maybe;
+	private Counter falsePositive;
+
+	@PostConstruct
+	void init() {
+		readTransaction = new TransactionTemplate(transactionManager);
+		readTransaction.setReadOnly(true);
+
+		negative = Counter.builder(CHECKS_METRIC).description("Email ids the filter showed to be new")
+				.tag("result", "negative").register(meterRegistry);
+		maybe = Counter.builder(CHECKS_METRIC).description("Email ids looked up in USER")
+				.tag("result", "maybe").register(meterRegistry);
+		falsePositive = Counter.builder(CHECKS_METRIC).description("Email ids looked up in USER and found to be new")
+				.tag("result", "false_positive").register(meterRegistry);
+
+		gauge("oms.email.filter.bits", "Size of the filter in bits", BloomFilter::bitSize);
+		gauge("oms.email.filter.hash.functions", "Bits set per email id", BloomFilter::hashFunctions);
+		gauge("oms.email.filter.insertions", "Approximate email ids in the filter", BloomFilter::approximateInsertions);
+		gauge("oms.email.filter.fill.ratio", "Fraction of bits set", BloomFilter::fillRatio);
+		gauge("oms.email.filter.fpp", "False positive probability at the current fill", BloomFilter::expectedFpp);
+	}
+
+	/** Builds the filter once USER has been initialized. */
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		rebuild();
+	}
+
+	/**
+	 * Tells whether email is already taken, asking the database only if the
+	 * filter cannot rule it out.
+	 * @param email: Email id to check.
+	 * @param database: Lookup of email in USER.
+	 * @return boolean: true if email belongs to a user.
+	 */
+	public boolean isRegistered(String email, Predicate<String> database) {
+		BloomFilter current = filter;
+		if (current != null && !current.mightContain(normalize(email))) {
+			negative.increment();
+			return false;
+		}
+
+		maybe.increment();
+		boolean registered = database.test(email);
+		if (!registered) {
+			falsePositive.increment();
+		}
+		return registered;
+	}
+
+	/** Records email as taken. */
+	public void add(String email) {
+		String key = normalize(email);
+		BloomFilter next = building;
+		if (next != null) {
+			next.put(key);
+		}
+
+		BloomFilter current = filter;
+		if (current != null) {
+			current.put(key);
+			if (current.approximateInsertions() > current.expectedInsertions()) {
+				scheduleRebuild("it is full");
+			}
+		}
+	}
+
+	/**
+	 * Records that count email ids are no longer taken. The filter cannot
+	 * forget them, so it is rebuilt once they make up a tenth of its entries.
+	 */
+	public void removed(long count) {
+		BloomFilter current = filter;
+		if (current != null && stale.addAndGet(count) * 10 > current.approximateInsertions()) {
+			scheduleRebuild("email ids were removed");
+		}
+	}
+
+	/**
+	 * Rebuilds the filter from the email ids in USER, sized for twice as many
+	 * users as there are now. Checks use the old filter meanwhile.
+	 */
+	public synchronized void rebuild() {
+		long started = System.nanoTime();
+		long users = userRepository.count();
+		BloomFilter next = BloomFilter.create(Math.max(expectedInsertions, users * 2), fpp);
+
+		building = next;
+		stale.set(0);
+		try {
+			readTransaction.executeWithoutResult(status -> {
+				try (Stream<String> emails = userRepository.streamAllEmails()) {
+					emails.forEach(email -> next.put(normalize(email)));
+				}
+			});
+			filter = next;
+		} finally {
+			building = null;
+		}
+
+		LOGGER.info("Email filter rebuilt from {} users: {} bits, {} hash functions, in {} ms.", users,
+				next.bitSize(), next.hashFunctions(), (System.nanoTime() - started) / 1_000_000);
+	}
+
+	/** Rebuilds the filter in the background, unless that is already due. */
+	private void scheduleRebuild(String reason) {
+		if (rebuildScheduled.compareAndSet(false, true)) {
+			LOGGER.info("Rebuilding email filter as {}.", reason);
+			CompletableFuture.runAsync(() -> {
+				try {
+					rebuild();
+				} catch (RuntimeException e) {
+					LOGGER.error("Failed to rebuild email filter: {}", e.getMessage());
+				} finally {
+					rebuildScheduled.set(false);
+				}
+			});
+		}
+	}
+
+	/** Registers a gauge over the current filter; NaN until it is built. */
+	private void gauge(String name, String description, ToDoubleFunction<BloomFilter> value) {
+		Gauge.builder(name, this, self -> {
+			BloomFilter current = self.filter;
+			return current == null ? Double.NaN : value.applyAsDouble(current);
+		}).description(description).register(meterRegistry);
+	}
+
+	/**
+	 * Email ids are compared ignoring case, as USER.EMAIL is under MySQL's
+	 * default collation; this can only turn a "no" into a "maybe".
+	 */
+	private static String normalize(String email) {
+		return email.trim().toLowerCase(Locale.ROOT);
+	}
+}
\ No newline at end of file
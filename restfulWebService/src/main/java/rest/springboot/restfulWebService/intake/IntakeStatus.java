@@ -0,0 +1,55 @@
+package rest.springboot.restfulWebService.intake;
+
+/**
+ * IntakeStatus class provides holder for where an order accepted by
+ * OrderIntake is on its way to ORDERS.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class IntakeStatus {
+
+	/** Stages of an accepted order. */
+	public enum State {
+		/** Queued, not yet written. */
+		PENDING,
+		/** Written to ORDERS. */
+		PERSISTED,
+		/** Could not be written; see reason. */
+		FAILED
+	}
+
+	private final long oid;
+	private final State state;
+	private final String reason;
+
+	private IntakeStatus(long oid, State state, String reason) {
+		this.oid = oid;
+		this.state = state;
+		this.reason = reason;
+	}
+
+	public static IntakeStatus pending(long oid) {
+		return new IntakeStatus(oid, State.PENDING, null);
+	}
+
+	public static IntakeStatus persisted(long oid) {
+		return new IntakeStatus(oid, State.PERSISTED, null);
+	}
+
+	public static IntakeStatus failed(long oid, String reason) {
+		return new IntakeStatus(oid, State.FAILED, reason);
+	}
+
+	public long getOid() {
+		return oid;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	/** Why the order could not be written; null unless FAILED. */
+	public String getReason() {
+		return reason;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,270 @@
+package rest.springboot.restfulWebService.intake;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import rest.springboot.restfulWebService.model.OrderLine;
+import rest.springboot.restfulWebService.model.Orders;
+import rest.springboot.restfulWebService.service.OrderService;
+
+/**
+ * OrderIntake accepts orders without waiting for them to be written. An
+ * accepted order is priced and given its id up front, from the orders_seq
+ * block, and put on a bounded queue; a single writer thread takes orders off
+ * the queue in batches of up to batch-size, waiting at most max-linger-ms
+ * for a batch to fill, and writes each batch in one transaction. If a batch
+ * fails, its orders are retried one per transaction, so one order out of
+ * stock fails only itself. When the queue is full, orders are refused
+ * rather than queued, for the caller to retry later.
+ * The outcome of each accepted order is kept for status-ttl.
+ * On shutdown, orders are refused and the writer drains the queue for at
+ * most shutdown-timeout; it is never interrupted, so a batch being written
+ * is not cut off mid-transaction. This happens when the context closes,
+ * before any of the beans the writer needs are destroyed.
+ * Enabled with oms.order-intake.enabled=true.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Component
+@ConditionalOnProperty(name = "oms.order-intake.enabled", havingValue = "true")
+public class OrderIntake {
+
+	/** Logger instance for OrderIntake class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(OrderIntake.class);
+
+	/** Meter name of orders offered to the intake, tagged by result. */
+	static final String INTAKE_METRIC = "oms.order.intake";
+
+	/** Meter name of orders written by the writer, tagged by result. */
+	static final String WRITES_METRIC = "oms.order.intake.writes";
+
+	/** Most orders waiting to be written. */
+	@Value("${oms.order-intake.queue-capacity:10000}")
+	int queueCapacity;
+
+	/** Most orders written per transaction. */
+	@Value("${oms.order-intake.batch-size:500}")
+	int batchSize;
+
+	/** Longest the writer waits for a batch to fill once it has an order. */
+	@Value("${oms.order-intake.max-linger-ms:20}")
+	long maxLingerMs;
+
+	/** How long the outcome of an accepted order can be polled. */
+	@Value("${oms.order-intake.status-ttl:1h}")
+	Duration statusTtl;
+
+	/** Most outcomes kept for polling. */
+	@Value("${oms.order-intake.status-max-entries:1000000}")
+	long statusMaxEntries;
+
+	/** Longest the writer is given on shutdown to write the queued orders. */
+	@Value("${oms.order-intake.shutdown-timeout:30s}")
+	Duration shutdownTimeout;
+
+	/** Injecting object dependency of OrderService. */
+	@Autowired
+	OrderService orderService;
+
+	/** Injecting the registry the intake's meters are registered in. */
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	private BlockingQueue<Orders> queue;
+	private Cache<Long, IntakeStatus> statuses;
+	private ExecutorService writer;
+	private volatile boolean running;
+
+	private Counter accepted;
+	private Counter refused;
+	private Counter persisted;
+	private Counter failed;
+	private DistributionSummary batchSizes;
+
+	@PostConstruct
+	void init() {
+		queue = new ArrayBlockingQueue<Orders>(queueCapacity);
+		statuses = Caffeine.newBuilder().maximumSize(statusMaxEntries).expireAfterWrite(statusTtl).build();
+
+		accepted = Counter.builder(INTAKE_METRIC).description("Orders queued for writing")
+				.tag("result", "accepted").register(meterRegistry);
+		refused = Counter.builder(INTAKE_METRIC).description("Orders refused as the queue was full")
+				.tag("result", "refused").register(meterRegistry);
+		persisted = Counter.builder(WRITES_METRIC).description("Queued orders written to ORDERS")
+				.tag("result", "persisted").register(meterRegistry);
+		failed = Counter.builder(WRITES_METRIC).description("Queued orders that could not be written")
+				.tag("result", "failed").register(meterRegistry);
+		batchSizes = DistributionSummary.builder("oms.order.intake.batch.size")
+				.description("Orders written per transaction").register(meterRegistry);
+		Gauge.builder("oms.order.intake.queue.size", queue, BlockingQueue::size)
+				.description("Orders waiting to be written").register(meterRegistry);
+
+		running = true;
+		writer = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "oms-order-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		writer.execute(this::writeLoop);
+	}
+
+	/**
+	 * Stops accepting orders and waits, for at most shutdownTimeout, for
+	 * the writer to write those still queued.
+	 */
+	@EventListener(ContextClosedEvent.class)
+	public void stop() throws InterruptedException {
+		running = false;
+		writer.shutdown();
+		if (!writer.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+			LOGGER.error("Order writer did not finish within {}; {} accepted orders were not written.",
+					shutdownTimeout, queue.size());
+		} else if (!queue.isEmpty()) {
+			LOGGER.error("{} accepted orders were not written before shutdown.", queue.size());
+		}
+	}
+
+	/**
+	 * Prices an order, gives it an id and queues it for writing.
+	 * @param order: Validated Orders JSON containing product id & user id.
+	 * @return Optional<Orders>: Order as it will be written, empty if the queue is full.
+	 */
+	public Optional<Orders> accept(Orders order) {
+		if (!running || queue.remainingCapacity() == 0) {
+			refused.increment();
+			return Optional.empty();
+		}
+
+		Orders _order = orderService.prepareOrder(order);
+		statuses.put(_order.getOid(), IntakeStatus.pending(_order.getOid()));
+		if (!queue.offer(_order)) {
+			statuses.invalidate(_order.getOid());
+			refused.increment();
+			return Optional.empty();
+		}
+
+		accepted.increment();
+		return Optional.of(_order);
+	}
+
+	/**
+	 * Tells where an order is. Orders no longer tracked are looked up through
+	 * OrderService, wherever it keeps them.
+	 * @param oid: Id of the order.
+	 * @return Optional<IntakeStatus>: Status of the order, empty if it is unknown.
+	 */
+	public Optional<IntakeStatus> status(long oid) {
+		IntakeStatus status = statuses.getIfPresent(oid);
+		if (status != null) {
+			return Optional.of(status);
+		}
+		return orderService.getOrdersByIds(Collections.singleton(oid)).getItems().isEmpty() ? Optional.empty()
+				: Optional.of(IntakeStatus.persisted(oid));
+	}
+
+	/** Takes batches off the queue and writes them until stopped and drained. */
+	private void writeLoop() {
+		List<Orders> batch = new ArrayList<Orders>(batchSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				Orders first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxLingerMs);
+				while (batch.size() < batchSize) {
+					queue.drainTo(batch, batchSize - batch.size());
+					long remaining = deadline - System.nanoTime();
+					if (batch.size() >= batchSize || remaining <= 0 || !running) {
+						break;
+					}
+					Orders next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+			} catch (InterruptedException ie) {
+				LOGGER.debug("Order writer interrupted; {} orders queued.", queue.size());
+			}
+
+			if (!batch.isEmpty()) {
+				write(batch);
+				batch.clear();
+			}
+		}
+		LOGGER.info("Order writer stopped.");
+	}
+
+	/** Writes a batch in one transaction, or each order in its own if that fails. */
+	private void write(List<Orders> batch) {
+		batchSizes.record(batch.size());
+		try {
+			orderService.addPreparedOrders(batch);
+			batch.forEach(order -> done(order, null));
+			return;
+		} catch (RuntimeException re) {
+			if (batch.size() == 1) {
+				done(batch.get(0), re);
+				return;
+			}
+			LOGGER.error("Failed to write batch of {} orders, retrying one by one: {}", batch.size(), re.getMessage());
+		}
+
+		for (Orders order : batch) {
+			try {
+				orderService.addPreparedOrders(Collections.singletonList(copy(order)));
+				done(order, null);
+			} catch (RuntimeException re) {
+				done(order, re);
+			}
+		}
+	}
+
+	/** Records the outcome of writing an order. */
+	private void done(Orders order, RuntimeException failure) {
+		if (failure == null) {
+			persisted.increment();
+			statuses.put(order.getOid(), IntakeStatus.persisted(order.getOid()));
+		} else {
+			LOGGER.error("Failed to write accepted order {}: {}", order.getOid(), failure.getMessage());
+			failed.increment();
+			statuses.put(order.getOid(), IntakeStatus.failed(order.getOid(), failure.getMessage()));
+		}
+	}
+
+	/** Same order as one left behind by a rolled back transaction, not yet seen by Hibernate. */
+	private static Orders copy(Orders order) {
+		Orders copy = new Orders(order.getUserId(), order.getOrderDate(), new ArrayList<OrderLine>(order.getLines()));
+		copy.setOid(order.getOid());
+		return copy;
+	}
+}
\ No newline at end of file
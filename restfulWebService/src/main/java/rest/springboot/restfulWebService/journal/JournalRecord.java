@@ -0,0 +1,214 @@
+package rest.springboot.restfulWebService.journal;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import rest.springboot.restfulWebService.model.OrderLine;
+import rest.springboot.restfulWebService.model.Orders;
+
+/**
+ * JournalRecord class provides holder for one change to ORDERS as kept in
+ * the order journal, and its binary form: the length of the body, its
+ * CRC-32, then the body. Creates and updates carry the whole order as
+ * committed, patches only what they changed, deletes only the order id.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class JournalRecord {
+
+	/** Kind of change. */
+	public enum Type {
+		CREATE, UPDATE, PATCH, DELETE
+	}
+
+	/** Bytes of length and CRC ahead of every body. */
+	static final int HEADER_BYTES = 8;
+
+	private static final byte HAS_USER_ID = 1;
+	private static final byte HAS_LINES = 2;
+
+	private final Type type;
+	private final long timestamp;
+	private final long oid;
+	private final long version;
+	private final Long userId;
+	private final Date orderDate;
+	private final List<OrderLine> lines;
+
+	private JournalRecord(Type type, long timestamp, long oid, long version, Long userId, Date orderDate,
+			List<OrderLine> lines) {
+		this.type = type;
+		this.timestamp = timestamp;
+		this.oid = oid;
+		this.version = version;
+		this.userId = userId;
+		this.orderDate = orderDate;
+		this.lines = lines;
+	}
+
+	/** Records of orders as created. */
+	public static List<JournalRecord> created(Collection<Orders> orders) {
+		List<JournalRecord> records = new ArrayList<JournalRecord>(orders.size());
+		for (Orders order : orders) {
+			records.add(of(Type.CREATE, order));
+		}
+		return records;
+	}
+
+	/** Record of an order as updated. */
+	public static JournalRecord updated(Orders order) {
+		return of(Type.UPDATE, order);
+	}
+
+	/**
+	 * Record of a partial update of an order.
+	 * @param oid: Id of the order.
+	 * @param version: Version of the order after the patch.
+	 * @param userId: New user id; null if unchanged.
+	 * @param orderDate: New order date.
+	 * @param lines: New line items; null if unchanged.
+	 */
+	public static JournalRecord patched(long oid, long version, Long userId, Date orderDate, List<OrderLine> lines) {
+		return new JournalRecord(Type.PATCH, System.currentTimeMillis(), oid, version, userId, orderDate, lines);
+	}
+
+	/** Records of orders as deleted. */
+	public static List<JournalRecord> deleted(Collection<Long> oids) {
+		List<JournalRecord> records = new ArrayList<JournalRecord>(oids.size());
+		for (Long oid : oids) {
+			records.add(new JournalRecord(Type.DELETE, System.currentTimeMillis(), oid, 0, null, null, null));
+		}
+		return records;
+	}
+
+	private static JournalRecord of(Type type, Orders order) {
+		return new JournalRecord(type, System.currentTimeMillis(), order.getOid(), order.getVersion(),
+				order.getUserId(), order.getOrderDate(), new ArrayList<OrderLine>(order.getLines()));
+	}
+
+	/**
+	 * Encodes the record with its header.
+	 * @return byte[]: Length, CRC-32 and body of the record.
+	 */
+	public byte[] encode() {
+		int lineCount = (lines == null) ? 0 : lines.size();
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 1 + 8 * 3 + 1 + 8 * 2 + 4 + 16 * lineCount);
+		buffer.position(HEADER_BYTES);
+		buffer.put((byte) type.ordinal()).putLong(timestamp).putLong(oid).putLong(version);
+		if (type != Type.DELETE) {
+			buffer.put((byte) ((userId == null ? 0 : HAS_USER_ID) | (lines == null ? 0 : HAS_LINES)));
+			if (userId != null) {
+				buffer.putLong(userId);
+			}
+			buffer.putLong(orderDate == null ? Long.MIN_VALUE : orderDate.getTime());
+			if (lines != null) {
+				buffer.putInt(lineCount);
+				for (OrderLine line : lines) {
+					buffer.putLong(line.getProductId()).putLong(line.getUnitPrice());
+				}
+			}
+		}
+
+		int length = buffer.position() - HEADER_BYTES;
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), HEADER_BYTES, length);
+		buffer.putInt(0, length).putInt(4, (int) crc.getValue());
+
+		byte[] record = new byte[HEADER_BYTES + length];
+		System.arraycopy(buffer.array(), 0, record, 0, record.length);
+		return record;
+	}
+
+	/**
+	 * Decodes the record at the buffer's position and moves past it. The
+	 * position is left as is at the end of the journal, which is either
+	 * unwritten space or a record torn by a crash.
+	 * @param buffer: Segment positioned at a record.
+	 * @return JournalRecord: Record read, null at the end of the journal.
+	 */
+	public static JournalRecord decode(ByteBuffer buffer) {
+		if (buffer.remaining() < HEADER_BYTES) {
+			return null;
+		}
+		int start = buffer.position();
+		int length = buffer.getInt(start);
+		if (length <= 0 || length > buffer.remaining() - HEADER_BYTES) {
+			return null;
+		}
+
+		byte[] body = new byte[length];
+		buffer.position(start + HEADER_BYTES);
+		buffer.get(body);
+		CRC32 crc = new CRC32();
+		crc.update(body, 0, length);
+		if ((int) crc.getValue() != buffer.getInt(start + 4)) {
+			buffer.position(start);
+			return null;
+		}
+
+		ByteBuffer in = ByteBuffer.wrap(body);
+		Type type = Type.values()[in.get()];
+		long timestamp = in.getLong();
+		long oid = in.getLong();
+		long version = in.getLong();
+		if (type == Type.DELETE) {
+			return new JournalRecord(type, timestamp, oid, version, null, null, null);
+		}
+
+		byte flags = in.get();
+		Long userId = ((flags & HAS_USER_ID) != 0) ? in.getLong() : null;
+		long orderDate = in.getLong();
+		List<OrderLine> lines = null;
+		if ((flags & HAS_LINES) != 0) {
+			int lineCount = in.getInt();
+			lines = new ArrayList<OrderLine>(lineCount);
+			for (int i = 0; i < lineCount; i++) {
+				lines.add(new OrderLine(in.getLong(), in.getLong()));
+			}
+		}
+		return new JournalRecord(type, timestamp, oid, version, userId,
+				orderDate == Long.MIN_VALUE ? null : new Date(orderDate), lines);
+	}
+
+	/** Order as created or updated; only for CREATE and UPDATE records. */
+	public Orders toOrder() {
+		Orders order = new Orders(userId, orderDate, lines);
+		order.setOid(oid);
+		order.setVersion(version);
+		return order;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	/** Time the change was journaled, in epoch milliseconds. */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public long getOid() {
+		return oid;
+	}
+
+	/** Version of the order after the change. */
+	public long getVersion() {
+		return version;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public Date getOrderDate() {
+		return orderDate;
+	}
+
+	public List<OrderLine> getLines() {
+		return lines;
+	}
+}
\ No newline at end of file
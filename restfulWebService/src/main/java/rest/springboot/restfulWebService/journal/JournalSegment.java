@@ -0,0 +1,152 @@
+package rest.springboot.restfulWebService.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * JournalSegment class provides one file of the order journal, mapped into
+ * memory whole. Records are appended back to back and never span segments;
+ * the unwritten rest of a segment reads as zeros, which marks its end.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+class JournalSegment implements Closeable {
+
+	static final String PREFIX = "orders-";
+	static final String SUFFIX = ".journal";
+
+	private final long index;
+	private final Path path;
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+
+	private JournalSegment(long index, Path path, FileChannel channel, MappedByteBuffer buffer) {
+		this.index = index;
+		this.path = path;
+		this.channel = channel;
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Opens a segment for appending, creating it if missing, at a size of at
+	 * least size bytes.
+	 * @param directory: Directory of the journal.
+	 * @param index: Number of the segment.
+	 * @param size: Bytes to map; a larger existing file is mapped whole.
+	 * @return JournalSegment: Segment positioned at its start.
+	 */
+	static JournalSegment open(Path directory, long index, int size) throws IOException {
+		Path path = path(directory, index);
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		int mapped = (int) Math.max(size, channel.size());
+		return new JournalSegment(index, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, mapped));
+	}
+
+	/** Path of the segment with the given number. */
+	static Path path(Path directory, long index) {
+		return directory.resolve(String.format("%s%020d%s", PREFIX, index, SUFFIX));
+	}
+
+	/** Number of the segment at path. */
+	static long indexOf(Path path) {
+		String name = path.getFileName().toString();
+		return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+	}
+
+	/** Segments of the journal in directory, oldest first. */
+	static List<Path> list(Path directory) throws IOException {
+		List<Path> segments = new ArrayList<Path>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+			stream.forEach(segments::add);
+		}
+		Collections.sort(segments);
+		return segments;
+	}
+
+	/**
+	 * Reads the records of a segment in order, until action returns false
+	 * or the segment ends.
+	 * @param path: Segment to read.
+	 * @param action: Called with every record; false stops reading.
+	 * @return boolean: Whether the segment was read to its end.
+	 */
+	static boolean read(Path path, Predicate<JournalRecord> action) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			JournalRecord record;
+			while ((record = JournalRecord.decode(buffer)) != null) {
+				if (!action.test(record)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Moves past the records already in the segment, so appends continue
+	 * after them. What a crash left of a torn record is zeroed, so it is not
+	 * read back as part of the records appended after it.
+	 * @return int: Position appends continue at.
+	 */
+	int recover() {
+		buffer.position(0);
+		while (JournalRecord.decode(buffer) != null) {
+		}
+
+		int end = buffer.position();
+		int dirty = buffer.limit();
+		while (dirty > end && buffer.get(dirty - 1) == 0) {
+			dirty--;
+		}
+		for (int i = end; i < dirty; i++) {
+			buffer.put(i, (byte) 0);
+		}
+		return end;
+	}
+
+	/** Whether a record of the given size fits in what is left of the segment. */
+	boolean fits(int bytes) {
+		return buffer.remaining() >= bytes;
+	}
+
+	/** Writes an encoded record at the segment's position. */
+	void append(byte[] record) {
+		buffer.put(record);
+	}
+
+	/** Writes the segment's changes through to disk. */
+	void force() {
+		buffer.force();
+	}
+
+	long getIndex() {
+		return index;
+	}
+
+	Path getPath() {
+		return path;
+	}
+
+	int getPosition() {
+		return buffer.position();
+	}
+
+	/** Closes the segment's file; the mapping stays valid until collected. */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+package rest.springboot.restfulWebService.journal;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * JournalSyncAspect holds calls to OrdersServiceImpl until the changes they
+ * committed are in the order journal on disk. It runs outside the call's
+ * transaction, so no database connection is held while waiting for the
+ * journal's next force.
+ * Enabled with oms.journal.enabled=true.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "oms.journal.enabled", havingValue = "true")
+public class JournalSyncAspect {
+
+	/** Injecting object dependency of OrderJournal. */
+	@Autowired
+	OrderJournal orderJournal;
+
+	@Around("execution(public * rest.springboot.restfulWebService.serviceImpl.OrdersServiceImpl.*(..))")
+	public Object awaitJournal(ProceedingJoinPoint joinPoint) throws Throwable {
+		try {
+			return joinPoint.proceed();
+		} finally {
+			orderJournal.awaitPending();
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,343 @@
+package rest.springboot.restfulWebService.journal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * OrderJournal appends every committed change to ORDERS to an append-only
+ * journal of memory-mapped segment files in oms.journal.dir, rolling to a
+ * new segment when one fills up. Appending only copies the record into the
+ * mapped segment; a single flusher thread forces the segment to disk and
+ * wakes everyone whose records that covered, so changes committed while a
+ * force is under way share the next one (group commit). With sync=true,
+ * the committing thread waits for its records to be on disk once its
+ * transaction is over and its connection released, for at most
+ * sync-timeout; see JournalSyncAspect. While forcing fails, the journal
+ * reports itself DOWN on /actuator/health and threads stop waiting; changes
+ * not confirmed on disk are counted as oms.journal.sync.failures.
+ * Changes are journaled after their transaction commits, so the journal
+ * holds no change that was rolled back, but may miss the last changes
+ * committed before a crash. OrderJournalReplay rebuilds ORDERS from it.
+ * Enabled with oms.journal.enabled=true.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Component
+@ConditionalOnProperty(name = "oms.journal.enabled", havingValue = "true")
+public class OrderJournal implements HealthIndicator {
+
+	/** Logger instance for OrderJournal class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(OrderJournal.class);
+
+	/** Directory holding the segments. */
+	@Value("${oms.journal.dir:journal}")
+	String dir;
+
+	/** Size segments are created at. */
+	@Value("${oms.journal.segment-size:64MB}")
+	DataSize segmentSize;
+
+	/** Whether committing threads wait for their changes to be on disk. */
+	@Value("${oms.journal.sync:true}")
+	boolean sync;
+
+	/** Longest a committing thread waits for its changes to be on disk. */
+	@Value("${oms.journal.sync-timeout:5s}")
+	Duration syncTimeout;
+
+	/** Injecting the registry the journal's meters are registered in. */
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	/** Guards segment and appended. */
+	private final Object appendLock = new Object();
+
+	/** Guards durable; notified when records are appended or forced. */
+	private final Object durableLock = new Object();
+
+	private Path directory;
+	private JournalSegment segment;
+
+	/** Number of records appended since startup. */
+	private volatile long appended;
+
+	/** Number of records forced to disk since startup. */
+	private long durable;
+
+	/** Ticket of the records the current thread journaled after its last commit. */
+	private final ThreadLocal<Long> pending = new ThreadLocal<Long>();
+
+	private Thread flusher;
+	private volatile boolean running;
+
+	/** When forcing the journal to disk started failing; 0 while it succeeds. */
+	private volatile long failingSince;
+
+	private Counter records;
+	private Counter failures;
+	private Counter forceFailures;
+	private Counter syncFailures;
+	private Timer forces;
+	private DistributionSummary groupSizes;
+
+	@PostConstruct
+	void init() throws IOException {
+		directory = Paths.get(dir);
+		Files.createDirectories(directory);
+
+		List<Path> segments = JournalSegment.list(directory);
+		long index = segments.isEmpty() ? 1 : JournalSegment.indexOf(segments.get(segments.size() - 1));
+		segment = JournalSegment.open(directory, index, segmentBytes(0));
+		int position = segment.recover();
+		LOGGER.info("Appending to order journal {} at byte {}.", segment.getPath().toAbsolutePath(), position);
+
+		records = Counter.builder("oms.journal.records").description("Order changes appended to the journal")
+				.register(meterRegistry);
+		failures = Counter.builder("oms.journal.failures")
+				.description("Committed order changes that could not be journaled").register(meterRegistry);
+		forceFailures = Counter.builder("oms.journal.force.failures")
+				.description("Attempts to force the journal to disk that failed").register(meterRegistry);
+		syncFailures = Counter.builder("oms.journal.sync.failures")
+				.description("Requests whose order changes were not confirmed on disk before they returned")
+				.register(meterRegistry);
+		forces = Timer.builder("oms.journal.force").description("Time taken to force the journal to disk")
+				.register(meterRegistry);
+		groupSizes = DistributionSummary.builder("oms.journal.group.size")
+				.description("Order changes made durable per force").register(meterRegistry);
+
+		running = true;
+		flusher = new Thread(this::flushLoop, "oms-journal-flusher");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	/** Stops the flusher and forces what is left to disk. */
+	@PreDestroy
+	void stop() throws IOException, InterruptedException {
+		running = false;
+		flusher.interrupt();
+		flusher.join(TimeUnit.SECONDS.toMillis(5));
+
+		synchronized (appendLock) {
+			segment.force();
+			segment.close();
+		}
+		synchronized (durableLock) {
+			durable = appended;
+			durableLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Journals the records built by records once the current transaction
+	 * commits, or at once outside a transaction. Records are built after the
+	 * commit, so they carry versions as committed; concurrent changes to one
+	 * order may be appended out of commit order, which OrderJournalReplay
+	 * sorts out by those versions. A failure to journal is logged and
+	 * counted, as the change itself is committed already.
+	 * With sync, awaitPending waits for them to be on disk.
+	 * @param records: Builds the records of the transaction's changes.
+	 */
+	public void appendAfterCommit(Supplier<List<JournalRecord>> records) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					appendQuietly(records.get());
+				}
+			});
+		} else {
+			appendQuietly(records.get());
+		}
+	}
+
+	/**
+	 * With sync, waits until the records the current thread journaled are
+	 * on disk, for at most syncTimeout and not at all while forcing fails;
+	 * called once the thread's transaction is over.
+	 */
+	public void awaitPending() {
+		Long ticket = pending.get();
+		if (ticket == null) {
+			return;
+		}
+
+		pending.remove();
+		if (sync) {
+			try {
+				if (failingSince != 0 || !awaitDurable(ticket, syncTimeout)) {
+					syncFailures.increment();
+					LOGGER.debug("Order changes were not confirmed on disk within {}.", syncTimeout);
+				}
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+				LOGGER.error("Interrupted while waiting for order changes to be journaled.");
+			}
+		}
+	}
+
+	private void appendQuietly(List<JournalRecord> _records) {
+		try {
+			pending.set(append(_records));
+		} catch (IOException | RuntimeException e) {
+			failures.increment(_records.size());
+			LOGGER.error("Failed to journal {} committed order changes.", _records.size(), e);
+		}
+	}
+
+	/**
+	 * Appends records to the current segment, rolling to a new segment when
+	 * one does not fit. Records are encoded before the lock is taken.
+	 * @param _records: Records to append, in order.
+	 * @return long: Ticket for awaitDurable covering these records.
+	 */
+	public long append(List<JournalRecord> _records) throws IOException {
+		List<byte[]> encoded = new ArrayList<byte[]>(_records.size());
+		for (JournalRecord record : _records) {
+			encoded.add(record.encode());
+		}
+
+		long ticket;
+		synchronized (appendLock) {
+			if (!running) {
+				throw new IllegalStateException("Order journal is closed.");
+			}
+			for (byte[] record : encoded) {
+				if (!segment.fits(record.length)) {
+					roll(record.length);
+				}
+				segment.append(record);
+			}
+			ticket = appended + encoded.size();
+			appended = ticket;
+		}
+		records.increment(encoded.size());
+
+		synchronized (durableLock) {
+			durableLock.notifyAll();
+		}
+		return ticket;
+	}
+
+	/**
+	 * Waits until the records up to ticket are on disk, giving up after
+	 * timeout or as soon as forcing fails.
+	 * @param ticket: Ticket returned by append.
+	 * @param timeout: Longest to wait.
+	 * @return boolean: Whether the records are on disk.
+	 */
+	public boolean awaitDurable(long ticket, Duration timeout) throws InterruptedException {
+		long deadline = System.nanoTime() + timeout.toNanos();
+		synchronized (durableLock) {
+			while (durable < ticket) {
+				long left = deadline - System.nanoTime();
+				if (left <= 0 || failingSince != 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(durableLock, left);
+			}
+			return true;
+		}
+	}
+
+	/** DOWN while forcing the journal to disk fails, with the time it started failing. */
+	@Override
+	public Health health() {
+		long since = failingSince;
+		return (since == 0) ? Health.up().build() : Health.down().withDetail("failingSince", new Date(since)).build();
+	}
+
+	/** Forces the full segment to disk and continues in a new one. */
+	private void roll(int recordBytes) throws IOException {
+		segment.force();
+		segment.close();
+		segment = JournalSegment.open(directory, segment.getIndex() + 1, segmentBytes(recordBytes));
+		LOGGER.info("Rolled order journal over to {}.", segment.getPath().getFileName());
+	}
+
+	/** Size of a new segment; larger than segmentSize only for a larger record. */
+	private int segmentBytes(int recordBytes) {
+		return (int) Math.max(segmentSize.toBytes(), recordBytes);
+	}
+
+	/**
+	 * Forces the current segment whenever records were appended since the
+	 * last force. Segments rolled over were forced when rolled, so forcing
+	 * the current one covers every record appended before it was read.
+	 */
+	private void flushLoop() {
+		while (running) {
+			try {
+				synchronized (durableLock) {
+					while (appended == durable) {
+						durableLock.wait();
+					}
+				}
+
+				long target;
+				JournalSegment current;
+				synchronized (appendLock) {
+					target = appended;
+					current = segment;
+				}
+
+				long start = System.nanoTime();
+				current.force();
+				forces.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+				if (failingSince != 0) {
+					LOGGER.info("Order journal forced to disk again after failing since {}.", new Date(failingSince));
+					failingSince = 0;
+				}
+				synchronized (durableLock) {
+					groupSizes.record(target - durable);
+					durable = target;
+					durableLock.notifyAll();
+				}
+			} catch (InterruptedException ie) {
+				if (running) {
+					LOGGER.error("Order journal flusher interrupted while running.");
+				}
+			} catch (RuntimeException re) {
+				forceFailures.increment();
+				if (failingSince == 0) {
+					failingSince = System.currentTimeMillis();
+					synchronized (durableLock) {
+						durableLock.notifyAll();
+					}
+				}
+				LOGGER.error("Failed to force order journal to disk; retrying.", re);
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+			}
+		}
+	}
+}
\ No newline at end of file
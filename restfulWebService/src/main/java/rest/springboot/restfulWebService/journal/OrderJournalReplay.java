@@ -0,0 +1,219 @@
+package rest.springboot.restfulWebService.journal;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import rest.springboot.restfulWebService.datasource.DataSourceNode;
+import rest.springboot.restfulWebService.model.Orders;
+import rest.springboot.restfulWebService.sharding.OrderShard;
+
+/**
+ * OrderJournalReplay rebuilds ORDERS from the order journal, applying its
+ * records in order to the database given, optionally only up to a point in
+ * time. Records are applied through OrderShard, which reads and writes the
+ * ORDERS tables of any database and creates them where missing; creates and
+ * updates overwrite the order, so replaying over a restored backup or a
+ * second time is harmless.
+ * <p>
+ * Records are journaled after their transaction commits, so changes to one
+ * order committed close together may be journaled out of order. Replay
+ * goes by the version in each record instead: records older than the
+ * version already applied to their order are skipped, as is anything after
+ * a delete, since order ids are never reused. A patch that does not follow
+ * the order's current version is held back until the change before it has
+ * been applied. Run from the packaged jar with
+ *
+ * java -cp restfulWebService.jar -Dloader.main=rest.springboot.restfulWebService.journal.OrderJournalReplay
+ *   org.springframework.boot.loader.PropertiesLauncher journal-dir jdbc-url [username [password]] [--until=instant]
+ *
+ * where instant is ISO-8601, e.g. 2020-07-01T12:00:00Z. orders_seq must then
+ * be moved past the highest order id reported before the service takes
+ * orders on that database.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public final class OrderJournalReplay {
+
+	/** Logger instance for OrderJournalReplay class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(OrderJournalReplay.class);
+
+	/** Records applied per transaction. */
+	static final int BATCH_SIZE = 1000;
+
+	private static final String UNTIL = "--until=";
+
+	/** Version recorded for deleted orders; newer than any change. */
+	private static final long DELETED = Long.MAX_VALUE;
+
+	private final OrderShard target;
+	private final long until;
+	private final List<JournalRecord> batch = new ArrayList<JournalRecord>(BATCH_SIZE);
+	/** Version last applied to each order journaled. */
+	private final Map<Long, Long> versions = new HashMap<Long, Long>();
+	/** Patches held back until the version before theirs is applied, by order id. */
+	private final Map<Long, List<JournalRecord>> heldBack = new HashMap<Long, List<JournalRecord>>();
+
+	private long applied;
+	private long skipped;
+	private long maxOid;
+
+	OrderJournalReplay(OrderShard target, long until) {
+		this.target = target;
+		this.until = until;
+	}
+
+	public static void main(String[] args) throws IOException {
+		List<String> positional = new ArrayList<String>();
+		long until = Long.MAX_VALUE;
+		for (String arg : args) {
+			if (arg.startsWith(UNTIL)) {
+				until = Instant.parse(arg.substring(UNTIL.length())).toEpochMilli();
+			} else {
+				positional.add(arg);
+			}
+		}
+		if (positional.size() < 2) {
+			System.err.println("Usage: OrderJournalReplay journal-dir jdbc-url [username [password]]"
+					+ " [--until=instant]");
+			System.exit(2);
+		}
+
+		DataSourceNode node = new DataSourceNode();
+		node.setUrl(positional.get(1));
+		node.setUsername(positional.size() > 2 ? positional.get(2) : null);
+		node.setPassword(positional.size() > 3 ? positional.get(3) : null);
+		node.setMaximumPoolSize(1);
+
+		try (OrderShard target = new OrderShard(0, node.build("replay"))) {
+			target.createSchema();
+			new OrderJournalReplay(target, until).replay(Paths.get(positional.get(0)));
+		}
+	}
+
+	/**
+	 * Applies the journal's records in order, BATCH_SIZE per transaction,
+	 * stopping at the first record journaled after until.
+	 * @param directory: Directory of the journal.
+	 */
+	void replay(Path directory) throws IOException {
+		List<Path> segments = JournalSegment.list(directory);
+		LOGGER.info("Replaying {} order journal segments from {}.", segments.size(), directory);
+
+		for (Path segment : segments) {
+			boolean more = JournalSegment.read(segment, record -> {
+				if (record.getTimestamp() > until) {
+					return false;
+				}
+				batch.add(record);
+				if (batch.size() == BATCH_SIZE) {
+					flush();
+				}
+				return true;
+			});
+			if (!more) {
+				break;
+			}
+		}
+		flush();
+		heldBack.forEach((oid, patches) -> patches.forEach(record -> {
+			LOGGER.warn("Skipped patch of order {} to version {}: order missing or at another version.", oid,
+					record.getVersion());
+			skipped++;
+		}));
+
+		LOGGER.info("Replayed {} order changes, skipped {}; highest order id is {}.", applied, skipped, maxOid);
+	}
+
+	private void flush() {
+		target.inTransaction(() -> {
+			batch.forEach(this::apply);
+			return null;
+		});
+		batch.clear();
+	}
+
+	/**
+	 * Applies a record unless its order is at its version or later already,
+	 * then any patches held back that follow it. Deletes carry no version and
+	 * always apply.
+	 */
+	private void apply(JournalRecord record) {
+		long oid = record.getOid();
+		maxOid = Math.max(maxOid, oid);
+
+		Long version = versions.get(oid);
+		if (version != null && record.getType() != JournalRecord.Type.DELETE && record.getVersion() <= version) {
+			LOGGER.debug("Skipped {} of order {} to version {}: order is at version {}.", record.getType(), oid,
+					record.getVersion(), version);
+			skipped++;
+			return;
+		}
+
+		switch (record.getType()) {
+		case CREATE:
+		case UPDATE:
+			target.delete(Collections.singletonList(oid));
+			target.insert(Collections.singletonList(record.toOrder()));
+			versions.put(oid, record.getVersion());
+			break;
+		case PATCH:
+			Long total = (record.getLines() == null) ? null : Orders.total(record.getLines());
+			if (target.patch(oid, record.getVersion() - 1, record.getUserId(), total, record.getOrderDate()) == 0) {
+				LOGGER.debug("Holding back patch of order {} to version {} until version {} is applied.", oid,
+						record.getVersion(), record.getVersion() - 1);
+				heldBack.computeIfAbsent(oid, key -> new ArrayList<JournalRecord>()).add(record);
+				return;
+			}
+			if (record.getLines() != null) {
+				target.replaceLines(oid, record.getLines());
+			}
+			versions.put(oid, record.getVersion());
+			break;
+		case DELETE:
+			target.delete(Collections.singletonList(oid));
+			versions.put(oid, DELETED);
+			break;
+		}
+		applied++;
+
+		applyHeldBack(oid);
+	}
+
+	/** Applies the patch held back for the order's current version, if any; skips those it outdated. */
+	private void applyHeldBack(long oid) {
+		List<JournalRecord> patches = heldBack.get(oid);
+		if (patches == null) {
+			return;
+		}
+
+		long version = versions.get(oid);
+		JournalRecord next = null;
+		for (Iterator<JournalRecord> it = patches.iterator(); it.hasNext();) {
+			JournalRecord patch = it.next();
+			if (patch.getVersion() <= version) {
+				it.remove();
+				skipped++;
+			} else if (next == null && patch.getVersion() == version + 1) {
+				it.remove();
+				next = patch;
+			}
+		}
+		if (patches.isEmpty()) {
+			heldBack.remove(oid);
+		}
+		if (next != null) {
+			apply(next);
+		}
+	}
+}
\ No newline at end of file
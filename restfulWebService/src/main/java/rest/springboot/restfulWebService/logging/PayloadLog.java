@@ -0,0 +1,80 @@
+package rest.springboot.restfulWebService.logging;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+
+/**
+ * PayloadLog class logs result sets and request bodies by size, and single
+ * entities by id, instead of by content. Nothing is formatted or allocated
+ * unless the level logged at is enabled for the given logger. With TRACE
+ * enabled, the full content of one call in every oms.log.payload-sample-rate
+ * (system property, default 100) is logged too.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public final class PayloadLog {
+
+	/** One in this many payloads is logged in full at TRACE. */
+	static final int SAMPLE_RATE = Math.max(1, Integer.getInteger("oms.log.payload-sample-rate", 100));
+
+	/** Counts payloads seen while TRACE is enabled, to pick the sampled ones. */
+	private static final AtomicLong SEEN = new AtomicLong();
+
+	private PayloadLog() {
+	}
+
+	/**
+	 * Logs the size of payload at DEBUG, and a sample of its content at TRACE.
+	 * @param logger: Logger of the calling class.
+	 * @param message: Message with a single {} placeholder for the size.
+	 * @param payload: Rows that were read or written.
+	 */
+	public static void debug(Logger logger, String message, Collection<?> payload) {
+		if (!logger.isDebugEnabled()) {
+			return;
+		}
+
+		logger.debug(message, payload.size());
+		sample(logger, payload);
+	}
+
+	/**
+	 * Logs the size of payload at INFO, and a sample of its content at TRACE.
+	 * @param logger: Logger of the calling class.
+	 * @param message: Message with a single {} placeholder for the size.
+	 * @param payload: Rows of a request body or result.
+	 */
+	public static void info(Logger logger, String message, Collection<?> payload) {
+		if (!logger.isInfoEnabled()) {
+			return;
+		}
+
+		logger.info(message, payload.size());
+		sample(logger, payload);
+	}
+
+	/**
+	 * Logs the id of a single entity at DEBUG, and a sample of its content at TRACE.
+	 * @param logger: Logger of the calling class.
+	 * @param message: Message with a single {} placeholder for the id.
+	 * @param id: Id of the entity.
+	 * @param entity: Entity that was read or written.
+	 */
+	public static void debug(Logger logger, String message, long id, Object entity) {
+		if (!logger.isDebugEnabled()) {
+			return;
+		}
+
+		logger.debug(message, id);
+		sample(logger, entity);
+	}
+
+	/** Logs the full content of one payload in every SAMPLE_RATE at TRACE. */
+	private static void sample(Logger logger, Object payload) {
+		if (logger.isTraceEnabled() && SEEN.getAndIncrement() % SAMPLE_RATE == 0) {
+			logger.trace("Sampled payload: {}", payload);
+		}
+	}
+}
\ No newline at end of file
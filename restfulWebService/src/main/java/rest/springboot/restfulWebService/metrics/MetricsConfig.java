@@ -0,0 +1,39 @@
+package rest.springboot.restfulWebService.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * MetricsConfig wires per-request SQL statement and entity load counting
+ * into Hibernate and Spring MVC.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+	/** Injecting the application's meter registry. */
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Bean
+	public HibernatePropertiesCustomizer sqlStatementCounterCustomizer() {
+		SqlStatementCounter counter = new SqlStatementCounter();
+		return properties -> {
+			properties.put(AvailableSettings.STATEMENT_INSPECTOR, counter);
+			properties.put(AvailableSettings.INTERCEPTOR, counter);
+		};
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new RequestSqlMetricsInterceptor(meterRegistry));
+	}
+}
\ No newline at end of file
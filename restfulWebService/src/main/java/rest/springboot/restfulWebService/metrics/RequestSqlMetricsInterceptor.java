@@ -0,0 +1,68 @@
+package rest.springboot.restfulWebService.metrics;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * RequestSqlMetricsInterceptor records, per endpoint, how many SQL statements
+ * and entity loads each request cost, as counted by SqlStatementCounter.
+ * Rows written by a streaming response after the handler returns are on
+ * another thread and are not counted.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class RequestSqlMetricsInterceptor implements AsyncHandlerInterceptor {
+
+	/** Meter name of SQL statements per request. */
+	static final String STATEMENTS_METRIC = "oms.request.sql.statements";
+
+	/** Meter name of entity loads per request. */
+	static final String ENTITY_LOADS_METRIC = "oms.request.entity.loads";
+
+	private final MeterRegistry meterRegistry;
+
+	public RequestSqlMetricsInterceptor(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		SqlStatementCounter.reset();
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		String uri = (pattern == null) ? "UNKNOWN" : pattern.toString();
+
+		record(STATEMENTS_METRIC, "SQL statements prepared", request.getMethod(), uri,
+				SqlStatementCounter.statements());
+		record(ENTITY_LOADS_METRIC, "Entities loaded", request.getMethod(), uri,
+				SqlStatementCounter.entityLoads());
+		SqlStatementCounter.reset();
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) {
+		SqlStatementCounter.reset();
+	}
+
+	private void record(String name, String description, String method, String uri, long amount) {
+		DistributionSummary.builder(name)
+				.description(description + " per request")
+				.tag("method", method)
+				.tag("uri", uri)
+				.publishPercentileHistogram()
+				.register(meterRegistry)
+				.record(amount);
+	}
+}
\ No newline at end of file
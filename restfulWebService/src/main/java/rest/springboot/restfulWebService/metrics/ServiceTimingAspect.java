@@ -0,0 +1,49 @@
+package rest.springboot.restfulWebService.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * ServiceTimingAspect times every public method of the *Service beans into
+ * the oms.service.calls latency histogram, tagged by class, method and the
+ * simple name of the exception thrown, if any.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Aspect
+@Component
+public class ServiceTimingAspect {
+
+	/** Meter name of service method latency. */
+	static final String METRIC = "oms.service.calls";
+
+	/** Injecting the application's meter registry. */
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Around("execution(public * rest.springboot.restfulWebService.service.*Service.*(..))")
+	public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		String exception = "none";
+		try {
+			return joinPoint.proceed();
+		} catch (Throwable t) {
+			exception = t.getClass().getSimpleName();
+			throw t;
+		} finally {
+			sample.stop(Timer.builder(METRIC)
+					.description("Latency of service method calls")
+					.tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+					.tag("method", joinPoint.getSignature().getName())
+					.tag("exception", exception)
+					.publishPercentileHistogram()
+					.register(meterRegistry));
+		}
+	}
+}
\ No newline at end of file
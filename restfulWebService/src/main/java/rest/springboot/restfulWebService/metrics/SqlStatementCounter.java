@@ -0,0 +1,58 @@
+package rest.springboot.restfulWebService.metrics;
+
+import java.io.Serializable;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+/**
+ * SqlStatementCounter counts the SQL statements Hibernate prepares and the
+ * entities it loads on the current thread, so they can be attributed to the
+ * request being served. It is registered as the session factory's statement
+ * inspector and interceptor, and never alters a statement.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class SqlStatementCounter extends EmptyInterceptor implements StatementInspector {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Index of the statement count in the per-thread counters. */
+	private static final int STATEMENTS = 0;
+
+	/** Index of the entity load count in the per-thread counters. */
+	private static final int ENTITY_LOADS = 1;
+
+	/** Counters of the current thread, since the last reset. */
+	private static final ThreadLocal<long[]> COUNTS = ThreadLocal.withInitial(() -> new long[2]);
+
+	@Override
+	public String inspect(String sql) {
+		COUNTS.get()[STATEMENTS]++;
+		return sql;
+	}
+
+	@Override
+	public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+		COUNTS.get()[ENTITY_LOADS]++;
+		return false;
+	}
+
+	/** Zeroes the counters of the current thread. */
+	public static void reset() {
+		long[] counts = COUNTS.get();
+		counts[STATEMENTS] = 0;
+		counts[ENTITY_LOADS] = 0;
+	}
+
+	/** @return long: Statements prepared on the current thread since the last reset. */
+	public static long statements() {
+		return COUNTS.get()[STATEMENTS];
+	}
+
+	/** @return long: Entities loaded on the current thread since the last reset. */
+	public static long entityLoads() {
+		return COUNTS.get()[ENTITY_LOADS];
+	}
+}
\ No newline at end of file
@@ -6,9 +6,6 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.Table;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 /**
  * Category class provides holder for CATEGORY entity attributes.
  * @author adash
@@ -17,9 +14,6 @@ import org.slf4j.LoggerFactory;
 @Entity
 @Table
 public class Category {
-	/** Logger instance for Category class. */
-	private static final Logger LOGGER = LoggerFactory.getLogger(Category.class);
-	
 	/** Primary key for CATEGORY entity. */
 	@Id
 	@GeneratedValue
@@ -45,8 +39,6 @@ public class Category {
 	 * @return name: Name of product category.
 	 */
 	public String getName() {
-		LOGGER.trace("Retrieving product category's name from CATEGORY data.");
-		
 		return name;
 	}
 
@@ -54,8 +46,6 @@ public class Category {
 	 * Updates name of product category.
 	 */
 	public void setName(String name) {
-		LOGGER.trace("Setting product category's name in CATEGORY data.");
-		
 		this.name = name;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package rest.springboot.restfulWebService.model;
+
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * DailyOrderStats class provides holder for DAILY_ORDER_STATS entity
+ * attributes: the number of orders, line items and revenue of a calendar day,
+ * kept up to date by OrderStats so they need not be summed up from ORDERS.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Entity
+@Table(name = "daily_order_stats")
+public class DailyOrderStats {
+	/** Primary key: calendar day the orders were placed on, in the server's time zone. */
+	@Id
+	@Column(name = "order_day")
+	private LocalDate day;
+
+	/** Number of orders placed that day. */
+	@Column
+	private long orders;
+
+	/** Number of line items of the orders placed that day. */
+	@Column
+	private long items;
+
+	/** Sum of the totals of the orders placed that day. */
+	@Column
+	private long revenue;
+
+	/** Default constructor for DAILY_ORDER_STATS entity. */
+	public DailyOrderStats() {
+		super();
+	}
+
+	/** Parameterized constructor for DAILY_ORDER_STATS entity. */
+	public DailyOrderStats(LocalDate day, long orders, long items, long revenue) {
+		super();
+		this.day = day;
+		this.orders = orders;
+		this.items = items;
+		this.revenue = revenue;
+	}
+
+	public LocalDate getDay() {
+		return day;
+	}
+
+	public long getOrders() {
+		return orders;
+	}
+
+	public long getItems() {
+		return items;
+	}
+
+	public long getRevenue() {
+		return revenue;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+package rest.springboot.restfulWebService.model;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+/**
+ * IdempotencyRecord class provides holder for IDEMPOTENCY_KEY entity
+ * attributes: the response first returned for an Idempotency-Key, replayed
+ * to retries of the same request.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Entity
+@Table(name = "idempotency_key", indexes = @Index(name = "idx_idempotency_key_created_at", columnList = "createdAt"))
+public class IdempotencyRecord {
+	/** Status of a record claimed by a request that is still running. */
+	public static final int PENDING = 0;
+
+	/** Primary key: the endpoint and the client's Idempotency-Key. */
+	@Id
+	@Column(length = 255)
+	private String id;
+
+	/** SHA-256 of the request body the key was first used with. */
+	@Column(length = 64)
+	private String requestHash;
+
+	/** HTTP status code of the original response; PENDING until it is recorded. */
+	@Column
+	private int status;
+
+	/** JSON object of the original response's headers, by name. */
+	@Lob
+	@Column
+	private String headers;
+
+	/** JSON body of the original response; null if it had none. */
+	@Lob
+	@Column
+	private String body;
+
+	/** When the original response was recorded. */
+	@Column
+	private Date createdAt;
+
+	/** Default constructor for IDEMPOTENCY_KEY entity. */
+	public IdempotencyRecord() {
+		super();
+	}
+
+	/** Parameterized constructor for IDEMPOTENCY_KEY entity. */
+	public IdempotencyRecord(String id, String requestHash, int status, String headers, String body, Date createdAt) {
+		super();
+		this.id = id;
+		this.requestHash = requestHash;
+		this.status = status;
+		this.headers = headers;
+		this.body = body;
+		this.createdAt = createdAt;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getRequestHash() {
+		return requestHash;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public boolean isPending() {
+		return status == PENDING;
+	}
+
+	public String getHeaders() {
+		return headers;
+	}
+
+	public String getBody() {
+		return body;
+	}
+
+	public Date getCreatedAt() {
+		return createdAt;
+	}
+}
\ No newline at end of file
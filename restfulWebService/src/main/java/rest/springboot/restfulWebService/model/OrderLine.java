@@ -0,0 +1,84 @@
+package rest.springboot.restfulWebService.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+/**
+ * OrderLine class provides holder for a line item of an order: the product
+ * ordered and its price when the order was placed, so later price changes
+ * do not alter the order.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Embeddable
+public class OrderLine {
+	/** Stores id of the product ordered. */
+	@Column(name = "product_id")
+	private long productId;
+
+	/** Stores price of the product when ordered; 0 until priced. */
+	@Column(columnDefinition = "bigint default 0")
+	private long unitPrice;
+
+	/** Default constructor for ORDERS_PRODUCT_ID rows. */
+	public OrderLine() {
+		super();
+	}
+
+	/** Parameterized constructor for ORDERS_PRODUCT_ID rows. */
+	public OrderLine(long productId, long unitPrice) {
+		super();
+		this.productId = productId;
+		this.unitPrice = unitPrice;
+	}
+
+	/**
+	 * Builds lines without prices, one per product id.
+	 * @param productIds: Product ids of an order; may be null.
+	 * @return List<OrderLine>: Unpriced lines, null if productIds is.
+	 */
+	public static List<OrderLine> unpriced(List<Long> productIds) {
+		if (productIds == null) {
+			return null;
+		}
+
+		List<OrderLine> lines = new ArrayList<OrderLine>(productIds.size());
+		for (Long productId : productIds) {
+			lines.add(new OrderLine(productId, 0));
+		}
+		return lines;
+	}
+
+	/**
+	 * Retrieves product id from line's data.
+	 * @return productId: Id of the product ordered.
+	 */
+	public long getProductId() {
+		return productId;
+	}
+
+	/**
+	 * Retrieves unit price from line's data.
+	 * @return unitPrice: Price of the product when ordered.
+	 */
+	public long getUnitPrice() {
+		return unitPrice;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof OrderLine)) {
+			return false;
+		}
+		OrderLine line = (OrderLine) other;
+		return productId == line.productId && unitPrice == line.unitPrice;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(productId) * 31 + Long.hashCode(unitPrice);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package rest.springboot.restfulWebService.model;
+
+import java.util.List;
+
+/**
+ * OrderPatch class provides holder for a partial update of an order.
+ * Attributes left null are not changed.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class OrderPatch {
+
+	/** New user id of the order, if changed. */
+	private Long userId;
+
+	/** New line items of the order, if changed; replaces all current ones. */
+	private List<Long> productId;
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public void setUserId(Long userId) {
+		this.userId = userId;
+	}
+
+	public List<Long> getProductId() {
+		return productId;
+	}
+
+	public void setProductId(List<Long> productId) {
+		this.productId = productId;
+	}
+}
\ No newline at end of file
@@ -1,32 +1,59 @@
 package rest.springboot.restfulWebService.model;
 
 import java.util.Date;
+import java.util.ArrayList;
 import java.util.List;
 
+import javax.persistence.CollectionTable;
 import javax.persistence.Column;
 import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 @Entity
-@Table
+@Table(indexes = { @Index(name = "idx_orders_order_date", columnList = "orderDate"),
+		@Index(name = "idx_orders_user_id_order_date", columnList = "userId, orderDate") })
+@JsonIgnoreProperties(value = { "lines", "total" }, allowGetters = true)
 public class Orders {
 	@Id
-	@GeneratedValue
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+	@GenericGenerator(name = "orders_seq", strategy = "rest.springboot.restfulWebService.model.PreassignedSequenceGenerator",
+			parameters = { @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "orders_seq"),
+					@Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50"),
+					@Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled") })
 	private long oid;
 	
 	@Column
 	private long userId;
 	
-	@Column
-	@ElementCollection(targetClass=Long.class)
-	private List<Long> productId;
+	@ElementCollection
+	@CollectionTable(name = "orders_product_id", joinColumns = @JoinColumn(name = "orders_oid"))
+	@BatchSize(size = 100)
+	private List<OrderLine> lines;
+
+	@Column(columnDefinition = "bigint default 0")
+	private long total;
 	
 	@Column
 	private Date orderDate;
 
+	@Version
+	@Column(columnDefinition = "bigint default 0")
+	private long version;
+
 	public Orders() {
 		super();
 	}
@@ -34,14 +61,38 @@ public class Orders {
 	public Orders(Date orderDate, List<Long> productId, long userId) {
 		super();
 		this.userId = userId;
-		this.productId = productId;
+		this.lines = OrderLine.unpriced(productId);
+		this.orderDate = orderDate;
+	}
+
+	/** Order of priced lines, totalling their unit prices. */
+	public Orders(long userId, Date orderDate, List<OrderLine> lines) {
+		super();
+		this.userId = userId;
 		this.orderDate = orderDate;
+		setLines(lines);
+	}
+
+	/** Copy of other, with lists and dates of its own, for callers sharing a read; see ReadCoalescingAspect. */
+	public Orders(Orders other) {
+		super();
+		this.oid = other.oid;
+		this.userId = other.userId;
+		this.lines = (other.lines == null) ? null : new ArrayList<OrderLine>(other.lines);
+		this.total = other.total;
+		this.orderDate = (other.orderDate == null) ? null : new Date(other.orderDate.getTime());
+		this.version = other.version;
 	}
 
 	public long getOid() {
 		return oid;
 	}
 
+	/** Assigns an id ahead of persisting; see PreassignedSequenceGenerator. */
+	public void setOid(long oid) {
+		this.oid = oid;
+	}
+
 	public long getUserId() {
 		return userId;
 	}
@@ -50,12 +101,37 @@ public class Orders {
 		this.userId = userId;
 	}
 
+	/** Product ids of the order's lines, one per unit ordered. */
 	public List<Long> getProductId() {
+		if (lines == null) {
+			return null;
+		}
+
+		List<Long> productId = new ArrayList<Long>(lines.size());
+		for (OrderLine line : lines) {
+			productId.add(line.getProductId());
+		}
 		return productId;
 	}
 
+	/** Replaces the order's lines with unpriced ones for productId. */
 	public void setProductId(List<Long> productId) {
-		this.productId = productId;
+		setLines(OrderLine.unpriced(productId));
+	}
+
+	public List<OrderLine> getLines() {
+		return lines;
+	}
+
+	/** Replaces the order's lines and recomputes its total. */
+	public void setLines(List<OrderLine> lines) {
+		this.lines = lines;
+		this.total = total(lines);
+	}
+
+	/** Sum of the unit prices of the order's lines, as priced when ordered. */
+	public long getTotal() {
+		return total;
 	}
 
 	public Date getOrderDate() {
@@ -65,4 +141,24 @@ public class Orders {
 	public void setOrderDate(Date orderDate) {
 		this.orderDate = orderDate;
 	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	/** Sets the version of an order read outside JPA; see OrderShard. */
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
+	/** Sum of the unit prices of lines. */
+	public static long total(List<OrderLine> lines) {
+		long total = 0;
+		if (lines != null) {
+			for (OrderLine line : lines) {
+				total += line.getUnitPrice();
+			}
+		}
+		return total;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package rest.springboot.restfulWebService.model;
+
+import java.io.Serializable;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+/**
+ * PreassignedSequenceGenerator hands out ids from a sequence like the
+ * standard pooled sequence generator, except that an entity which was
+ * already given one of its ids keeps it when persisted. This lets an order
+ * be assigned its id when it is accepted and persisted later under the same
+ * id; both paths draw from the same block of preallocated ids.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class PreassignedSequenceGenerator extends SequenceStyleGenerator {
+
+	@Override
+	public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+		if (object != null) {
+			Serializable id = session.getEntityPersister(null, object).getIdentifier(object, session);
+			if (id instanceof Number && ((Number) id).longValue() > 0) {
+				return id;
+			}
+		}
+		return super.generate(session, object);
+	}
+}
\ No newline at end of file
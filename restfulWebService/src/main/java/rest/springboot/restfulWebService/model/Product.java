@@ -6,9 +6,6 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.Table;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 /**
  * Product class provides holder for PRODUCT entity attributes.
  * @author adash
@@ -17,9 +14,6 @@ import org.slf4j.LoggerFactory;
 @Entity
 @Table
 public class Product {
-	/** Logger instance for Product class. */
-	private static final Logger LOGGER = LoggerFactory.getLogger(Product.class);
-	
 	/** Primary key for PRODUCT entity. */
 	@Id
 	@GeneratedValue
@@ -55,13 +49,34 @@ public class Product {
 		this.categoryId = categoryId;
 	}
 
+	/**
+	 * Retrieves product id from product's data.
+	 * @return id: Product id of product.
+	 */
+	public long getId() {
+		return id;
+	}
+
+	/**
+	 * Retrieves product's name from product's data.
+	 * @return name: Name of product.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Updates name of product.
+	 */
+	public void setName(String name) {
+		this.name = name;
+	}
+
 	/**
 	 * Retrieves product's qty from product's data.
 	 * @return qty: Quantity of product.
 	 */
 	public int getQty() {
-		LOGGER.trace("Retrieving product's quantity from PRODUCT data.");
-		
 		return qty;
 	}
 
@@ -69,8 +84,6 @@ public class Product {
 	 * Updates quantity of product.
 	 */
 	public void setQty(int qty) {
-		LOGGER.trace("Setting product's quantity in PRODUCT data.");
-		
 		this.qty = qty;
 	}
 
@@ -79,8 +92,6 @@ public class Product {
 	 * @return price: Price of product.
 	 */
 	public long getPrice() {
-		LOGGER.trace("Retrieving product's price from PRODUCT data.");
-		
 		return price;
 	}
 
@@ -88,8 +99,6 @@ public class Product {
 	 * Updates price of product.
 	 */
 	public void setPrice(long price) {
-		LOGGER.trace("Setting product's price in PRODUCT data.");
-		
 		this.price = price;
 	}
 
@@ -98,8 +107,6 @@ public class Product {
 	 * @return categoryId: Category id of product.
 	 */
 	public long getCategoryId() {
-		LOGGER.trace("Retrieving product's category id from PRODUCT data.");
-		
 		return categoryId;
 	}
 
@@ -107,8 +114,6 @@ public class Product {
 	 * Updates category id of product.
 	 */
 	public void setCategoryId(long categoryId) {
-		LOGGER.trace("Setting product's category id in PRODUCT data.");
-		
 		this.categoryId = categoryId;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package rest.springboot.restfulWebService.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * ShardBucket class provides holder for SHARD_BUCKET: the shard each bucket
+ * of ShardKeys is kept on, and the shard it is being moved to while
+ * ShardRebalancer copies it. Reads and writes go to shard until the move
+ * completes.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Entity
+@Table(name = "shard_bucket")
+public class ShardBucket {
+	/** Primary key: the bucket, in [0, ShardKeys.BUCKETS). */
+	@Id
+	private int bucket;
+
+	/** Index in oms.shards.nodes of the shard keeping the bucket. */
+	@Column(nullable = false)
+	private int shard;
+
+	/** Index of the shard the bucket is being moved to; null if it is not moving. */
+	@Column
+	private Integer movingTo;
+
+	/** Default constructor for SHARD_BUCKET entity. */
+	public ShardBucket() {
+		super();
+	}
+
+	/** Parameterized constructor for SHARD_BUCKET entity. */
+	public ShardBucket(int bucket, int shard) {
+		super();
+		this.bucket = bucket;
+		this.shard = shard;
+	}
+
+	public int getBucket() {
+		return bucket;
+	}
+
+	public int getShard() {
+		return shard;
+	}
+
+	public void setShard(int shard) {
+		this.shard = shard;
+	}
+
+	public Integer getMovingTo() {
+		return movingTo;
+	}
+
+	public void setMovingTo(Integer movingTo) {
+		this.movingTo = movingTo;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+package rest.springboot.restfulWebService.model;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * StatsRebuild class provides holder for the single STATS_REBUILD row:
+ * when the order totals were last rebuilt and up to when the rebuild read
+ * ORDERS. OrderStats locks the row for the length of a rebuild, so instances
+ * rebuilding at once take turns, and shares it while flushing.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Entity
+@Table(name = "stats_rebuild")
+public class StatsRebuild {
+	/** Id of the only row. */
+	public static final int ID = 1;
+
+	/** Primary key: always ID. */
+	@Id
+	private int id;
+
+	/** When the last rebuild finished; null if there was none. */
+	@Column
+	private Date rebuiltAt;
+
+	/**
+	 * Time, in epoch milliseconds, at which the last rebuild read ORDERS;
+	 * instances drop changes they recorded before it. Null if there was none.
+	 */
+	@Column
+	private Long snapshotAt;
+
+	/** Default constructor for STATS_REBUILD entity. */
+	public StatsRebuild() {
+		super();
+	}
+
+	/** Parameterized constructor for STATS_REBUILD entity. */
+	public StatsRebuild(int id, Date rebuiltAt) {
+		super();
+		this.id = id;
+		this.rebuiltAt = rebuiltAt;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public Date getRebuiltAt() {
+		return rebuiltAt;
+	}
+
+	public void setRebuiltAt(Date rebuiltAt) {
+		this.rebuiltAt = rebuiltAt;
+	}
+
+	public Long getSnapshotAt() {
+		return snapshotAt;
+	}
+
+	public void setSnapshotAt(Long snapshotAt) {
+		this.snapshotAt = snapshotAt;
+	}
+}
\ No newline at end of file
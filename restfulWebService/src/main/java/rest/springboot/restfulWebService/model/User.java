@@ -5,9 +5,7 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.Table;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import javax.persistence.Version;
 
 /**
  * User class provides holder for USER entity attributes.
@@ -17,9 +15,6 @@ import org.slf4j.LoggerFactory;
 @Entity
 @Table
 public class User {
-	/** Logger instance for User class. */
-	private static final Logger LOGGER = LoggerFactory.getLogger(User.class);
-	
 	/** Primary key for USER entity. */
 	@Id
 	@GeneratedValue
@@ -41,6 +36,11 @@ public class User {
 	@Column(unique=true)
 	private String email;
 
+	/** Optimistic lock version of the user, bumped by every update. */
+	@Version
+	@Column(columnDefinition = "bigint default 0")
+	private long version;
+
 	/** Default constructor for USER entity. */
 	public User() {
 		super();
@@ -55,6 +55,17 @@ public class User {
 		this.email = email;
 	}
 
+	/** Copy of other, for callers sharing a read; see ReadCoalescingAspect. */
+	public User(User other) {
+		super();
+		this.uid = other.uid;
+		this.name = other.name;
+		this.address = other.address;
+		this.phone = other.phone;
+		this.email = other.email;
+		this.version = other.version;
+	}
+
 	/*public User(long uid, String name, String address, long phone, String email) {
 		super();
 		this.uid = uid;
@@ -69,8 +80,6 @@ public class User {
 	 * @return uid: User id of user.
 	 */
 	public long getUid() {
-		LOGGER.trace("Retrieving user id from USER repo.");
-		
 		return uid;
 	}
 
@@ -79,8 +88,6 @@ public class User {
 	 * @return name: Name of user.
 	 */
 	public String getName() {
-		LOGGER.trace("Retrieving user's name from USER data.");
-		
 		return name;
 	}
 
@@ -88,8 +95,6 @@ public class User {
 	 * Updates name of user.
 	 */
 	public void setName(String name) {
-		LOGGER.trace("Setting user's name in USER data.");
-		
 		this.name = name;
 	}
 
@@ -98,8 +103,6 @@ public class User {
 	 * @return address: Address of user.
 	 */
 	public String getAddress() {
-		LOGGER.trace("Retrieving user's address from USER data.");
-		
 		return address;
 	}
 
@@ -107,8 +110,6 @@ public class User {
 	 * Updates address of user.
 	 */
 	public void setAddress(String address) {
-		LOGGER.trace("Setting user's address in USER data.");
-		
 		this.address = address;
 	}
 
@@ -117,8 +118,6 @@ public class User {
 	 * @return phone: Phone number of user.
 	 */
 	public long getPhone() {
-		LOGGER.trace("Retrieving user's phone number from USER data.");
-		
 		return phone;
 	}
 
@@ -126,8 +125,6 @@ public class User {
 	 * Updates phone number of user.
 	 */
 	public void setPhone(long phone) {
-		LOGGER.trace("Setting user's phone number in USER data.");
-		
 		this.phone = phone;
 	}
 
@@ -136,8 +133,6 @@ public class User {
 	 * @return email: Email id of user.
 	 */
 	public String getEmail() {
-		LOGGER.trace("Retrieving user's email id from USER data.");
-		
 		return email;
 	}
 
@@ -145,8 +140,14 @@ public class User {
 	 * Updates email id of user.
 	 */
 	public void setEmail(String email) {
-		LOGGER.trace("Setting user's email id in USER data.");
-		
 		this.email = email;
 	}
+
+	/**
+	 * Retrieves version of user's data, served as its ETag.
+	 * @return version: Optimistic lock version of user.
+	 */
+	public long getVersion() {
+		return version;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package rest.springboot.restfulWebService.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * UserOrderStats class provides holder for USER_ORDER_STATS entity attributes:
+ * the number of orders, line items and revenue of a user, kept up to date by
+ * OrderStats so they need not be summed up from ORDERS.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Entity
+@Table(name = "user_order_stats")
+public class UserOrderStats {
+	/** Primary key: id of the user. */
+	@Id
+	private long userId;
+
+	/** Number of orders of the user. */
+	@Column
+	private long orders;
+
+	/** Number of line items of the user's orders. */
+	@Column
+	private long items;
+
+	/** Sum of the totals of the user's orders. */
+	@Column
+	private long revenue;
+
+	/** Default constructor for USER_ORDER_STATS entity. */
+	public UserOrderStats() {
+		super();
+	}
+
+	/** Parameterized constructor for USER_ORDER_STATS entity. */
+	public UserOrderStats(long userId, long orders, long items, long revenue) {
+		super();
+		this.userId = userId;
+		this.orders = orders;
+		this.items = items;
+		this.revenue = revenue;
+	}
+
+	public long getUserId() {
+		return userId;
+	}
+
+	public long getOrders() {
+		return orders;
+	}
+
+	public long getItems() {
+		return items;
+	}
+
+	public long getRevenue() {
+		return revenue;
+	}
+}
\ No newline at end of file
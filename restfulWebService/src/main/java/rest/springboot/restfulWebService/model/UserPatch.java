@@ -0,0 +1,54 @@
+package rest.springboot.restfulWebService.model;
+
+/**
+ * UserPatch class provides holder for a partial update of a user.
+ * Attributes left null are not changed.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class UserPatch {
+
+	/** New name of the user, if changed. */
+	private String name;
+
+	/** New address of the user, if changed. */
+	private String address;
+
+	/** New phone number of the user, if changed. */
+	private Long phone;
+
+	/** New email id of the user, if changed. */
+	private String email;
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getAddress() {
+		return address;
+	}
+
+	public void setAddress(String address) {
+		this.address = address;
+	}
+
+	public Long getPhone() {
+		return phone;
+	}
+
+	public void setPhone(Long phone) {
+		this.phone = phone;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public void setEmail(String email) {
+		this.email = email;
+	}
+}
\ No newline at end of file
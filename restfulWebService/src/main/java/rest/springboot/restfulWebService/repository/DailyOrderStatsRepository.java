@@ -0,0 +1,28 @@
+package rest.springboot.restfulWebService.repository;
+
+import java.time.LocalDate;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import rest.springboot.restfulWebService.model.DailyOrderStats;
+
+/**
+ * DailyOrderStatsRepository interface provides methods for OrderStats class
+ * to implement.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public interface DailyOrderStatsRepository extends JpaRepository<DailyOrderStats, LocalDate> {
+	/**
+	 * Adds to a day's totals in one statement, without loading them.
+	 * @return int: 1 if added, 0 if the day has no row yet.
+	 */
+	@Modifying
+	@Query("update DailyOrderStats s set s.orders = s.orders + :orders, s.items = s.items + :items,"
+			+ " s.revenue = s.revenue + :revenue where s.day = :day")
+	public int addTo(@Param("day") LocalDate day, @Param("orders") long orders, @Param("items") long items,
+			@Param("revenue") long revenue);
+}
\ No newline at end of file
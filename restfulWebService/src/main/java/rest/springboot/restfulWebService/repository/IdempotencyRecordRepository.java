@@ -0,0 +1,56 @@
+package rest.springboot.restfulWebService.repository;
+
+import java.util.Date;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import rest.springboot.restfulWebService.model.IdempotencyRecord;
+
+/**
+ * IdempotencyRecordRepository interface provides methods for IdempotencyService
+ * class to implement.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+	/**
+	 * Inserts a PENDING record for id; fails with a DataIntegrityViolationException
+	 * if id has a record already. Unlike save(), never overwrites one.
+	 */
+	@Modifying
+	@Transactional
+	@Query(value = "insert into idempotency_key (id, request_hash, status, created_at)"
+			+ " values (:id, :requestHash, 0, :createdAt)", nativeQuery = true)
+	public int insertPending(@Param("id") String id, @Param("requestHash") String requestHash,
+			@Param("createdAt") Date createdAt);
+
+	/**
+	 * Turns the record for id back into a PENDING one if it is a PENDING
+	 * record created before pendingBefore, or any record created before
+	 * expiredBefore; returns 0 if it is neither.
+	 */
+	@Modifying
+	@Transactional
+	@Query("update IdempotencyRecord r set r.requestHash = :requestHash, r.status = 0, r.headers = null,"
+			+ " r.body = null, r.createdAt = :createdAt where r.id = :id"
+			+ " and (r.status = 0 and r.createdAt < :pendingBefore or r.createdAt < :expiredBefore)")
+	public int reclaim(@Param("id") String id, @Param("requestHash") String requestHash,
+			@Param("createdAt") Date createdAt, @Param("pendingBefore") Date pendingBefore,
+			@Param("expiredBefore") Date expiredBefore);
+
+	/** Deletes the record for id if it is still PENDING. */
+	@Modifying
+	@Transactional
+	@Query("delete from IdempotencyRecord r where r.id = :id and r.status = 0")
+	public int deletePending(@Param("id") String id);
+
+	/** Deletes records created before the given time without loading them. */
+	@Modifying
+	@Transactional
+	@Query("delete from IdempotencyRecord r where r.createdAt < :before")
+	public int deleteByCreatedAtBefore(@Param("before") Date before);
+}
\ No newline at end of file
@@ -1,12 +1,101 @@
 package rest.springboot.restfulWebService.repository;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import rest.springboot.restfulWebService.model.Orders;
+import rest.springboot.restfulWebService.stats.OrderSummary;
 
 public interface OrdersRepository extends JpaRepository<Orders, Long> {
-	public Optional<Orders> findByOrderDate(Date orderDate);
+	/** Rows pulled from the JDBC cursor per round trip while streaming. */
+	public static final String STREAM_FETCH_SIZE = "500";
+
+	@Override
+	@EntityGraph(attributePaths = "lines")
+	public Optional<Orders> findById(Long oid);
+
+	@Query("select o.oid from Orders o where o.oid > :after order by o.oid")
+	public List<Long> findOidsAfter(@Param("after") long after, Pageable pageable);
+
+	/** Pages through order ids placed in [from, to) using the orderDate index. */
+	@Query("select o.oid from Orders o where o.orderDate >= :from and o.orderDate < :to order by o.orderDate, o.oid")
+	public Slice<Long> findOidsByOrderDateRange(@Param("from") Date from, @Param("to") Date to, Pageable pageable);
+
+	/** First page of a user's order ids, newest first, off the (userId, orderDate) index. */
+	@Query("select o.oid from Orders o where o.userId = :userId order by o.orderDate desc, o.oid desc")
+	public List<Long> findOidsByUser(@Param("userId") long userId, Pageable pageable);
+
+	/** Next page of a user's order ids, strictly older than the (orderDate, oid) cursor. */
+	@Query("select o.oid from Orders o where o.userId = :userId"
+			+ " and (o.orderDate < :beforeDate or (o.orderDate = :beforeDate and o.oid < :beforeOid))"
+			+ " order by o.orderDate desc, o.oid desc")
+	public List<Long> findOidsByUserBefore(@Param("userId") long userId, @Param("beforeDate") Date beforeDate,
+			@Param("beforeOid") long beforeOid, Pageable pageable);
+
+	/** Loads the given orders together with their line items in a single join. */
+	@Query("select distinct o from Orders o left join fetch o.lines where o.oid in :oids order by o.oid")
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH, value = "false"))
+	public List<Orders> findWithProductIdByOidIn(@Param("oids") Collection<Long> oids);
+
+	/** Streams all orders with their line items joined in, grouped per order by oid. */
+	@Query("select o from Orders o left join fetch o.lines order by o.oid")
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true") })
+	public Stream<Orders> streamAllByOrderByOidAsc();
+
+	/**
+	 * Applies a partial update to an order in one statement, if it is still at
+	 * the given version, and bumps the version. A null userId or total is
+	 * left as is.
+	 * @return int: 1 if updated, 0 if missing or at another version.
+	 */
+	@Modifying
+	@Query("update Orders o set o.userId = coalesce(:userId, o.userId), o.total = coalesce(:total, o.total),"
+			+ " o.orderDate = :orderDate, o.version = o.version + 1 where o.oid = :oid and o.version = :version")
+	public int patch(@Param("oid") long oid, @Param("version") long version, @Param("userId") Long userId,
+			@Param("total") Long total, @Param("orderDate") Date orderDate);
+
+	/** Summary of an order if it is at the given version, counting its line items without loading them. */
+	@Query("select new rest.springboot.restfulWebService.stats.OrderSummary(o.userId, o.orderDate, size(o.lines), o.total)"
+			+ " from Orders o where o.oid = :oid and o.version = :version")
+	public Optional<OrderSummary> findSummaryByOidAndVersion(@Param("oid") long oid, @Param("version") long version);
+
+	/** Line items of an order, without loading the order. */
+	@Query("select l.productId from Orders o join o.lines l where o.oid = :oid")
+	public List<Long> findProductIdsByOid(@Param("oid") long oid);
+
+	/** Product ids of the line items of the given orders, one per unit ordered, without loading them. */
+	@Query(value = "select product_id from orders_product_id where orders_oid in :oids", nativeQuery = true)
+	public List<Long> findProductIdsByOidIn(@Param("oids") Collection<Long> oids);
+
+	/** Adds a priced line item to an order without loading it. */
+	@Modifying
+	@Query(value = "insert into orders_product_id (orders_oid, product_id, unit_price)"
+			+ " values (:oid, :productId, :unitPrice)", nativeQuery = true)
+	public int insertLine(@Param("oid") long oid, @Param("productId") long productId,
+			@Param("unitPrice") long unitPrice);
+
+	/** Deletes the line items of the given orders without loading them. */
+	@Modifying
+	@Query(value = "delete from orders_product_id where orders_oid in :oids", nativeQuery = true)
+	public int deleteProductIdsByOidIn(@Param("oids") Collection<Long> oids);
+
+	/** Deletes the given orders without loading them; their line items must be deleted first. */
+	@Modifying
+	@Query(value = "delete from orders where oid in :oids", nativeQuery = true)
+	public int deleteByOidIn(@Param("oids") Collection<Long> oids);
 }
\ No newline at end of file
@@ -1,6 +1,17 @@
 package rest.springboot.restfulWebService.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import rest.springboot.restfulWebService.model.Product;
 
@@ -10,4 +21,23 @@ import rest.springboot.restfulWebService.model.Product;
  * @author adash
  * @version Java: 1.8, Spring boot: 2.3.1
  */
-public interface ProductRepository extends JpaRepository<Product, Long> {}
\ No newline at end of file
+public interface ProductRepository extends JpaRepository<Product, Long> {
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = OrdersRepository.STREAM_FETCH_SIZE),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true") })
+	public Stream<Product> streamAllByOrderByIdAsc();
+
+	@Query("select p.id from Product p")
+	public List<Long> findAllIds();
+
+	/** Id and price of each of the given products, as [id, price] pairs. */
+	@Query("select p.id, p.price from Product p where p.id in :ids")
+	public List<Object[]> findPricesByIdIn(@Param("ids") Collection<Long> ids);
+
+	@Query("select p.qty from Product p where p.id = :id")
+	public Optional<Integer> findQtyById(@Param("id") long id);
+
+	/** Takes qty units (negative to return them), only if that many are in stock. */
+	@Modifying
+	@Query("update Product p set p.qty = p.qty - :qty where p.id = :id and p.qty >= :qty")
+	public int decrementQty(@Param("id") long id, @Param("qty") int qty);
+}
\ No newline at end of file
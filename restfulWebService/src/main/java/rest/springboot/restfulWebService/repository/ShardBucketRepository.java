@@ -0,0 +1,14 @@
+package rest.springboot.restfulWebService.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import rest.springboot.restfulWebService.model.ShardBucket;
+
+/**
+ * ShardBucketRepository interface provides methods for ShardConfig and
+ * ShardRebalancer classes to implement.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public interface ShardBucketRepository extends JpaRepository<ShardBucket, Integer> {
+}
\ No newline at end of file
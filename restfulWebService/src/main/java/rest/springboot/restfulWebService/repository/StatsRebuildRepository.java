@@ -0,0 +1,30 @@
+package rest.springboot.restfulWebService.repository;
+
+import java.util.Optional;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import rest.springboot.restfulWebService.model.StatsRebuild;
+
+/**
+ * StatsRebuildRepository interface provides methods for OrderStats class to
+ * implement.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public interface StatsRebuildRepository extends JpaRepository<StatsRebuild, Integer> {
+	/** Reads the row, locking it until the current transaction ends. */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select r from StatsRebuild r where r.id = :id")
+	public Optional<StatsRebuild> lockById(@Param("id") int id);
+
+	/** Reads the row, keeping it from being locked for writing until the current transaction ends. */
+	@Lock(LockModeType.PESSIMISTIC_READ)
+	@Query("select r from StatsRebuild r where r.id = :id")
+	public Optional<StatsRebuild> shareById(@Param("id") int id);
+}
\ No newline at end of file
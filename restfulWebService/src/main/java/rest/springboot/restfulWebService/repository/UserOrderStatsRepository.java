@@ -0,0 +1,26 @@
+package rest.springboot.restfulWebService.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import rest.springboot.restfulWebService.model.UserOrderStats;
+
+/**
+ * UserOrderStatsRepository interface provides methods for OrderStats class
+ * to implement.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public interface UserOrderStatsRepository extends JpaRepository<UserOrderStats, Long> {
+	/**
+	 * Adds to a user's totals in one statement, without loading them.
+	 * @return int: 1 if added, 0 if the user has no row yet.
+	 */
+	@Modifying
+	@Query("update UserOrderStats s set s.orders = s.orders + :orders, s.items = s.items + :items,"
+			+ " s.revenue = s.revenue + :revenue where s.userId = :userId")
+	public int addTo(@Param("userId") long userId, @Param("orders") long orders, @Param("items") long items,
+			@Param("revenue") long revenue);
+}
\ No newline at end of file
@@ -1,6 +1,17 @@
 package rest.springboot.restfulWebService.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import rest.springboot.restfulWebService.model.User;
 
@@ -10,4 +21,40 @@ import rest.springboot.restfulWebService.model.User;
  * @author adash
  * @version Java: 1.8, Spring boot: 2.3.1
  */
-public interface UserRepository extends JpaRepository<User, Long> {}
\ No newline at end of file
+public interface UserRepository extends JpaRepository<User, Long> {
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = OrdersRepository.STREAM_FETCH_SIZE),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true") })
+	public Stream<User> streamAllByOrderByUidAsc();
+
+	/** Streams the email id of every user, without loading the users. */
+	@Query("select u.email from User u")
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = OrdersRepository.STREAM_FETCH_SIZE),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true") })
+	public Stream<String> streamAllEmails();
+
+	public boolean existsByEmail(String email);
+
+	/** Those of the given user ids that exist. */
+	@Query("select u.uid from User u where u.uid in :uids")
+	public List<Long> findExistingUids(@Param("uids") Collection<Long> uids);
+
+	@Query("select u.uid from User u where u.uid > :after order by u.uid")
+	public List<Long> findUidsAfter(@Param("after") long after, Pageable pageable);
+
+	/**
+	 * Applies a partial update to a user in one statement, if it is still at
+	 * the given version, and bumps the version. Null attributes are left as is.
+	 * @return int: 1 if updated, 0 if missing or at another version.
+	 */
+	@Modifying
+	@Query("update User u set u.name = coalesce(:name, u.name), u.address = coalesce(:address, u.address),"
+			+ " u.phone = coalesce(:phone, u.phone), u.email = coalesce(:email, u.email),"
+			+ " u.version = u.version + 1 where u.uid = :uid and u.version = :version")
+	public int patch(@Param("uid") long uid, @Param("version") long version, @Param("name") String name,
+			@Param("address") String address, @Param("phone") Long phone, @Param("email") String email);
+
+	/** Deletes the given users without loading them. */
+	@Modifying
+	@Query("delete from User u where u.uid in :uids")
+	public int deleteByUidIn(@Param("uids") Collection<Long> uids);
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+package rest.springboot.restfulWebService.responseHandler;
+
+/**
+ * ETags class converts between entity versions and the strong ETags they
+ * are served as, e.g. version 3 is "3".
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public final class ETags {
+
+	private ETags() {
+	}
+
+	/**
+	 * @param version: Optimistic lock version of an entity.
+	 * @return String: ETag of that version.
+	 */
+	public static String of(long version) {
+		return "\"" + version + "\"";
+	}
+
+	/**
+	 * Reads the version out of an If-Match header naming a single ETag.
+	 * @param ifMatch: If-Match header value; may be null.
+	 * @return Long: Version named, or null if absent, "*", weak or not a version.
+	 */
+	public static Long toVersion(String ifMatch) {
+		if (ifMatch == null) {
+			return null;
+		}
+
+		String tag = ifMatch.trim();
+		if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+			return null;
+		}
+		try {
+			return Long.valueOf(tag.substring(1, tag.length() - 1));
+		} catch (NumberFormatException nfe) {
+			return null;
+		}
+	}
+}
\ No newline at end of file
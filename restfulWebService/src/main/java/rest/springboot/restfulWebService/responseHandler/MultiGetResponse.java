@@ -0,0 +1,54 @@
+package rest.springboot.restfulWebService.responseHandler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MultiGetResponse class holds the result of looking up a list of ids: the
+ * rows found, in the order their ids were requested, and the ids that
+ * matched no row.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class MultiGetResponse<T> {
+
+	private final List<T> items;
+	private final List<Long> missing;
+
+	public MultiGetResponse(List<T> items, List<Long> missing) {
+		super();
+		this.items = Collections.unmodifiableList(items);
+		this.missing = Collections.unmodifiableList(missing);
+	}
+
+	/**
+	 * Orders looked up rows by the requested ids.
+	 * @param ids: Requested ids, without duplicates.
+	 * @param byId: Rows found, keyed by id.
+	 * @return MultiGetResponse<T>: Rows in request order, and the ids not found.
+	 */
+	public static <T> MultiGetResponse<T> of(Collection<Long> ids, Map<Long, T> byId) {
+		List<T> items = new ArrayList<T>(byId.size());
+		List<Long> missing = new ArrayList<Long>();
+		for (Long id : ids) {
+			T item = byId.get(id);
+			if (item != null) {
+				items.add(item);
+			} else {
+				missing.add(id);
+			}
+		}
+		return new MultiGetResponse<T>(items, missing);
+	}
+
+	public List<T> getItems() {
+		return items;
+	}
+
+	public List<Long> getMissing() {
+		return missing;
+	}
+}
\ No newline at end of file
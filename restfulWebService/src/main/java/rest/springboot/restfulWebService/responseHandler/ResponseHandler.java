@@ -2,30 +2,32 @@ package rest.springboot.restfulWebService.responseHandler;
 
 import org.springframework.http.HttpStatus;
 
+/**
+ * ResponseHandler class holds the outcome of validating a request body.
+ * Instances are immutable, so outcomes that do not depend on the request,
+ * such as VALID, are shared instead of allocated per call.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
 public class ResponseHandler {
+
+	/** Outcome of every request body that passed validation. */
+	public static final ResponseHandler VALID = new ResponseHandler(HttpStatus.OK, "Request body is valid");
 	
-	private HttpStatus responseCode;
-	private String responseStatus;
+	private final HttpStatus responseCode;
+	private final String responseStatus;
 	
 	public HttpStatus getResponseCode() {
 		return responseCode;
 	}
 
-	public void setResponseCode(HttpStatus responseCode) {
-		this.responseCode = responseCode;
-	}
-
 	public String getResponseStatus() {
 		return responseStatus;
 	}
 
-	public void setResponseStatus(String responseStatus) {
-		this.responseStatus = responseStatus;
-	}
-
-	public ResponseHandler(HttpStatus badRequest, String responseStatus) {
+	public ResponseHandler(HttpStatus responseCode, String responseStatus) {
 		super();
-		this.responseCode = badRequest;
+		this.responseCode = responseCode;
 		this.responseStatus = responseStatus;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package rest.springboot.restfulWebService.responseHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * StreamingResponseWriter class serializes rows to the response body as they
+ * are produced, instead of collecting them into a list first.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Component
+public class StreamingResponseWriter {
+
+	/** Media type for newline-delimited JSON, one document per line. */
+	public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+	/** MediaType instance of APPLICATION_NDJSON_VALUE. */
+	public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+
+	/** Injecting the application's configured ObjectMapper. */
+	@Autowired
+	ObjectMapper objectMapper;
+
+	/**
+	 * Builds a response body that writes every row handed to it by source
+	 * as one element of a JSON array.
+	 * @param source: Producer that pushes each row to the given callback.
+	 * @return StreamingResponseBody: Body writing rows as they arrive.
+	 */
+	public <T> StreamingResponseBody jsonArray(Consumer<Consumer<T>> source) {
+		return out -> {
+			try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+				generator.writeStartArray();
+				source.accept(row -> write(generator, row));
+				generator.writeEndArray();
+			} catch (UncheckedIOException uioe) {
+				throw uioe.getCause();
+			}
+		};
+	}
+
+	/**
+	 * Builds a response body that writes every row handed to it by source
+	 * as one JSON document per line (NDJSON).
+	 * @param source: Producer that pushes each row to the given callback.
+	 * @return StreamingResponseBody: Body writing rows as they arrive.
+	 */
+	public <T> StreamingResponseBody ndjson(Consumer<Consumer<T>> source) {
+		return out -> {
+			try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+				generator.setRootValueSeparator(null);
+				source.accept(row -> {
+					write(generator, row);
+					newLine(generator);
+				});
+			} catch (UncheckedIOException uioe) {
+				throw uioe.getCause();
+			}
+		};
+	}
+
+	/** Writes a single row, rethrowing I/O failures unchecked for use in callbacks. */
+	private void write(JsonGenerator generator, Object row) {
+		try {
+			generator.writeObject(row);
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+	}
+
+	/** Terminates the current NDJSON line. */
+	private void newLine(JsonGenerator generator) {
+		try {
+			generator.writeRaw('\n');
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,252 @@
+package rest.springboot.restfulWebService.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import rest.springboot.restfulWebService.coalescing.SingleFlight;
+import rest.springboot.restfulWebService.model.IdempotencyRecord;
+import rest.springboot.restfulWebService.repository.IdempotencyRecordRepository;
+
+/**
+ * IdempotencyService class makes POST endpoints safe to retry. The response
+ * to the first request carrying an Idempotency-Key is recorded, and later
+ * requests with the same key to the same endpoint get that response back
+ * instead of running again. Records live in a bounded in-memory cache and in
+ * IDEMPOTENCY_KEY, which covers cache misses and restarts; both expire after
+ * oms.idempotency.ttl. Status, headers and body are replayed.
+ * Before running, a request claims its key with a PENDING row in
+ * IDEMPOTENCY_KEY; the insert fails if another instance got there first, so
+ * one request per key runs across instances. Concurrent requests with the same
+ * key on one instance share one run; on others they get 409 while it is
+ * PENDING. A claim not completed within oms.idempotency.pending-ttl lapses.
+ * Responses with a 5xx, 429 or 409 status are not recorded, so those may be
+ * retried.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Component
+public class IdempotencyService {
+
+	/** Logger instance for IdempotencyService class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyService.class);
+
+	/** Request header carrying the client's idempotency key. */
+	public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+	/** Response header set on replayed responses. */
+	public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+	/** Longest idempotency key accepted. */
+	static final int MAX_KEY_LENGTH = 200;
+
+	/** Type of the recorded response headers. */
+	private static final TypeReference<LinkedHashMap<String, List<String>>> HEADERS_TYPE =
+			new TypeReference<LinkedHashMap<String, List<String>>>() {};
+
+	/** Injecting object dependency of IdempotencyRecordRepository. */
+	@Autowired
+	IdempotencyRecordRepository idempotencyRecordRepository;
+
+	/** Injecting the application's configured ObjectMapper. */
+	@Autowired
+	ObjectMapper objectMapper;
+
+	/** Injecting the application's meter registry. */
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	/** How long a recorded response is replayed for. */
+	@Value("${oms.idempotency.ttl:24h}")
+	Duration ttl;
+
+	/** How long a request's claim on a key holds without a recorded response. */
+	@Value("${oms.idempotency.pending-ttl:1m}")
+	Duration pendingTtl;
+
+	/** Most recorded responses kept in memory. */
+	@Value("${oms.idempotency.max-entries:100000}")
+	long maxEntries;
+
+	/** Recently recorded responses, by endpoint and key. */
+	private Cache<String, IdempotencyRecord> recent;
+
+	/** Runs concurrent requests with the same endpoint and key once. */
+	private SingleFlight<String, ResponseEntity<?>> inFlight;
+
+	@PostConstruct
+	void init() {
+		recent = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(ttl).build();
+		inFlight = new SingleFlight<String, ResponseEntity<?>>("idempotency", meterRegistry);
+	}
+
+	/**
+	 * Runs action once per endpoint and key, replaying its response to repeats.
+	 * @param endpoint: Endpoint the key is scoped to, e.g. "POST /oms/order".
+	 * @param key: Idempotency-Key header; null runs the action unconditionally.
+	 * @param request: Request body, to detect a key reused for another request.
+	 * @param action: Handles the request.
+	 * @return ResponseEntity<?>: Response of the action, or the recorded one;
+	 * 400 if the key is too long, 422 if it was used with another body, 409 if
+	 * a request with the key is running on another instance.
+	 */
+	public ResponseEntity<?> execute(String endpoint, String key, Object request,
+			Supplier<? extends ResponseEntity<?>> action) {
+		if (key == null) {
+			return action.get();
+		}
+		if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+			LOGGER.error("Idempotency key of length {} is outside 1..{}.", key.length(), MAX_KEY_LENGTH);
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+		}
+
+		String id = endpoint + " " + key;
+		String requestHash = hash(request);
+		try {
+			return inFlight.execute(id, () -> {
+				Optional<IdempotencyRecord> recorded = find(id);
+				if (recorded.isPresent()) {
+					return replay(recorded.get(), requestHash);
+				}
+				if (!claim(id, requestHash)) {
+					recorded = find(id);
+					return recorded.isPresent() ? replay(recorded.get(), requestHash)
+							: new ResponseEntity<>(HttpStatus.CONFLICT);
+				}
+
+				ResponseEntity<?> response;
+				try {
+					response = action.get();
+				} catch (RuntimeException | Error e) {
+					idempotencyRecordRepository.deletePending(id);
+					throw e;
+				}
+				return record(id, requestHash, response);
+			});
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IllegalStateException(t);
+		}
+	}
+
+	/** Deletes expired records from IDEMPOTENCY_KEY. */
+	@Scheduled(fixedDelayString = "${oms.idempotency.purge-interval-ms:3600000}")
+	public void purgeExpired() {
+		int purged = idempotencyRecordRepository.deleteByCreatedAtBefore(new Date(System.currentTimeMillis() - ttl.toMillis()));
+		LOGGER.info("Purged {} expired idempotency keys.", purged);
+	}
+
+	private Optional<IdempotencyRecord> find(String id) {
+		IdempotencyRecord record = recent.getIfPresent(id);
+		if (record != null) {
+			return Optional.of(record);
+		}
+
+		long now = System.currentTimeMillis();
+		Optional<IdempotencyRecord> stored = idempotencyRecordRepository.findById(id)
+				.filter(_record -> _record.getCreatedAt().getTime()
+						> now - (_record.isPending() ? pendingTtl : ttl).toMillis());
+		stored.filter(_record -> !_record.isPending()).ifPresent(_record -> recent.put(id, _record));
+		return stored;
+	}
+
+	/**
+	 * Claims id for this request with a PENDING record, taking over a lapsed
+	 * claim or an expired record not purged yet.
+	 * @return boolean: false if another request holds id.
+	 */
+	private boolean claim(String id, String requestHash) {
+		Date now = new Date();
+		try {
+			idempotencyRecordRepository.insertPending(id, requestHash, now);
+			return true;
+		} catch (DataIntegrityViolationException dive) {
+			return idempotencyRecordRepository.reclaim(id, requestHash, now,
+					new Date(now.getTime() - pendingTtl.toMillis()), new Date(now.getTime() - ttl.toMillis())) == 1;
+		}
+	}
+
+	private ResponseEntity<?> replay(IdempotencyRecord record, String requestHash) throws IOException {
+		if (!record.getRequestHash().equals(requestHash)) {
+			LOGGER.error("Idempotency key {} was first used with another request.", record.getId());
+			return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+		}
+		if (record.isPending()) {
+			LOGGER.error("Request with idempotency key {} is still running.", record.getId());
+			return new ResponseEntity<>(HttpStatus.CONFLICT);
+		}
+
+		LOGGER.info("Replaying response recorded for idempotency key {}.", record.getId());
+		ResponseEntity.BodyBuilder response = ResponseEntity.status(record.getStatus());
+		if (record.getHeaders() != null) {
+			LinkedHashMap<String, List<String>> headers = objectMapper.readValue(record.getHeaders(), HEADERS_TYPE);
+			response.headers(_headers -> _headers.putAll(headers));
+		}
+		response.header(REPLAYED_HEADER, "true");
+		if (record.getBody() == null) {
+			return response.build();
+		}
+		return response.contentType(MediaType.APPLICATION_JSON).body(objectMapper.readTree(record.getBody()));
+	}
+
+	private ResponseEntity<?> record(String id, String requestHash, ResponseEntity<?> response) throws IOException {
+		if (response.getStatusCode().is5xxServerError() || response.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS
+				|| response.getStatusCode() == HttpStatus.CONFLICT) {
+			idempotencyRecordRepository.deletePending(id);
+			return response;
+		}
+
+		String headers = response.getHeaders().isEmpty() ? null : objectMapper.writeValueAsString(response.getHeaders());
+		String body = (response.getBody() == null) ? null : objectMapper.writeValueAsString(response.getBody());
+		IdempotencyRecord record = new IdempotencyRecord(id, requestHash, response.getStatusCodeValue(), headers, body,
+				new Date());
+		idempotencyRecordRepository.save(record);
+		recent.put(id, record);
+		return response;
+	}
+
+	/** Hex SHA-256 of the JSON form of request. */
+	private String hash(Object request) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256")
+					.digest(objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8));
+			StringBuilder hex = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+			}
+			return hex.toString();
+		} catch (IOException ioe) {
+			throw new UncheckedIOException(ioe);
+		} catch (NoSuchAlgorithmException nsae) {
+			throw new IllegalStateException(nsae);
+		}
+	}
+}
\ No newline at end of file
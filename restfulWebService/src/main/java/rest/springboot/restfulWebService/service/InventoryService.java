@@ -0,0 +1,19 @@
+package rest.springboot.restfulWebService.service;
+
+import java.util.Collection;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * InventoryService class provides methods to reserve and return product stock
+ * for orders. It keeps an in-memory ledger of PRODUCT quantities.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Component
+public interface InventoryService {
+	public void reserve(Collection<Long> productIds);
+	public void release(Collection<Long> productIds);
+	public void exchange(Collection<Long> released, Collection<Long> reserved);
+	public int getAvailable(long productId);
+}
\ No newline at end of file
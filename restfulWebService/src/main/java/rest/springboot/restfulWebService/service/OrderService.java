@@ -1,11 +1,18 @@
 package rest.springboot.restfulWebService.service;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Component;
 
+import rest.springboot.restfulWebService.model.OrderPatch;
 import rest.springboot.restfulWebService.model.Orders;
+import rest.springboot.restfulWebService.responseHandler.MultiGetResponse;
+import rest.springboot.restfulWebService.responseHandler.ResponseHandler;
 
 /**
  * OrderService class provides methods containing business logic for ORDERS entity.
@@ -16,10 +23,21 @@ import rest.springboot.restfulWebService.model.Orders;
 @Component
 public interface OrderService {
 	public Orders addNewOrder(Orders order);
-	public List<Orders> getAllOrders();
+	public List<Long> addNewOrders(List<Orders> orders);
+	public Orders prepareOrder(Orders order);
+	public List<Long> addPreparedOrders(List<Orders> orders);
+	public List<Orders> getAllOrders(long after, int limit);
+	public void streamAllOrders(Consumer<Orders> action);
 	public Optional<Orders> getOrderById(long id);
-	public List<Orders> getOrderByDate(Date orderDate);
-	public Orders updateOrderData(Orders order);
+	public MultiGetResponse<Orders> getOrdersByIds(Collection<Long> ids);
+	public Slice<Orders> getOrdersBetween(Date from, Date to, int page, int size);
+	public Slice<Orders> getOrdersForDay(LocalDate day, int page, int size);
+	public List<Orders> getOrdersByUser(long userId, Date beforeDate, long beforeOid, int limit);
+	public Optional<Orders> updateOrderData(long id, Orders order);
+	public Optional<Long> patchOrder(long id, long version, OrderPatch patch);
 	public void removeOrder(long id);
-	public void removeOrders();
+	public long removeOrders();
+	public ResponseHandler validateOrder(Orders order);
+	public ResponseHandler validateOrders(List<Orders> orders);
+	public ResponseHandler validateOrderPatch(OrderPatch patch);
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package rest.springboot.restfulWebService.service;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * OrdersChangedEvent is published by OrdersServiceImpl whenever orders are
+ * created, updated or deleted, so views of ORDERS by day can refresh.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class OrdersChangedEvent {
+
+	/** Days, in the server's time zone, the changed orders were or are now placed on; null for all days. */
+	private final Set<LocalDate> days;
+
+	public OrdersChangedEvent(Set<LocalDate> days) {
+		this.days = days;
+	}
+
+	/** Event for a change that may have touched orders of any day. */
+	public static OrdersChangedEvent allDays() {
+		return new OrdersChangedEvent(null);
+	}
+
+	public Set<LocalDate> getDays() {
+		return days;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,125 @@
+package rest.springboot.restfulWebService.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import rest.springboot.restfulWebService.exception.UnknownProductException;
+import rest.springboot.restfulWebService.model.OrderLine;
+import rest.springboot.restfulWebService.repository.ProductRepository;
+
+/**
+ * PriceTable keeps the current price of each product in memory, by product
+ * id, so orders are priced without going back to PRODUCT or the catalog.
+ * Prices are loaded on first use, in one query for all products of an
+ * order not yet known, and reloaded whenever a ProductChangedEvent commits.
+ * Every change of a product is counted, and a load only keeps the prices of
+ * products that did not change while it read them, so a price read before
+ * a change cannot be kept after it.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Component
+public class PriceTable {
+
+	/** Logger instance for PriceTable class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(PriceTable.class);
+
+	/** Injecting object dependency of ProductRepository. */
+	@Autowired
+	ProductRepository productRepository;
+
+	/** Current price per product id. */
+	private final ConcurrentMap<Long, Long> prices = new ConcurrentHashMap<Long, Long>();
+
+	/** Number of changes seen per product id; guarded by this. */
+	private final Map<Long, Long> changes = new HashMap<Long, Long>();
+
+	/**
+	 * Prices one line per product id at the current price of the product.
+	 * @param productIds: Product ids of an order; repeated ids make several lines.
+	 * @return List<OrderLine>: Priced lines, in the order of productIds.
+	 * @throws UnknownProductException if a product does not exist.
+	 */
+	public List<OrderLine> price(List<Long> productIds) {
+		if (productIds == null) {
+			return null;
+		}
+
+		Map<Long, Long> loaded = Collections.emptyMap();
+		Set<Long> missing = Collections.emptySet();
+		for (Long productId : productIds) {
+			if (!prices.containsKey(productId)) {
+				if (missing.isEmpty()) {
+					missing = new LinkedHashSet<Long>();
+				}
+				missing.add(productId);
+			}
+		}
+		if (!missing.isEmpty()) {
+			loaded = load(missing);
+		}
+
+		List<OrderLine> lines = new ArrayList<OrderLine>(productIds.size());
+		for (Long productId : productIds) {
+			Long price = loaded.containsKey(productId) ? loaded.get(productId) : prices.get(productId);
+			if (price == null) {
+				throw new UnknownProductException(productId);
+			}
+			lines.add(new OrderLine(productId, price));
+		}
+		return lines;
+	}
+
+	/** Drops the price of a product once its change commits, and reloads it. */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		Long productId = event.getProductId();
+		synchronized (this) {
+			changes.merge(productId, 1L, Long::sum);
+			prices.remove(productId);
+		}
+		load(Collections.singleton(productId));
+	}
+
+	/**
+	 * Reads the prices of productIds from PRODUCT into the table, except
+	 * those of products that changed meanwhile.
+	 * @return Map<Long, Long>: Prices read, by product id, kept or not.
+	 */
+	private Map<Long, Long> load(Set<Long> productIds) {
+		Map<Long, Long> seen = new HashMap<Long, Long>();
+		synchronized (this) {
+			productIds.forEach(productId -> seen.put(productId, changes.getOrDefault(productId, 0L)));
+		}
+
+		Map<Long, Long> loaded = new HashMap<Long, Long>();
+		for (Object[] row : productRepository.findPricesByIdIn(productIds)) {
+			loaded.put((Long) row[0], (Long) row[1]);
+		}
+		synchronized (this) {
+			loaded.forEach((productId, price) -> {
+				if (seen.get(productId).equals(changes.getOrDefault(productId, 0L))) {
+					prices.put(productId, price);
+				}
+			});
+		}
+
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Loaded prices of {} products; {} held.", productIds.size(), prices.size());
+		}
+		return loaded;
+	}
+}
\ No newline at end of file
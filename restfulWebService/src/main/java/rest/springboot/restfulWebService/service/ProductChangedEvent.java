@@ -0,0 +1,21 @@
+package rest.springboot.restfulWebService.service;
+
+/**
+ * ProductChangedEvent is published by ProductService whenever a product is
+ * created, updated or deleted, so in-memory views of PRODUCT can refresh.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class ProductChangedEvent {
+
+	/** Id of the product that changed. */
+	private final long productId;
+
+	public ProductChangedEvent(long productId) {
+		this.productId = productId;
+	}
+
+	public long getProductId() {
+		return productId;
+	}
+}
\ No newline at end of file
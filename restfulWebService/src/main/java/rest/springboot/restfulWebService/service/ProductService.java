@@ -1,19 +1,38 @@
 package rest.springboot.restfulWebService.service;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import rest.springboot.restfulWebService.logging.PayloadLog;
 import rest.springboot.restfulWebService.model.Product;
 import rest.springboot.restfulWebService.repository.ProductRepository;
 
 /**
  * ProductService class provides methods containing business logic for PRODUCT entity.
  * It interacts with DAO of PRODUCT entity. 
+ * Catalog reads are served from the "products" (by id) and "productCatalog"
+ * (full list) caches; every write through this class publishes a
+ * ProductChangedEvent, which evicts the product and the list once the write
+ * commits, so a rolled back write is never cached. Cached quantities may lag
+ * behind order reservations; InventoryService is authoritative for stock.
  * @author adash
  * @version Java: 1.8, Spring boot: 2.3.1
  */
@@ -23,16 +42,36 @@ public class ProductService {
 	/** Logger instance for ProductService class. */
 	private static final Logger LOGGER = LoggerFactory.getLogger(ProductService.class);
 
+	/** Name of the cache holding products by id. */
+	public static final String PRODUCT_CACHE = "products";
+
+	/** Name of the cache holding the full product list. */
+	public static final String CATALOG_CACHE = "productCatalog";
+
 	/** Injecting object dependency of ProductRepository. */
 	@Autowired
 	ProductRepository productRepository;
 
+	/** Injecting the persistence context used to detach streamed products. */
+	@PersistenceContext
+	EntityManager entityManager;
+
+	/** Injecting the publisher used to announce product changes. */
+	@Autowired
+	ApplicationEventPublisher eventPublisher;
+
+	/** Injecting the cache manager holding PRODUCT_CACHE and CATALOG_CACHE. */
+	@Autowired
+	CacheManager cacheManager;
+
 	/**
 	 * Retrieves list of all products from Product entity in H2 db.
 	 * Implements findAll() from ProductRepository interface to get the list of all 
 	 * products from PRODUCT.
+	 * The list is cached and shared between callers, hence unmodifiable.
 	 * @return List<Product>: List of all products.
 	 */
+	@Cacheable(cacheNames = CATALOG_CACHE, key = "'all'", unless = "#result == null")
 	public List<Product> getAllProducts() {	
 		LOGGER.trace("Retrieving list of products from PRODUCT repo.");
 
@@ -44,7 +83,109 @@ public class ProductService {
 			return null;
 		}
 
-		LOGGER.debug("Products retrieved from PRODUCT repo: {}", products);
-		return products;
+		PayloadLog.debug(LOGGER, "{} products retrieved from PRODUCT repo.", products);
+		return Collections.unmodifiableList(products);
+	}
+
+	/**
+	 * Retrieves product from Product entity in H2 db based on product id.
+	 * Implements findById() from ProductRepository interface; results are cached
+	 * by id so repeated lookups are memory reads.
+	 * @param id: Id of product to be retrieved.
+	 * @return Optional<Product>: Product data retrieved, empty if none.
+	 */
+	@Cacheable(cacheNames = PRODUCT_CACHE, unless = "#result == null")
+	public Optional<Product> getProduct(long id) {
+		LOGGER.trace("Retrieving product by id from PRODUCT repo.");
+
+		return productRepository.findById(id);
+	}
+
+	/**
+	 * Creates a new product in Product entity in H2 db.
+	 * The cached product list is evicted once the product is committed.
+	 * @param product: Product JSON containing name, qty, price & category id.
+	 * @return Product: New product created.
+	 */
+	@Transactional
+	public Product addNewProduct(Product product) {
+		LOGGER.trace("Creating a new product in PRODUCT repo.");
+
+		Product _product = productRepository.save(new Product(product.getName(), product.getQty(),
+				product.getPrice(), product.getCategoryId()));
+		eventPublisher.publishEvent(new ProductChangedEvent(_product.getId()));
+
+		return _product;
+	}
+
+	/**
+	 * Updates product in Product entity in H2 db.
+	 * The cached product and product list are evicted once the update commits.
+	 * @param id: Id of product to be updated.
+	 * @param product: Product's data to be updated to.
+	 * @return Optional<Product>: Product's data updated, empty if no such product.
+	 */
+	@Transactional
+	public Optional<Product> updateProductData(long id, Product product) {
+		LOGGER.trace("Updating product data in PRODUCT repo.");
+
+		Optional<Product> productData = productRepository.findById(id);
+		productData.ifPresent(_product -> {
+			_product.setName(product.getName());
+			_product.setQty(product.getQty());
+			_product.setPrice(product.getPrice());
+			_product.setCategoryId(product.getCategoryId());
+			eventPublisher.publishEvent(new ProductChangedEvent(id));
+		});
+
+		return productData;
+	}
+
+	/**
+	 * Deletes product from Product entity in H2 db.
+	 * The product and the product list are evicted from the caches once the
+	 * delete commits.
+	 * @param id: Id of product to be deleted.
+	 */
+	@Transactional
+	public void removeProduct(long id) {
+		LOGGER.trace("Deleting product data from PRODUCT repo.");
+
+		productRepository.deleteById(id);
+		eventPublisher.publishEvent(new ProductChangedEvent(id));
+	}
+
+	/**
+	 * Evicts a changed product and the product list once the change commits,
+	 * so the next reads load them as committed.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		Cache products = cacheManager.getCache(PRODUCT_CACHE);
+		if (products != null) {
+			products.evict(event.getProductId());
+		}
+		Cache catalog = cacheManager.getCache(CATALOG_CACHE);
+		if (catalog != null) {
+			catalog.clear();
+		}
+	}
+
+	/**
+	 * Streams all products from Product entity in H2 db to the given action.
+	 * Rows are read off a JDBC cursor in product id order and detached once the
+	 * action returns, so memory stays flat regardless of the size of PRODUCT.
+	 * @param action: Callback invoked once per product, inside the transaction.
+	 */
+	@Transactional(readOnly = true)
+	public void streamAllProducts(Consumer<Product> action) {
+		LOGGER.trace("Streaming all products from PRODUCT repo.");
+
+		try (Stream<Product> products = productRepository.streamAllByOrderByIdAsc()) {
+			products.forEach(product -> {
+				action.accept(product);
+				entityManager.detach(product);
+			});
+		}
 	}
 }
\ No newline at end of file
@@ -1,12 +1,16 @@
 package rest.springboot.restfulWebService.service;
 
 import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.springframework.stereotype.Component;
 
 import rest.springboot.restfulWebService.model.User;
+import rest.springboot.restfulWebService.model.UserPatch;
+import rest.springboot.restfulWebService.responseHandler.MultiGetResponse;
 import rest.springboot.restfulWebService.responseHandler.ResponseHandler;
 
 /**
@@ -20,9 +24,13 @@ public interface UserService {
 
 	public User addNewUser(User user) throws SQLIntegrityConstraintViolationException;
 	public List<User> getAllUsers();
+	public void streamAllUsers(Consumer<User> action);
 	public Optional<User> getUser(long id);
-	public User updateUserData(User user);
+	public MultiGetResponse<User> getUsersByIds(Collection<Long> ids);
+	public Optional<User> updateUserData(long id, User user);
+	public Optional<Long> patchUser(long id, long version, UserPatch patch);
 	public void removeUser(long id);
-	public void removeUsers();
+	public long removeUsers();
 	public ResponseHandler validateUser(User user);
+	public ResponseHandler validateUserPatch(UserPatch patch);
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package rest.springboot.restfulWebService.serviceImpl;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+
+import org.slf4j.Logger;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * ChunkedDelete removes every row of a table by walking its primary key in
+ * chunks and deleting each chunk with set-based statements in a transaction
+ * of its own. No entity is loaded, and neither the persistence context nor
+ * any single transaction grows with the size of the table.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+final class ChunkedDelete {
+
+	/** Progress is logged at INFO once every this many chunks. */
+	static final int PROGRESS_EVERY_CHUNKS = 50;
+
+	private ChunkedDelete() {
+	}
+
+	/**
+	 * Deletes chunks of ids until nextIds returns none.
+	 * @param transaction: Template every chunk's deletes run in.
+	 * @param chunkSize: Maximum number of ids per chunk.
+	 * @param nextIds: Returns the ids greater than the given one, ascending, up to the page size.
+	 * @param delete: Deletes the rows of the given ids; returns the number of parent rows deleted.
+	 * @param logger: Logger progress is reported to.
+	 * @param table: Name of the table, for progress messages.
+	 * @return long: Number of parent rows deleted.
+	 */
+	static long run(TransactionTemplate transaction, int chunkSize, BiFunction<Long, Pageable, List<Long>> nextIds,
+			ToIntFunction<List<Long>> delete, Logger logger, String table) {
+		Pageable chunk = PageRequest.of(0, chunkSize);
+		long deleted = 0;
+		long after = Long.MIN_VALUE;
+		int chunks = 0;
+
+		List<Long> ids;
+		while (!(ids = nextIds.apply(after, chunk)).isEmpty()) {
+			List<Long> _ids = ids;
+			deleted += transaction.execute(status -> delete.applyAsInt(_ids));
+			after = ids.get(ids.size() - 1);
+
+			if (++chunks % PROGRESS_EVERY_CHUNKS == 0) {
+				logger.info("Deleted {} rows from {} so far, up to id {}.", deleted, table, after);
+			}
+		}
+
+		logger.info("Deleted {} rows from {} in {} chunks.", deleted, table, chunks);
+		return deleted;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,302 @@
+package rest.springboot.restfulWebService.serviceImpl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import rest.springboot.restfulWebService.exception.OutOfStockException;
+import rest.springboot.restfulWebService.exception.UnknownProductException;
+import rest.springboot.restfulWebService.repository.ProductRepository;
+import rest.springboot.restfulWebService.service.InventoryService;
+import rest.springboot.restfulWebService.service.ProductChangedEvent;
+
+/**
+ * InventoryServiceImpl keeps an in-memory ledger of units in stock per product,
+ * loaded lazily from PRODUCT. Reservations lock only the stripes of the products
+ * involved, check and take every quantity at once, then write the change through
+ * to PRODUCT, so concurrent orders for different products never wait on each
+ * other. The write joins the order's transaction, which already holds a
+ * connection: a transaction of its own would need a second one per order, and
+ * a full pool would leave every order waiting for one. If the order's
+ * transaction rolls back, so does the write, and the reservation is returned
+ * to the ledger. Outside a transaction of spring.datasource, as in
+ * ShardedOrdersServiceImpl, the write commits at once and is reversed in
+ * PRODUCT too should the caller's transaction roll back.
+ * The ledger, not the cached catalog, is authoritative for stock.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Service
+public class InventoryServiceImpl implements InventoryService {
+
+	/** Logger instance for InventoryServiceImpl class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(InventoryServiceImpl.class);
+
+	/** Log2 of the number of lock stripes; 64 stripes fit one long bit mask. */
+	static final int STRIPE_BITS = 6;
+
+	/** Number of lock stripes guarding the ledger. */
+	static final int STRIPES = 1 << STRIPE_BITS;
+
+	/** Injecting object dependency of ProductRepository. */
+	@Autowired
+	ProductRepository productRepository;
+
+	/** Injecting the transaction manager used for PRODUCT write-through. */
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	/** Runs every PRODUCT write-through in the caller's transaction, or a new one. */
+	private TransactionTemplate writeThrough;
+
+	/** Units in stock per product id. */
+	private final ConcurrentMap<Long, Integer> ledger = new ConcurrentHashMap<Long, Integer>();
+
+	/** Locks guarding ledger entries; a product maps to exactly one stripe. */
+	private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+	@PostConstruct
+	void init() {
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new ReentrantLock();
+		}
+		writeThrough = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * Reserves one unit per entry of productIds, all or nothing.
+	 * @param productIds: Product ids of an order; repeated ids reserve several units.
+	 * @throws OutOfStockException if any product lacks stock.
+	 * @throws UnknownProductException if any product does not exist.
+	 */
+	public void reserve(Collection<Long> productIds) {
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("Reserving stock for {} line items.", size(productIds));
+		}
+
+		apply(count(productIds, 1));
+	}
+
+	/**
+	 * Returns one unit per entry of productIds to stock.
+	 * @param productIds: Product ids previously reserved.
+	 */
+	public void release(Collection<Long> productIds) {
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("Releasing stock for {} line items.", size(productIds));
+		}
+
+		apply(count(productIds, -1));
+	}
+
+	/**
+	 * Swaps the reservation of released for one of reserved, applying only the
+	 * net difference per product, all or nothing.
+	 * @param released: Product ids previously reserved.
+	 * @param reserved: Product ids to reserve instead.
+	 * @throws OutOfStockException if any product lacks stock for its net increase.
+	 */
+	public void exchange(Collection<Long> released, Collection<Long> reserved) {
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("Exchanging stock for {} line items.", size(reserved));
+		}
+
+		SortedMap<Long, Integer> delta = count(reserved, 1);
+		if (released != null) {
+			released.forEach(productId -> delta.merge(productId, -1, Integer::sum));
+		}
+		delta.values().removeIf(qty -> qty == 0);
+
+		apply(delta);
+	}
+
+	/**
+	 * Retrieves the units of a product currently available for reservation.
+	 * @param productId: Id of the product.
+	 * @return int: Units in stock, 0 if the product does not exist.
+	 */
+	public int getAvailable(long productId) {
+		long locked = lock(Collections.singleton(productId));
+		try {
+			Integer available = load(productId);
+			return (available == null) ? 0 : available;
+		} finally {
+			unlock(locked);
+		}
+	}
+
+	/** Drops a product's ledger entry after it changed, so it is reloaded from PRODUCT. */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		invalidate(event.getProductId());
+	}
+
+	/**
+	 * Takes delta (positive: reserve, negative: return) from the ledger and
+	 * writes it through to PRODUCT, undoing both if the caller's transaction
+	 * does not commit.
+	 */
+	private void apply(SortedMap<Long, Integer> delta) {
+		if (delta.isEmpty()) {
+			return;
+		}
+
+		take(delta);
+		boolean committed;
+		try {
+			committed = writeThrough.execute(status -> {
+				delta.forEach((productId, qty) -> {
+					if (productRepository.decrementQty(productId, qty) == 0 && qty > 0) {
+						throw new OutOfStockException(productId, "Product " + productId + " is out of stock.");
+					}
+				});
+				return status.isNewTransaction();
+			});
+		} catch (RuntimeException re) {
+			give(delta);
+			if (re instanceof OutOfStockException) {
+				LOGGER.error("Stock ledger for product {} disagreed with PRODUCT; reloading.",
+						((OutOfStockException) re).getProductId());
+				invalidate(((OutOfStockException) re).getProductId());
+			}
+			throw re;
+		}
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					if (status != STATUS_COMMITTED) {
+						LOGGER.debug("Order transaction did not commit; returning reserved stock.");
+						if (committed) {
+							undo(delta);
+						} else {
+							give(delta);
+						}
+					}
+				}
+			});
+		}
+	}
+
+	/** Reverses a delta that was already applied to the ledger and committed to PRODUCT. */
+	private void undo(SortedMap<Long, Integer> delta) {
+		give(delta);
+		try {
+			writeThrough.executeWithoutResult(status ->
+					delta.forEach((productId, qty) -> productRepository.decrementQty(productId, -qty)));
+		} catch (RuntimeException re) {
+			LOGGER.error("Failed to return stock to PRODUCT: {}", re.getMessage());
+			delta.keySet().forEach(this::invalidate);
+		}
+	}
+
+	/** Checks and takes every positive quantity of delta under the products' stripe locks. */
+	private void take(SortedMap<Long, Integer> delta) {
+		long locked = lock(delta.keySet());
+		try {
+			for (Map.Entry<Long, Integer> line : delta.entrySet()) {
+				Integer available = load(line.getKey());
+				if (line.getValue() > 0 && available == null) {
+					throw new UnknownProductException(line.getKey());
+				}
+				if (line.getValue() > 0 && available < line.getValue()) {
+					throw new OutOfStockException(line.getKey(), "Product " + line.getKey() + " is out of stock.");
+				}
+			}
+			delta.forEach((productId, qty) -> ledger.computeIfPresent(productId, (id, available) -> available - qty));
+		} finally {
+			unlock(locked);
+		}
+	}
+
+	/** Puts the quantities of delta back into the ledger. */
+	private void give(SortedMap<Long, Integer> delta) {
+		long locked = lock(delta.keySet());
+		try {
+			delta.forEach((productId, qty) -> ledger.computeIfPresent(productId, (id, available) -> available + qty));
+		} finally {
+			unlock(locked);
+		}
+	}
+
+	/** Removes a product's ledger entry under its stripe lock. */
+	private void invalidate(long productId) {
+		long locked = lock(Collections.singleton(productId));
+		try {
+			ledger.remove(productId);
+		} finally {
+			unlock(locked);
+		}
+	}
+
+	/** Reads a ledger entry, loading it from PRODUCT first; caller holds the stripe lock. */
+	private Integer load(long productId) {
+		Integer available = ledger.get(productId);
+		if (available == null) {
+			available = productRepository.findQtyById(productId).orElse(null);
+			if (available != null) {
+				ledger.put(productId, available);
+			}
+		}
+		return available;
+	}
+
+	/** Locks the stripes of productIds in ascending order and returns them as a bit mask. */
+	private long lock(Collection<Long> productIds) {
+		long mask = 0L;
+		for (Long productId : productIds) {
+			mask |= 1L << stripeOf(productId);
+		}
+		for (int i = 0; i < STRIPES; i++) {
+			if ((mask & (1L << i)) != 0) {
+				stripes[i].lock();
+			}
+		}
+		return mask;
+	}
+
+	/** Unlocks the stripes in mask. */
+	private void unlock(long mask) {
+		for (int i = STRIPES - 1; i >= 0; i--) {
+			if ((mask & (1L << i)) != 0) {
+				stripes[i].unlock();
+			}
+		}
+	}
+
+	/** Spreads a product id over the stripes with a Fibonacci hash. */
+	private static int stripeOf(long productId) {
+		return (int) ((productId * 0x9E3779B97F4A7C15L) >>> (64 - STRIPE_BITS));
+	}
+
+	/** Counts units per product id, multiplied by sign; null means no line items. */
+	private static SortedMap<Long, Integer> count(Collection<Long> productIds, int sign) {
+		SortedMap<Long, Integer> quantities = new TreeMap<Long, Integer>();
+		if (productIds != null) {
+			productIds.forEach(productId -> quantities.merge(productId, sign, Integer::sum));
+		}
+		return quantities;
+	}
+
+	private static int size(Collection<Long> productIds) {
+		return (productIds == null) ? 0 : productIds.size();
+	}
+}
\ No newline at end of file
@@ -1,78 +1,324 @@
 package rest.springboot.restfulWebService.serviceImpl;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnit;
+
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import rest.springboot.restfulWebService.exception.OutOfStockException;
+import rest.springboot.restfulWebService.exception.UnknownProductException;
+import rest.springboot.restfulWebService.exception.VersionConflictException;
+import rest.springboot.restfulWebService.journal.JournalRecord;
+import rest.springboot.restfulWebService.journal.OrderJournal;
+import rest.springboot.restfulWebService.logging.PayloadLog;
+import rest.springboot.restfulWebService.model.OrderLine;
+import rest.springboot.restfulWebService.model.OrderPatch;
 import rest.springboot.restfulWebService.model.Orders;
 import rest.springboot.restfulWebService.repository.OrdersRepository;
+import rest.springboot.restfulWebService.responseHandler.MultiGetResponse;
+import rest.springboot.restfulWebService.responseHandler.ResponseHandler;
+import rest.springboot.restfulWebService.service.InventoryService;
 import rest.springboot.restfulWebService.service.OrderService;
+import rest.springboot.restfulWebService.service.OrdersChangedEvent;
+import rest.springboot.restfulWebService.service.PriceTable;
+import rest.springboot.restfulWebService.stats.CategoryRevenue;
+import rest.springboot.restfulWebService.stats.OrderStats;
+import rest.springboot.restfulWebService.stats.OrderSummary;
+import rest.springboot.restfulWebService.validation.KnownIds;
+import rest.springboot.restfulWebService.validation.Validator;
 
 @Service
 public class OrdersServiceImpl implements OrderService {
 	/** Logger instance for OrderServiceImpl class. */
 	static final Logger LOGGER = LoggerFactory.getLogger(OrdersServiceImpl.class);
 
+	/** Largest number of ids bound into a single IN list. */
+	static final int IN_CHUNK_SIZE = 500;
+
+	/** Rules every new or replaced order must follow, checked in order. */
+	static final Validator<Orders> ORDER_RULES = Validator.<Orders>builder()
+			.require(order -> order.getUserId() > 0, "Order user id can't be null")
+			.require(order -> order.getProductId() != null && !order.getProductId().isEmpty(),
+					"Order must have at least one product id")
+			.require(order -> noNulls(order.getProductId()), "Order product id can't be null")
+			.build();
+
+	/** Rules the attributes present in an order patch must follow. */
+	static final Validator<OrderPatch> ORDER_PATCH_RULES = Validator.<OrderPatch>builder()
+			.require(patch -> patch.getUserId() == null || patch.getUserId() > 0, "Order user id can't be null")
+			.require(patch -> patch.getProductId() == null || !patch.getProductId().isEmpty(),
+					"Order must have at least one product id")
+			.require(patch -> patch.getProductId() == null || noNulls(patch.getProductId()),
+					"Order product id can't be null")
+			.build();
+
 	/** Injecting object dependency of OrdersRepository. */
 	@Autowired
 	OrdersRepository ordersRepository;
 
+	/** Injecting the persistence context used to detach streamed orders. */
+	@PersistenceContext
+	EntityManager entityManager;
+
+	/** Injecting object dependency of InventoryService. */
+	@Autowired
+	InventoryService inventoryService;
+
+	/** Injecting object dependency of KnownIds. */
+	@Autowired
+	KnownIds knownIds;
+
+	/** Injecting object dependency of PriceTable. */
+	@Autowired
+	PriceTable priceTable;
+
+	/** Injecting object dependency of OrderJournal, when enabled. */
+	@Autowired(required = false)
+	OrderJournal orderJournal;
+
+	/** Injecting object dependency of OrderStats, when enabled. */
+	@Autowired(required = false)
+	OrderStats orderStats;
+
+	/** Injecting object dependency of CategoryRevenue, when enabled. */
+	@Autowired(required = false)
+	CategoryRevenue categoryRevenue;
+
+	/** Injecting the publisher of OrdersChangedEvent. */
+	@Autowired
+	ApplicationEventPublisher eventPublisher;
+
+	/** JDBC batch size Hibernate groups inserts into; bulk loads flush at this size. */
+	@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+	int batchSize;
+
+	/** Number of orders removeOrders deletes per transaction. */
+	@Value("${oms.delete.chunk-size:1000}")
+	int deleteChunkSize;
+
+	/** Injecting the transaction manager used for chunked deletes. */
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	/** Runs each chunk of a bulk delete in a transaction of its own. */
+	private TransactionTemplate chunkTransaction;
+
+	/** Injecting the persistence unit, whose Orders id generator prepareOrder draws from. */
+	@PersistenceUnit
+	EntityManagerFactory entityManagerFactory;
+
+	private SessionFactoryImplementor sessionFactory;
+	private IdentifierGenerator ordersIdGenerator;
+
+	@PostConstruct
+	void init() {
+		chunkTransaction = new TransactionTemplate(transactionManager);
+		sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+		ordersIdGenerator = sessionFactory.getMetamodel().entityPersister(Orders.class).getIdentifierGenerator();
+	}
+
 	/**
 	 * Creates a new order in Orders entity in H2 db.
 	 * Implements save() from OrdersRepository interface to create new order 
-	 * in ORDERS.
+	 * in ORDERS. Stock for every line item is reserved first. Each line keeps
+	 * the current price of its product, from PriceTable, and the order keeps
+	 * their total.
 	 * @param order: Orders JSON containing product id & user id.
-	 * @return Orders: New order created.
+	 * @return Orders: New order created, with its priced lines and total.
+	 * @throws OutOfStockException if any product lacks stock.
 	 */
 	@Transactional
 	public Orders addNewOrder(Orders order) {
 		LOGGER.trace("Creating a new order in ORDERS repo.");
 
+		List<Long> productIds = order.getProductId();
+		inventoryService.reserve(productIds);
 		Orders _order = ordersRepository
-				.save(new Orders(new Date(), order.getProductId(), order.getUserId()));
-		LOGGER.debug("New order created as: {}", _order);
+				.save(new Orders(order.getUserId(), new Date(), priceTable.price(productIds)));
+		PayloadLog.debug(LOGGER, "New order {} created.", _order.getOid(), _order);
+		journal(() -> JournalRecord.created(Collections.singletonList(_order)));
+		recordChange(Collections.<OrderSummary>emptyList(), Collections.singletonList(OrderSummary.of(_order)));
 
 		return _order;	
 	}
 
 	/**
-	 * Retrieves list of all orders from Orders entity in H2 db.
-	 * Implements findAll() from OrdersRepository interface to get the list of all 
-	 * orders from ORDERS.
-	 * @return List<Orders>: List of all orders.
+	 * Creates new orders in bulk in Orders entity in H2 db.
+	 * Order ids come from the pooled orders_seq generator, and the persistence
+	 * context is flushed and cleared every batchSize orders, so inserts for ORDERS
+	 * and their line items go out as JDBC batches and memory stays bounded.
+	 * Stock for the line items of the whole batch is reserved at once, and
+	 * every line is priced as in addNewOrder.
+	 * @param orders: Orders JSON containing product id & user id.
+	 * @return List<Long>: Ids assigned to the new orders, in request order.
+	 * @throws OutOfStockException if any product lacks stock for the batch.
 	 */
 	@Transactional
-	public List<Orders> getAllOrders() {	
-		LOGGER.trace("Retrieving list of orders from ORDERS repo.");
+	public List<Long> addNewOrders(List<Orders> orders) {
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("Creating {} new orders in ORDERS repo.", orders.size());
+		}
 
-		List<Orders> orders = new ArrayList<Orders>();
-		ordersRepository.findAll().forEach(orders::add);
+		Date orderDate = new Date();
+		List<Orders> _orders = new ArrayList<Orders>(orders.size());
+		for (Orders order : orders) {
+			_orders.add(new Orders(order.getUserId(), orderDate, priceTable.price(order.getProductId())));
+		}
 
-		if (orders.isEmpty()) {
-			LOGGER.error("No Order data exists in ORDERS repo.");
-			return null;
+		List<Long> oids = persistAll(_orders, entityManager::persist);
+		journal(() -> JournalRecord.created(_orders));
+		recordChange(Collections.<OrderSummary>emptyList(), OrderSummary.of(_orders));
+		PayloadLog.debug(LOGGER, "{} new orders created.", oids);
+		return oids;
+	}
+
+	/**
+	 * Builds a new order, priced as in addNewOrder, and assigns it an id from
+	 * the orders_seq block without persisting it; a database round trip is
+	 * only made when the block runs out.
+	 * @param order: Orders JSON containing product id & user id.
+	 * @return Orders: Order ready for addPreparedOrders.
+	 * @throws UnknownProductException if a product does not exist.
+	 */
+	public Orders prepareOrder(Orders order) {
+		Orders _order = new Orders(order.getUserId(), new Date(), priceTable.price(order.getProductId()));
+		try (StatelessSession session = sessionFactory.openStatelessSession()) {
+			_order.setOid(((Number) ordersIdGenerator.generate((SharedSessionContractImplementor) session, _order))
+					.longValue());
+		}
+		return _order;
+	}
+
+	/**
+	 * Creates orders built by prepareOrder in Orders entity in H2 db, under the
+	 * ids they were given, as addNewOrders does. They are saved rather than
+	 * persisted, as JPA takes an entity that already has an id for a detached one.
+	 * @param orders: Orders from prepareOrder.
+	 * @return List<Long>: Ids of the orders, in order.
+	 * @throws OutOfStockException if any product lacks stock for the batch.
+	 */
+	@Transactional
+	public List<Long> addPreparedOrders(List<Orders> orders) {
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("Creating {} prepared orders in ORDERS repo.", orders.size());
 		}
 
-		LOGGER.debug("Orders retrieved from ORDERS repo: {}", orders);
+		Session session = entityManager.unwrap(Session.class);
+		List<Long> oids = persistAll(orders, session::save);
+		journal(() -> JournalRecord.created(orders));
+		recordChange(Collections.<OrderSummary>emptyList(), OrderSummary.of(orders));
+		return oids;
+	}
+
+	/**
+	 * Reserves stock for all line items of orders at once, then persists them,
+	 * flushing and clearing the persistence context every batchSize orders.
+	 */
+	private List<Long> persistAll(List<Orders> orders, Consumer<Orders> persist) {
+		List<Long> productIds = new ArrayList<Long>();
+		orders.stream().filter(order -> order.getProductId() != null)
+				.forEach(order -> productIds.addAll(order.getProductId()));
+		inventoryService.reserve(productIds);
+
+		List<Long> oids = new ArrayList<Long>(orders.size());
+		for (Orders order : orders) {
+			persist.accept(order);
+			oids.add(order.getOid());
+
+			if (oids.size() % batchSize == 0) {
+				entityManager.flush();
+				entityManager.clear();
+			}
+		}
+		return oids;
+	}
+
+	/**
+	 * Retrieves one page of orders from Orders entity in H2 db.
+	 * Pages are keyed on order id, so each page is a single index range scan
+	 * starting right after the last order id of the previous page. Line items
+	 * of the whole page are then loaded in one join, so a page always costs two
+	 * statements whatever its size.
+	 * @param after: Order id after which the page starts; 0 for the first page.
+	 * @param limit: Maximum number of orders in the page.
+	 * @return List<Orders>: Orders with id greater than after, in id order.
+	 */
+	@Transactional(readOnly = true)
+	public List<Orders> getAllOrders(long after, int limit) {
+		LOGGER.trace("Retrieving page of orders from ORDERS repo.");
+
+		List<Orders> orders = findInOrder(ordersRepository.findOidsAfter(after, PageRequest.of(0, limit)));
+
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("{} orders retrieved from ORDERS repo after order id {}.", orders.size(), after);
+		}
 		return orders;
 	}
 
+	/**
+	 * Streams all orders from Orders entity in H2 db to the given action.
+	 * Rows are read off a JDBC cursor in order id order and detached once the
+	 * action returns, so memory stays flat regardless of the size of ORDERS.
+	 * @param action: Callback invoked once per order, inside the transaction.
+	 */
+	@Transactional(readOnly = true)
+	public void streamAllOrders(Consumer<Orders> action) {
+		LOGGER.trace("Streaming all orders from ORDERS repo.");
+
+		try (Stream<Orders> orders = ordersRepository.streamAllByOrderByOidAsc()) {
+			orders.forEach(order -> {
+				action.accept(order);
+				entityManager.detach(order);
+			});
+		}
+	}
+
 	/**
 	 * Retrieves order from Orders entity in H2 db based on order id.
 	 * Implements findById() from OrdersRepository interface to retrieve order from 
 	 * ORDERS.
 	 * @param id: Id of order to be retrieved.
-	 * @return Orders: Order data retrieved.
+	 * @return Orders: Order data retrieved, empty if no such order exists.
 	 */
-	@Transactional
+	@Transactional(readOnly = true)
 	public Optional<Orders> getOrderById(long id) {
 		LOGGER.trace("Retrieving order by id from ORDERS repo.");
 
@@ -80,55 +326,345 @@ public class OrdersServiceImpl implements OrderService {
 
 		if (orderData.isPresent()) {
 			LOGGER.debug("Order retrieved from ORDERS repo: {}", orderData);
-			return orderData;
 		} else {
 			LOGGER.error("No such order id exists in ORDERS repo.");
-			return null;
 		}
+		return orderData;
 	}
 
 	/**
-	 * Retrieves order from Orders entity in H2 db based on order date.
-	 * Implements findByDate() from OrdersRepository interface to retrieve order from 
-	 * ORDERS.
-	 * @param orderDate: Date of order to be retrieved.
-	 * @return Orders: Order data retrieved.
+	 * Retrieves orders from Orders entity in H2 db for a list of order ids.
+	 * Orders and their line items are loaded with one IN query per
+	 * IN_CHUNK_SIZE ids.
+	 * @param ids: Ids of orders to be retrieved, without duplicates.
+	 * @return MultiGetResponse<Orders>: Orders in the order of ids, and the ids not found.
 	 */
-	@Transactional
-	public List<Orders> getOrderByDate(Date orderDate) {
-		LOGGER.trace("Retrieving order by date from ORDERS repo.");
+	@Transactional(readOnly = true)
+	public MultiGetResponse<Orders> getOrdersByIds(Collection<Long> ids) {
+		LOGGER.trace("Retrieving orders by id list from ORDERS repo.");
 
-		Optional<Orders> orderData = ordersRepository.findByOrderDate(orderDate);
+		MultiGetResponse<Orders> orders = MultiGetResponse.of(ids, findByOid(new ArrayList<Long>(ids)));
 
-		if (orderData.isPresent()) {
-			LOGGER.debug("Order retrieved from ORDERS repo: {}", orderData);
-			return Collections.singletonList(orderData.get());
-		} else {
-			LOGGER.error("No such order for {} exists in ORDERS repo.", orderDate);
-			return null;
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("{} of {} orders retrieved from ORDERS repo by id.", orders.getItems().size(), ids.size());
 		}
+		return orders;
 	}
 
+	/**
+	 * Retrieves one page of orders placed in [from, to) from Orders entity in H2 db.
+	 * The page of order ids is read off the orderDate index, then the orders and
+	 * their line items are loaded in one join.
+	 * @param from: Inclusive lower bound of order date.
+	 * @param to: Exclusive upper bound of order date.
+	 * @param page: Zero based page number.
+	 * @param size: Number of orders per page.
+	 * @return Slice<Orders>: Orders in order date order, and whether more follow.
+	 */
+	@Transactional(readOnly = true)
+	public Slice<Orders> getOrdersBetween(Date from, Date to, int page, int size) {
+		LOGGER.trace("Retrieving orders by date range from ORDERS repo.");
+
+		Slice<Long> oids = ordersRepository.findOidsByOrderDateRange(from, to, PageRequest.of(page, size));
+		List<Orders> orders = findInOrder(oids.getContent());
+
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("{} orders retrieved from ORDERS repo between {} and {}.", orders.size(), from, to);
+		}
+		return new SliceImpl<>(orders, oids.getPageable(), oids.hasNext());
+	}
+
+	/**
+	 * Retrieves one page of orders placed on the given calendar day, in the
+	 * server's time zone, from Orders entity in H2 db.
+	 * @param day: Calendar day of the orders to be retrieved.
+	 * @param page: Zero based page number.
+	 * @param size: Number of orders per page.
+	 * @return Slice<Orders>: Orders of that day, and whether more follow.
+	 */
+	@Transactional(readOnly = true)
+	public Slice<Orders> getOrdersForDay(LocalDate day, int page, int size) {
+		LOGGER.trace("Retrieving orders by day from ORDERS repo.");
+
+		ZoneId zone = ZoneId.systemDefault();
+		Date from = Date.from(day.atStartOfDay(zone).toInstant());
+		Date to = Date.from(day.plusDays(1).atStartOfDay(zone).toInstant());
+
+		return getOrdersBetween(from, to, page, size);
+	}
+
+	/**
+	 * Retrieves one page of a user's orders, newest first, from Orders entity in H2 db.
+	 * Pages are keyed on (orderDate, oid), so each page is a single range scan of
+	 * the (userId, orderDate) index starting right after the previous page.
+	 * @param userId: Id of user whose orders are to be retrieved.
+	 * @param beforeDate: Order date of the last order of the previous page; null for the first page.
+	 * @param beforeOid: Order id of the last order of the previous page.
+	 * @param limit: Maximum number of orders in the page.
+	 * @return List<Orders>: User's orders, newest first.
+	 */
+	@Transactional(readOnly = true)
+	public List<Orders> getOrdersByUser(long userId, Date beforeDate, long beforeOid, int limit) {
+		LOGGER.trace("Retrieving orders of user from ORDERS repo.");
+
+		Pageable pageable = PageRequest.of(0, limit);
+		List<Long> oids = (beforeDate == null)
+				? ordersRepository.findOidsByUser(userId, pageable)
+				: ordersRepository.findOidsByUserBefore(userId, beforeDate, beforeOid, pageable);
+		List<Orders> orders = findInOrder(oids);
+
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("{} orders of user {} retrieved from ORDERS repo.", orders.size(), userId);
+		}
+		return orders;
+	}
+
+	/**
+	 * Updates order in Orders entity in H2 db.
+	 * The order is read once with its line items and changed in place, so the
+	 * update is flushed without a merge. Stock is exchanged for the net change
+	 * in line items, and the new line items are priced at current prices.
+	 * @param id: Id of order to be updated.
+	 * @param order: Order's data to be updated to.
+	 * @return Optional<Orders>: Order's data updated, empty if no such order.
+	 * @throws OutOfStockException if any added product lacks stock.
+	 */
 	@Transactional
-	public Orders updateOrderData(Orders order) {
+	public Optional<Orders> updateOrderData(long id, Orders order) {
 		LOGGER.trace("Updating order data in ORDERS repo.");
 
-		Orders _order = ordersRepository.save(order);
-		LOGGER.debug("Order updated to: {}", _order);
+		Optional<Orders> orderData = ordersRepository.findById(id);
+		orderData.ifPresent(_order -> {
+			OrderSummary before = OrderSummary.of(_order);
+			inventoryService.exchange(new ArrayList<Long>(_order.getProductId()), order.getProductId());
+			_order.setOrderDate(new Date());
+			_order.setLines(priceTable.price(order.getProductId()));
+			_order.setUserId(order.getUserId());
+			journal(() -> Collections.singletonList(JournalRecord.updated(_order)));
+			recordChange(Collections.singletonList(before), Collections.singletonList(OrderSummary.of(_order)));
+			PayloadLog.debug(LOGGER, "Order {} updated.", _order.getOid(), _order);
+		});
 
-		return _order;
+		return orderData;
+	}
+
+	/**
+	 * Applies a partial update to an order in Orders entity in H2 db, if it is
+	 * still at the given version. The order row is changed by one conditional
+	 * UPDATE that also bumps its version; line items, when given, are priced
+	 * at current prices and the order's total updated with it, then replace
+	 * the current ones with stock exchanged for the net change. The order
+	 * itself is never loaded; only its user, date and totals are read first,
+	 * for the views of ORDERS by user and by day.
+	 * @param id: Id of order to be updated.
+	 * @param version: Version of the order the patch was made against.
+	 * @param patch: Attributes to change; null ones are left as is.
+	 * @return Optional<Long>: New version of the order, empty if no such order.
+	 * @throws VersionConflictException if the order is at another version.
+	 * @throws OutOfStockException if any added product lacks stock.
+	 */
+	@Transactional
+	public Optional<Long> patchOrder(long id, long version, OrderPatch patch) {
+		LOGGER.trace("Patching order data in ORDERS repo.");
+
+		List<OrderLine> lines = priceTable.price(patch.getProductId());
+		Long total = (lines == null) ? null : Orders.total(lines);
+		Date orderDate = new Date();
+		// Only the views of ORDERS need the order as it was.
+		OrderSummary before = (orderStats == null && categoryRevenue == null) ? null
+				: ordersRepository.findSummaryByOidAndVersion(id, version).orElse(null);
+		if (ordersRepository.patch(id, version, patch.getUserId(), total, orderDate) == 0) {
+			if (!ordersRepository.existsById(id)) {
+				return Optional.empty();
+			}
+			throw new VersionConflictException(version, "Order " + id + " is no longer at version " + version + ".");
+		}
+
+		if (lines != null) {
+			inventoryService.exchange(ordersRepository.findProductIdsByOid(id), patch.getProductId());
+			ordersRepository.deleteProductIdsByOidIn(Collections.singletonList(id));
+			lines.forEach(line -> ordersRepository.insertLine(id, line.getProductId(), line.getUnitPrice()));
+		}
+		journal(() -> Collections
+				.singletonList(JournalRecord.patched(id, version + 1, patch.getUserId(), orderDate, lines)));
+		if (before != null) {
+			recordChange(Collections.singletonList(before),
+					Collections.singletonList(before.patched(patch.getUserId(), orderDate, lines)));
+		}
+
+		LOGGER.debug("Order {} patched to version {}.", id, version + 1);
+		return Optional.of(version + 1);
 	}
 
+	/**
+	 * Deletes an order and its line items from Orders entity in H2 db, and
+	 * returns the stock of its line items.
+	 * @param id: Id of order to be deleted.
+	 * @throws EmptyResultDataAccessException if no such order exists.
+	 */
 	@Transactional
 	public void removeOrder(long id) {
 		LOGGER.trace("Deleting order data from ORDERS repo.");
 
-		ordersRepository.deleteById(id);
+		Orders order = ordersRepository.findById(id)
+				.orElseThrow(() -> new EmptyResultDataAccessException("No order " + id + " exists.", 1));
+		inventoryService.release(order.getProductId());
+		ordersRepository.delete(order);
+		journal(() -> JournalRecord.deleted(Collections.singletonList(id)));
+		recordChange(Collections.singletonList(OrderSummary.of(order)), Collections.<OrderSummary>emptyList());
 	}
 
-	public void removeOrders() {
+	/**
+	 * Deletes all orders and their line items from Orders entity in H2 db.
+	 * Orders are deleted by id in chunks of deleteChunkSize, each chunk in its
+	 * own transaction, without loading any of them; the stock of each chunk's
+	 * line items is returned in the same transaction. Order totals are rebuilt
+	 * in the background afterwards rather than adjusted per order.
+	 * @return long: Number of orders deleted.
+	 */
+	public long removeOrders() {
 		LOGGER.trace("Deleteing all orders from ORDERS repo.");
 
-		ordersRepository.deleteAll();
+		long deleted = ChunkedDelete.run(chunkTransaction, deleteChunkSize, ordersRepository::findOidsAfter, oids -> {
+			inventoryService.release(ordersRepository.findProductIdsByOidIn(oids));
+			ordersRepository.deleteProductIdsByOidIn(oids);
+			journal(() -> JournalRecord.deleted(oids));
+			return ordersRepository.deleteByOidIn(oids);
+		}, LOGGER, "ORDERS");
+		if (orderStats != null) {
+			orderStats.rebuildLater();
+		}
+		eventPublisher.publishEvent(OrdersChangedEvent.allDays());
+		return deleted;
+	}
+
+	/** Journals the changes built by records once the transaction commits, if the journal is enabled. */
+	private void journal(Supplier<List<JournalRecord>> records) {
+		if (orderJournal != null) {
+			orderJournal.appendAfterCommit(records);
+		}
+	}
+
+	/**
+	 * Records a change to orders in the views of ORDERS: the totals of
+	 * OrderStats, if enabled, and an OrdersChangedEvent for the days touched.
+	 */
+	private void recordChange(List<OrderSummary> removed, List<OrderSummary> added) {
+		if (orderStats != null) {
+			orderStats.recordAfterCommit(removed, added);
+		}
+
+		Set<LocalDate> days = new HashSet<LocalDate>();
+		removed.forEach(summary -> days.add(summary.getDay()));
+		added.forEach(summary -> days.add(summary.getDay()));
+		eventPublisher.publishEvent(new OrdersChangedEvent(days));
+	}
+
+	/**
+	 * Loads the given orders with their line items and returns them in the
+	 * order of oids; ids with no order are skipped.
+	 */
+	private List<Orders> findInOrder(List<Long> oids) {
+		if (oids.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		Map<Long, Orders> byOid = findByOid(oids);
+
+		List<Orders> orders = new ArrayList<Orders>(oids.size());
+		for (Long oid : oids) {
+			Orders order = byOid.get(oid);
+			if (order != null) {
+				orders.add(order);
+			}
+		}
+		return orders;
+	}
+
+	/**
+	 * Loads the given orders with their line items, one statement per
+	 * IN_CHUNK_SIZE ids, keyed by order id.
+	 */
+	private Map<Long, Orders> findByOid(List<Long> oids) {
+		Map<Long, Orders> byOid = new HashMap<Long, Orders>();
+		for (int from = 0; from < oids.size(); from += IN_CHUNK_SIZE) {
+			List<Long> chunk = oids.subList(from, Math.min(from + IN_CHUNK_SIZE, oids.size()));
+			ordersRepository.findWithProductIdByOidIn(chunk).forEach(order -> byOid.put(order.getOid(), order));
+		}
+		return byOid;
+	}
+
+	/**
+	 * Validates the request body of a new or replaced order, including that
+	 * its user and products exist.
+	 * @param order: Orders JSON to validate.
+	 * @return ResponseHandler: ResponseHandler.VALID, or the first rule broken.
+	 */
+	public ResponseHandler validateOrder(Orders order) {
+		ResponseHandler result = ORDER_RULES.validate(order);
+		if (result != ResponseHandler.VALID) {
+			return result;
+		}
+		return checkReferences(Collections.singleton(order.getUserId()), order.getProductId());
+	}
+
+	/**
+	 * Validates the request bodies of a batch of new orders. The users and
+	 * products they refer to are checked for the whole batch at once.
+	 * @param orders: Orders JSON to validate.
+	 * @return ResponseHandler: ResponseHandler.VALID, or the first rule broken.
+	 */
+	public ResponseHandler validateOrders(List<Orders> orders) {
+		Set<Long> userIds = new HashSet<Long>();
+		Set<Long> productIds = new HashSet<Long>();
+		for (Orders order : orders) {
+			ResponseHandler result = ORDER_RULES.validate(order);
+			if (result != ResponseHandler.VALID) {
+				return result;
+			}
+			userIds.add(order.getUserId());
+			productIds.addAll(order.getProductId());
+		}
+		return checkReferences(userIds, productIds);
+	}
+
+	/**
+	 * Validates the request body of a partial order update, including that
+	 * the user and products it changes to exist.
+	 * @param patch: OrderPatch JSON to validate; null attributes are not checked.
+	 * @return ResponseHandler: ResponseHandler.VALID, or the first rule broken.
+	 */
+	public ResponseHandler validateOrderPatch(OrderPatch patch) {
+		ResponseHandler result = ORDER_PATCH_RULES.validate(patch);
+		if (result != ResponseHandler.VALID) {
+			return result;
+		}
+		return checkReferences(
+				patch.getUserId() == null ? Collections.<Long>emptySet() : Collections.singleton(patch.getUserId()),
+				patch.getProductId() == null ? Collections.<Long>emptySet() : patch.getProductId());
+	}
+
+	/** Rejects orders referring to users or products that do not exist. */
+	private ResponseHandler checkReferences(Collection<Long> userIds, Collection<Long> productIds) {
+		Set<Long> unknown = knownIds.unknownProducts(productIds);
+		if (!unknown.isEmpty()) {
+			return new ResponseHandler(HttpStatus.BAD_REQUEST, "Products " + unknown + " do not exist.");
+		}
+
+		unknown = knownIds.unknownUsers(userIds);
+		if (!unknown.isEmpty()) {
+			return new ResponseHandler(HttpStatus.BAD_REQUEST, "Users " + unknown + " do not exist.");
+		}
+		return ResponseHandler.VALID;
+	}
+
+	/** Tells whether ids has no null element. */
+	private static boolean noNulls(List<Long> ids) {
+		for (Long id : ids) {
+			if (id == null) {
+				return false;
+			}
+		}
+		return true;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,549 @@
+package rest.springboot.restfulWebService.serviceImpl;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+
+import rest.springboot.restfulWebService.exception.OutOfStockException;
+import rest.springboot.restfulWebService.exception.ShardKeyChangeException;
+import rest.springboot.restfulWebService.exception.UnknownProductException;
+import rest.springboot.restfulWebService.exception.VersionConflictException;
+import rest.springboot.restfulWebService.journal.OrderJournal;
+import rest.springboot.restfulWebService.logging.PayloadLog;
+import rest.springboot.restfulWebService.model.OrderLine;
+import rest.springboot.restfulWebService.model.OrderPatch;
+import rest.springboot.restfulWebService.model.Orders;
+import rest.springboot.restfulWebService.responseHandler.MultiGetResponse;
+import rest.springboot.restfulWebService.responseHandler.ResponseHandler;
+import rest.springboot.restfulWebService.service.InventoryService;
+import rest.springboot.restfulWebService.service.OrderService;
+import rest.springboot.restfulWebService.service.PriceTable;
+import rest.springboot.restfulWebService.sharding.OrderKey;
+import rest.springboot.restfulWebService.sharding.OrderShard;
+import rest.springboot.restfulWebService.sharding.OrderShards;
+import rest.springboot.restfulWebService.sharding.ShardKeys;
+import rest.springboot.restfulWebService.stats.CategoryRevenue;
+import rest.springboot.restfulWebService.stats.OrderStats;
+
+/**
+ * ShardedOrdersServiceImpl keeps orders on the shards of OrderShards instead
+ * of spring.datasource, each order in the bucket of its user. Order ids are
+ * drawn from orders_seq, as by OrdersServiceImpl, with the bucket encoded in
+ * them; lookups by order id or by user go to a single shard, while listing
+ * and date queries are sent to every shard and their pages merged.
+ * Validation is left to OrdersServiceImpl, as users and products stay on
+ * spring.datasource. Enabled with oms.shards.enabled=true.
+ * The order journal, order totals and revenue analytics read and replay
+ * ORDERS on spring.datasource, so the application refuses to start with
+ * any of them enabled as well.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "oms.shards.enabled", havingValue = "true")
+public class ShardedOrdersServiceImpl implements OrderService {
+	/** Logger instance for ShardedOrdersServiceImpl class. */
+	static final Logger LOGGER = LoggerFactory.getLogger(ShardedOrdersServiceImpl.class);
+
+	/** Number of orders streamAllOrders reads per page. */
+	static final int STREAM_PAGE_SIZE = 500;
+
+	/** Injecting object dependency of OrderShards. */
+	@Autowired
+	OrderShards orderShards;
+
+	/** Injecting the unsharded OrderService, for validation and orders_seq ids. */
+	@Autowired
+	OrdersServiceImpl ordersServiceImpl;
+
+	/** Injecting object dependency of InventoryService. */
+	@Autowired
+	InventoryService inventoryService;
+
+	/** Injecting object dependency of PriceTable. */
+	@Autowired
+	PriceTable priceTable;
+
+	/** Injecting object dependency of OrderJournal, which must not be enabled. */
+	@Autowired(required = false)
+	OrderJournal orderJournal;
+
+	/** Injecting object dependency of OrderStats, which must not be enabled. */
+	@Autowired(required = false)
+	OrderStats orderStats;
+
+	/** Injecting object dependency of CategoryRevenue, which must not be enabled. */
+	@Autowired(required = false)
+	CategoryRevenue categoryRevenue;
+
+	/** Number of orders removeOrders deletes per transaction. */
+	@Value("${oms.delete.chunk-size:1000}")
+	int deleteChunkSize;
+
+	@PostConstruct
+	void checkFeatures() {
+		List<String> unsupported = new ArrayList<String>();
+		if (orderJournal != null) {
+			unsupported.add("oms.journal.enabled");
+		}
+		if (orderStats != null) {
+			unsupported.add("oms.stats.enabled");
+		}
+		if (categoryRevenue != null) {
+			unsupported.add("oms.analytics.enabled");
+		}
+		if (!unsupported.isEmpty()) {
+			throw new IllegalStateException("oms.shards.enabled=true does not support " + unsupported
+					+ ", which only see ORDERS on spring.datasource; set them to false.");
+		}
+	}
+
+	/**
+	 * Creates a new order on the shard of its user, priced and with stock
+	 * reserved as in OrdersServiceImpl.addNewOrder.
+	 * @param order: Orders JSON containing product id & user id.
+	 * @return Orders: New order created, with its priced lines and total.
+	 * @throws OutOfStockException if any product lacks stock.
+	 */
+	public Orders addNewOrder(Orders order) {
+		LOGGER.trace("Creating a new order in ORDERS shards.");
+
+		Orders _order = prepareOrder(order);
+		insertAll(Collections.singletonList(_order));
+		PayloadLog.debug(LOGGER, "New order {} created.", _order.getOid(), _order);
+
+		return _order;
+	}
+
+	/**
+	 * Creates new orders in bulk on the shards of their users; see insertAll.
+	 * @param orders: Orders JSON containing product id & user id.
+	 * @return List<Long>: Ids assigned to the new orders, in request order.
+	 * @throws OutOfStockException if any product lacks stock for the batch.
+	 */
+	public List<Long> addNewOrders(List<Orders> orders) {
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("Creating {} new orders in ORDERS shards.", orders.size());
+		}
+
+		List<Orders> _orders = new ArrayList<Orders>(orders.size());
+		for (Orders order : orders) {
+			_orders.add(prepareOrder(order));
+		}
+
+		List<Long> oids = insertAll(_orders);
+		PayloadLog.debug(LOGGER, "{} new orders created.", oids);
+		return oids;
+	}
+
+	/**
+	 * Builds a new order as OrdersServiceImpl.prepareOrder does, with the
+	 * bucket of its user encoded in its id.
+	 * @param order: Orders JSON containing product id & user id.
+	 * @return Orders: Order ready for addPreparedOrders.
+	 * @throws UnknownProductException if a product does not exist.
+	 */
+	public Orders prepareOrder(Orders order) {
+		Orders _order = ordersServiceImpl.prepareOrder(order);
+		_order.setOid(ShardKeys.orderId(_order.getOid(), ShardKeys.bucketOfUser(_order.getUserId())));
+		return _order;
+	}
+
+	/**
+	 * Creates orders built by prepareOrder on the shards of their users,
+	 * under the ids they were given; see insertAll.
+	 * @param orders: Orders from prepareOrder.
+	 * @return List<Long>: Ids of the orders, in order.
+	 * @throws OutOfStockException if any product lacks stock for the batch.
+	 */
+	public List<Long> addPreparedOrders(List<Orders> orders) {
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("Creating {} prepared orders in ORDERS shards.", orders.size());
+		}
+
+		return insertAll(orders);
+	}
+
+	/**
+	 * Inserts orders on their shards and reserves stock for all their line
+	 * items. Every shard involved gets a transaction of its own, nested in
+	 * the previous one, and stock is reserved in the innermost; nothing is
+	 * committed unless all inserts and the reservation succeed. Should a
+	 * commit itself fail, shards committed before it keep their orders.
+	 */
+	private List<Long> insertAll(List<Orders> orders) {
+		Map<OrderShard, List<Orders>> byShard = new HashMap<OrderShard, List<Orders>>();
+		List<Long> productIds = new ArrayList<Long>();
+		List<Long> oids = new ArrayList<Long>(orders.size());
+		for (Orders order : orders) {
+			byShard.computeIfAbsent(orderShards.forOrder(order.getOid()), shard -> new ArrayList<Orders>())
+					.add(order);
+			if (order.getProductId() != null) {
+				productIds.addAll(order.getProductId());
+			}
+			oids.add(order.getOid());
+		}
+
+		insertNested(new ArrayList<Map.Entry<OrderShard, List<Orders>>>(byShard.entrySet()), 0, productIds);
+		return oids;
+	}
+
+	private void insertNested(List<Map.Entry<OrderShard, List<Orders>>> byShard, int next,
+			List<Long> productIds) {
+		if (next == byShard.size()) {
+			inventoryService.reserve(productIds);
+			return;
+		}
+
+		OrderShard shard = byShard.get(next).getKey();
+		shard.inTransaction(() -> {
+			shard.insert(byShard.get(next).getValue());
+			insertNested(byShard, next + 1, productIds);
+			return null;
+		});
+	}
+
+	/**
+	 * Retrieves one page of orders from all shards. Every shard returns its
+	 * first limit order ids after the cursor; these are merged, as order ids
+	 * follow orders_seq whatever their bucket, and the first limit loaded.
+	 * @param after: Order id after which the page starts; 0 for the first page.
+	 * @param limit: Maximum number of orders in the page.
+	 * @return List<Orders>: Orders with id greater than after, in id order.
+	 */
+	public List<Orders> getAllOrders(long after, int limit) {
+		LOGGER.trace("Retrieving page of orders from ORDERS shards.");
+
+		List<List<Long>> pages = orderShards.scatter(shard -> shard.findOidsAfter(after, limit));
+		List<Orders> orders = findInOrder(OrderShards.merge(pages, Comparator.<Long>naturalOrder(), limit));
+
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("{} orders retrieved from ORDERS shards after order id {}.", orders.size(), after);
+		}
+		return orders;
+	}
+
+	/**
+	 * Streams all orders to the given action, in order id order, a page of
+	 * STREAM_PAGE_SIZE from getAllOrders at a time.
+	 * @param action: Callback invoked once per order.
+	 */
+	public void streamAllOrders(Consumer<Orders> action) {
+		LOGGER.trace("Streaming all orders from ORDERS shards.");
+
+		List<Orders> page;
+		long after = Long.MIN_VALUE;
+		while (!(page = getAllOrders(after, STREAM_PAGE_SIZE)).isEmpty()) {
+			page.forEach(action);
+			after = page.get(page.size() - 1).getOid();
+		}
+	}
+
+	/**
+	 * Retrieves order from the shard its id names.
+	 * @param id: Id of order to be retrieved.
+	 * @return Optional<Orders>: Order data retrieved, empty if no such order.
+	 */
+	public Optional<Orders> getOrderById(long id) {
+		LOGGER.trace("Retrieving order by id from ORDERS shards.");
+
+		Optional<Orders> orderData = Optional.ofNullable(findOne(orderShards.forOrder(id), id));
+
+		if (orderData.isPresent()) {
+			LOGGER.debug("Order retrieved from ORDERS shards: {}", orderData);
+		} else {
+			LOGGER.error("No such order id exists in ORDERS shards.");
+		}
+		return orderData;
+	}
+
+	/**
+	 * Retrieves orders for a list of order ids, querying only the shards the
+	 * ids name, all at once.
+	 * @param ids: Ids of orders to be retrieved, without duplicates.
+	 * @return MultiGetResponse<Orders>: Orders in the order of ids, and the ids not found.
+	 */
+	public MultiGetResponse<Orders> getOrdersByIds(Collection<Long> ids) {
+		LOGGER.trace("Retrieving orders by id list from ORDERS shards.");
+
+		MultiGetResponse<Orders> orders = MultiGetResponse.of(ids, findByOid(ids));
+
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("{} of {} orders retrieved from ORDERS shards by id.", orders.getItems().size(), ids.size());
+		}
+		return orders;
+	}
+
+	/**
+	 * Retrieves one page of orders placed in [from, to) from all shards.
+	 * Every shard returns the keys of its first (page + 1) * size + 1 orders
+	 * in the range; these are merged and the page cut out of the result, so
+	 * deep pages read more keys off every shard.
+	 * @param from: Inclusive lower bound of order date.
+	 * @param to: Exclusive upper bound of order date.
+	 * @param page: Zero based page number.
+	 * @param size: Number of orders per page.
+	 * @return Slice<Orders>: Orders in order date order, and whether more follow.
+	 */
+	public Slice<Orders> getOrdersBetween(Date from, Date to, int page, int size) {
+		LOGGER.trace("Retrieving orders by date range from ORDERS shards.");
+
+		int end = Math.toIntExact((page + 1L) * size);
+		List<List<OrderKey>> pages = orderShards.scatter(shard -> shard.findKeysBetween(from, to, end + 1));
+		List<OrderKey> keys = OrderShards.merge(pages, OrderKey.BY_ORDER_DATE, end + 1);
+
+		List<Long> oids = new ArrayList<Long>(size);
+		for (OrderKey key : keys.subList(Math.min(page * size, keys.size()), Math.min(end, keys.size()))) {
+			oids.add(key.getOid());
+		}
+		List<Orders> orders = findInOrder(oids);
+
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("{} orders retrieved from ORDERS shards between {} and {}.", orders.size(), from, to);
+		}
+		return new SliceImpl<>(orders, PageRequest.of(page, size), keys.size() > end);
+	}
+
+	/**
+	 * Retrieves one page of orders placed on the given calendar day, in the
+	 * server's time zone, from all shards.
+	 * @param day: Calendar day of the orders to be retrieved.
+	 * @param page: Zero based page number.
+	 * @param size: Number of orders per page.
+	 * @return Slice<Orders>: Orders of that day, and whether more follow.
+	 */
+	public Slice<Orders> getOrdersForDay(LocalDate day, int page, int size) {
+		LOGGER.trace("Retrieving orders by day from ORDERS shards.");
+
+		ZoneId zone = ZoneId.systemDefault();
+		Date from = Date.from(day.atStartOfDay(zone).toInstant());
+		Date to = Date.from(day.plusDays(1).atStartOfDay(zone).toInstant());
+
+		return getOrdersBetween(from, to, page, size);
+	}
+
+	/**
+	 * Retrieves one page of a user's orders, newest first, from the user's
+	 * shard only; see OrdersServiceImpl.getOrdersByUser.
+	 * @param userId: Id of user whose orders are to be retrieved.
+	 * @param beforeDate: Order date of the last order of the previous page; null for the first page.
+	 * @param beforeOid: Order id of the last order of the previous page.
+	 * @param limit: Maximum number of orders in the page.
+	 * @return List<Orders>: User's orders, newest first.
+	 */
+	public List<Orders> getOrdersByUser(long userId, Date beforeDate, long beforeOid, int limit) {
+		LOGGER.trace("Retrieving orders of user from ORDERS shards.");
+
+		List<Orders> orders = findInOrder(
+				orderShards.forUser(userId).findOidsByUser(userId, beforeDate, beforeOid, limit));
+
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("{} orders of user {} retrieved from ORDERS shards.", orders.size(), userId);
+		}
+		return orders;
+	}
+
+	/**
+	 * Updates order on its shard, as OrdersServiceImpl.updateOrderData does,
+	 * in a transaction on that shard. The row is only written if no other
+	 * update got there since it was read.
+	 * @param id: Id of order to be updated.
+	 * @param order: Order's data to be updated to.
+	 * @return Optional<Orders>: Order's data updated, empty if no such order.
+	 * @throws OutOfStockException if any added product lacks stock.
+	 * @throws ShardKeyChangeException if the new user's orders are kept in another bucket.
+	 * @throws VersionConflictException if the order was updated meanwhile.
+	 */
+	public Optional<Orders> updateOrderData(long id, Orders order) {
+		LOGGER.trace("Updating order data in ORDERS shards.");
+
+		OrderShard shard = orderShards.forOrder(id);
+		return shard.inTransaction(() -> {
+			Orders _order = findOne(shard, id);
+			if (_order == null) {
+				return Optional.<Orders>empty();
+			}
+			if (!sameBucket(id, order.getUserId())) {
+				throw bucketChange(id, order.getUserId());
+			}
+
+			long version = _order.getVersion();
+			inventoryService.exchange(_order.getProductId(), order.getProductId());
+			_order.setOrderDate(new Date());
+			_order.setLines(priceTable.price(order.getProductId()));
+			_order.setUserId(order.getUserId());
+			if (shard.update(_order) == 0) {
+				throw new VersionConflictException(version, "Order " + id + " is no longer at version " + version + ".");
+			}
+			shard.replaceLines(id, _order.getLines());
+			_order.setVersion(version + 1);
+
+			PayloadLog.debug(LOGGER, "Order {} updated.", _order.getOid(), _order);
+			return Optional.of(_order);
+		});
+	}
+
+	/**
+	 * Applies a partial update to an order on its shard, if it is still at
+	 * the given version, as OrdersServiceImpl.patchOrder does.
+	 * @param id: Id of order to be updated.
+	 * @param version: Version of the order the patch was made against.
+	 * @param patch: Attributes to change; null ones are left as is.
+	 * @return Optional<Long>: New version of the order, empty if no such order.
+	 * @throws VersionConflictException if the order is at another version.
+	 * @throws OutOfStockException if any added product lacks stock.
+	 * @throws ShardKeyChangeException if the new user's orders are kept in another bucket.
+	 */
+	public Optional<Long> patchOrder(long id, long version, OrderPatch patch) {
+		LOGGER.trace("Patching order data in ORDERS shards.");
+
+		OrderShard shard = orderShards.forOrder(id);
+		List<OrderLine> lines = priceTable.price(patch.getProductId());
+		Long total = (lines == null) ? null : Orders.total(lines);
+		return shard.inTransaction(() -> {
+			if (patch.getUserId() != null && !sameBucket(id, patch.getUserId())) {
+				if (shard.findExistingOids(Collections.singletonList(id)).isEmpty()) {
+					return Optional.<Long>empty();
+				}
+				throw bucketChange(id, patch.getUserId());
+			}
+
+			if (shard.patch(id, version, patch.getUserId(), total, new Date()) == 0) {
+				if (shard.findExistingOids(Collections.singletonList(id)).isEmpty()) {
+					return Optional.<Long>empty();
+				}
+				throw new VersionConflictException(version,
+						"Order " + id + " is no longer at version " + version + ".");
+			}
+
+			if (lines != null) {
+				inventoryService.exchange(shard.findProductIdsByOid(id), patch.getProductId());
+				shard.replaceLines(id, lines);
+			}
+
+			LOGGER.debug("Order {} patched to version {}.", id, version + 1);
+			return Optional.of(version + 1);
+		});
+	}
+
+	/**
+	 * Deletes an order and its line items from its shard, and returns the
+	 * stock of its line items, in one transaction on that shard.
+	 * @param id: Id of order to be deleted.
+	 * @throws EmptyResultDataAccessException if no such order exists.
+	 */
+	public void removeOrder(long id) {
+		LOGGER.trace("Deleting order data from ORDERS shards.");
+
+		OrderShard shard = orderShards.forOrder(id);
+		shard.inTransaction(() -> {
+			if (shard.findExistingOids(Collections.singletonList(id)).isEmpty()) {
+				throw new EmptyResultDataAccessException("No order " + id + " exists.", 1);
+			}
+			inventoryService.release(shard.findProductIdsByOid(id));
+			return shard.delete(Collections.singletonList(id));
+		});
+	}
+
+	/**
+	 * Deletes all orders and their line items from every shard, in chunks of
+	 * deleteChunkSize as OrdersServiceImpl.removeOrders does, one shard at a
+	 * time; the stock of each chunk's line items is returned in the chunk's
+	 * transaction.
+	 * @return long: Number of orders deleted.
+	 */
+	public long removeOrders() {
+		LOGGER.trace("Deleteing all orders from ORDERS shards.");
+
+		long deleted = 0;
+		for (OrderShard shard : orderShards.getShards()) {
+			deleted += ChunkedDelete.run(shard.getTransaction(), deleteChunkSize,
+					(after, chunk) -> shard.findOidsAfter(after, chunk.getPageSize()), oids -> {
+						inventoryService.release(shard.findProductIdsByOids(oids));
+						return shard.delete(oids);
+					}, LOGGER, "ORDERS on " + shard.getName());
+		}
+		return deleted;
+	}
+
+	public ResponseHandler validateOrder(Orders order) {
+		return ordersServiceImpl.validateOrder(order);
+	}
+
+	public ResponseHandler validateOrders(List<Orders> orders) {
+		return ordersServiceImpl.validateOrders(orders);
+	}
+
+	public ResponseHandler validateOrderPatch(OrderPatch patch) {
+		return ordersServiceImpl.validateOrderPatch(patch);
+	}
+
+	/** Tells whether the user's orders are kept in the bucket of the order. */
+	private static boolean sameBucket(long oid, long userId) {
+		return ShardKeys.bucketOfUser(userId) == ShardKeys.bucketOfOrder(oid);
+	}
+
+	private static ShardKeyChangeException bucketChange(long oid, long userId) {
+		return new ShardKeyChangeException("Order " + oid + " can't be moved to user " + userId
+				+ ", whose orders are kept in another bucket.");
+	}
+
+	/** Loads one order with its line items from shard; null if missing. */
+	private static Orders findOne(OrderShard shard, long oid) {
+		return shard.findByOids(Collections.singletonList(oid)).get(oid);
+	}
+
+	/**
+	 * Loads the given orders with their line items and returns them in the
+	 * order of oids; ids with no order are skipped.
+	 */
+	private List<Orders> findInOrder(List<Long> oids) {
+		if (oids.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		Map<Long, Orders> byOid = findByOid(oids);
+
+		List<Orders> orders = new ArrayList<Orders>(oids.size());
+		for (Long oid : oids) {
+			Orders order = byOid.get(oid);
+			if (order != null) {
+				orders.add(order);
+			}
+		}
+		return orders;
+	}
+
+	/** Loads the given orders with their line items from their shards at once, keyed by order id. */
+	private Map<Long, Orders> findByOid(Collection<Long> oids) {
+		Map<OrderShard, List<Long>> byShard = orderShards.groupByShard(oids);
+
+		Map<Long, Orders> byOid = new HashMap<Long, Orders>();
+		orderShards.scatter(byShard.keySet(), shard -> shard.findByOids(byShard.get(shard))).forEach(byOid::putAll);
+		return byOid;
+	}
+}
\ No newline at end of file
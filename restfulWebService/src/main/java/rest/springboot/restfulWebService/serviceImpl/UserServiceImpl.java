@@ -2,20 +2,40 @@ package rest.springboot.restfulWebService.serviceImpl;
 
 import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import rest.springboot.restfulWebService.exception.DuplicateEmailException;
+import rest.springboot.restfulWebService.exception.VersionConflictException;
+import rest.springboot.restfulWebService.filter.EmailFilter;
+import rest.springboot.restfulWebService.logging.PayloadLog;
 import rest.springboot.restfulWebService.model.User;
+import rest.springboot.restfulWebService.model.UserPatch;
 import rest.springboot.restfulWebService.repository.UserRepository;
+import rest.springboot.restfulWebService.responseHandler.MultiGetResponse;
 import rest.springboot.restfulWebService.responseHandler.ResponseHandler;
 import rest.springboot.restfulWebService.service.UserService;
+import rest.springboot.restfulWebService.validation.KnownIds;
+import rest.springboot.restfulWebService.validation.Validator;
 
 /**
  * UserService class provides methods containing business logic for USER entity.
@@ -29,30 +49,87 @@ public class UserServiceImpl implements UserService {
 	/** Logger instance for UserService class. */
 	private static final Logger LOGGER = LoggerFactory.getLogger(UserServiceImpl.class);
 
+	/** Largest number of ids bound into a single IN list. */
+	static final int IN_CHUNK_SIZE = 500;
+
+	/** User names are letters only. */
+	static final Pattern NAME = Pattern.compile("[a-zA-Z]*");
+
+	/** Rules a new or replaced user must follow, checked in order. */
+	static final Validator<User> USER_RULES = Validator.<User>builder()
+			.notNull(User::getName, "User name can't be null")
+			.matches(User::getName, NAME, "User name must be a string.")
+			.notNull(User::getAddress, "User address can't be null")
+			.require(user -> user.getPhone() != 0, "User phone number can't be null")
+			.notNull(User::getEmail, "User email id can't be null")
+			.build();
+
+	/** Rules the attributes present in a user patch must follow. */
+	static final Validator<UserPatch> USER_PATCH_RULES = Validator.<UserPatch>builder()
+			.matches(UserPatch::getName, NAME, "User name must be a string.")
+			.require(patch -> patch.getPhone() == null || patch.getPhone() != 0, "User phone number can't be null")
+			.build();
+
 	/** Injecting object dependency of UserRepository. */
 	@Autowired
 	UserRepository userRepository;
 
+	/** Injecting object dependency of EmailFilter. */
+	@Autowired
+	EmailFilter emailFilter;
+
+	/** Injecting object dependency of KnownIds. */
+	@Autowired
+	KnownIds knownIds;
+
+	/** Injecting the persistence context used to detach streamed users. */
+	@PersistenceContext
+	EntityManager entityManager;
+
+	/** Number of users removeUsers deletes per transaction. */
+	@Value("${oms.delete.chunk-size:1000}")
+	int deleteChunkSize;
+
+	/** Injecting the transaction manager used for chunked deletes. */
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	/** Runs each chunk of a bulk delete in a transaction of its own. */
+	private TransactionTemplate chunkTransaction;
+
+	@PostConstruct
+	void init() {
+		chunkTransaction = new TransactionTemplate(transactionManager);
+	}
+
 	/**
 	 * Creates a new user in User entity in H2 db.
 	 * Implements save() from UserRepository interface to create new user 
 	 * in USER.
+	 * The email id is looked up in USER first only if EmailFilter cannot
+	 * tell that it is new.
 	 * @param user: User JSON containing name, address, phone & email of
 	 * user to be created.
 	 * @return User: new user created.
+	 * @throws DuplicateEmailException if the email id belongs to another user.
 	 */
 	@Transactional
 	public User addNewUser(User user) throws SQLIntegrityConstraintViolationException {
 		LOGGER.trace("Creating a new user in USER repo.");
 
+		if (emailFilter.isRegistered(user.getEmail(), userRepository::existsByEmail)) {
+			throw new DuplicateEmailException("Email id " + user.getEmail() + " belongs to another user.");
+		}
+
 		User _user = userRepository
 				.save(new User(user.getName(), user.getAddress(), user.getPhone(), user.getEmail()));
 		
 		if(null == _user) {
 			return null;
 		}
+		emailFilter.add(_user.getEmail());
 		
-		LOGGER.debug("New user created as: {}", _user);
+		PayloadLog.debug(LOGGER, "New user {} created.", _user.getUid(), _user);
 		
 		return _user;
 	}
@@ -63,7 +140,7 @@ public class UserServiceImpl implements UserService {
 	 * users from USER.
 	 * @return List<User>: List of all users.
 	 */
-	@Transactional
+	@Transactional(readOnly = true)
 	public List<User> getAllUsers() {	
 		LOGGER.trace("Retrieving list of users from USER repo.");
 
@@ -75,18 +152,36 @@ public class UserServiceImpl implements UserService {
 			return null;
 		}
 
-		LOGGER.debug("Users retrieved from USER repo: {}", users);
+		PayloadLog.debug(LOGGER, "{} users retrieved from USER repo.", users);
 		return users;
 	}
 
+	/**
+	 * Streams all users from User entity in H2 db to the given action.
+	 * Rows are read off a JDBC cursor in user id order and detached once the
+	 * action returns, so memory stays flat regardless of the size of USER.
+	 * @param action: Callback invoked once per user, inside the transaction.
+	 */
+	@Transactional(readOnly = true)
+	public void streamAllUsers(Consumer<User> action) {
+		LOGGER.trace("Streaming all users from USER repo.");
+
+		try (Stream<User> users = userRepository.streamAllByOrderByUidAsc()) {
+			users.forEach(user -> {
+				action.accept(user);
+				entityManager.detach(user);
+			});
+		}
+	}
+
 	/**
 	 * Retrieves user from User entity in H2 db based on user's id.
 	 * Implements findById() from UserRepository interface to retrieve user from 
 	 * USER.
 	 * @param id: Id of user to be retrieved.
-	 * @return User: User's data retrieved.
+	 * @return User: User's data retrieved, empty if no such user exists.
 	 */
-	@Transactional
+	@Transactional(readOnly = true)
 	public Optional<User> getUser(long id) {
 		LOGGER.trace("Retrieving user by id from USER repo.");
 
@@ -94,28 +189,93 @@ public class UserServiceImpl implements UserService {
 
 		if (userData.isPresent()) {
 			LOGGER.debug("User retrieved from USER repo: {}", userData);
-			return userData;
 		} else {
 			LOGGER.error("No such user id exists in USER repo.");
-			return null;
 		}
+		return userData;
+	}
+
+	/**
+	 * Retrieves users from User entity in H2 db for a list of user ids.
+	 * Users are loaded with one IN query per IN_CHUNK_SIZE ids.
+	 * @param ids: Ids of users to be retrieved, without duplicates.
+	 * @return MultiGetResponse<User>: Users in the order of ids, and the ids not found.
+	 */
+	@Transactional(readOnly = true)
+	public MultiGetResponse<User> getUsersByIds(Collection<Long> ids) {
+		LOGGER.trace("Retrieving users by id list from USER repo.");
+
+		List<Long> uids = new ArrayList<Long>(ids);
+		Map<Long, User> byUid = new HashMap<Long, User>();
+		for (int from = 0; from < uids.size(); from += IN_CHUNK_SIZE) {
+			List<Long> chunk = uids.subList(from, Math.min(from + IN_CHUNK_SIZE, uids.size()));
+			userRepository.findAllById(chunk).forEach(user -> byUid.put(user.getUid(), user));
+		}
+		MultiGetResponse<User> users = MultiGetResponse.of(uids, byUid);
+
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("{} of {} users retrieved from USER repo by id.", users.getItems().size(), ids.size());
+		}
+		return users;
 	}
 
 	/**
 	 * Updates user in User entity in H2 db.
-	 * Implements save() from UserRepository interface to update user's 
-	 * data in USER.
+	 * The user is read once and changed in place, so the update is flushed
+	 * without a merge.
+	 * @param id: Id of user to be updated.
 	 * @param user: User's data to be updated to.
-	 * @return User: User's data updated.
+	 * @return Optional<User>: User's data updated, empty if no such user.
 	 */
 	@Transactional
-	public User updateUserData(User user) {
+	public Optional<User> updateUserData(long id, User user) {
 		LOGGER.trace("Updating user data in USER repo.");
 
-		User _user = userRepository.save(user);
-		LOGGER.debug("User updated to: {}", _user);
+		Optional<User> userData = userRepository.findById(id);
+		userData.ifPresent(_user -> {
+			if (user.getEmail() != null && !user.getEmail().equals(_user.getEmail())) {
+				emailFilter.add(user.getEmail());
+				emailFilter.removed(1);
+			}
+			_user.setName(user.getName());
+			_user.setAddress(user.getAddress());
+			_user.setPhone(user.getPhone());
+			_user.setEmail(user.getEmail());
+			PayloadLog.debug(LOGGER, "User {} updated.", _user.getUid(), _user);
+		});
+
+		return userData;
+	}
 
-		return _user;
+	/**
+	 * Applies a partial update to a user in User entity in H2 db, if it is
+	 * still at the given version, with one conditional UPDATE that also bumps
+	 * its version. The user itself is never loaded.
+	 * @param id: Id of user to be updated.
+	 * @param version: Version of the user the patch was made against.
+	 * @param patch: Attributes to change; null ones are left as is.
+	 * @return Optional<Long>: New version of the user, empty if no such user.
+	 * @throws VersionConflictException if the user is at another version.
+	 */
+	@Transactional
+	public Optional<Long> patchUser(long id, long version, UserPatch patch) {
+		LOGGER.trace("Patching user data in USER repo.");
+
+		if (userRepository.patch(id, version, patch.getName(), patch.getAddress(), patch.getPhone(),
+				patch.getEmail()) == 0) {
+			if (!userRepository.existsById(id)) {
+				return Optional.empty();
+			}
+			throw new VersionConflictException(version, "User " + id + " is no longer at version " + version + ".");
+		}
+
+		if (patch.getEmail() != null) {
+			emailFilter.add(patch.getEmail());
+			emailFilter.removed(1);
+		}
+
+		LOGGER.debug("User {} patched to version {}.", id, version + 1);
+		return Optional.of(version + 1);
 	}
 
 	/**
@@ -128,45 +288,42 @@ public class UserServiceImpl implements UserService {
 		LOGGER.trace("Deleting user data from USER repo.");
 
 		userRepository.deleteById(id);
+		emailFilter.removed(1);
+		knownIds.forgetUser(id);
 	}
 	
 	/**
 	 * Deletes all users from User entity in H2 db.
-	 * Implements deleteAll() from UserRepository interface to delete all users from USER.
+	 * Users are deleted by id in chunks of deleteChunkSize, each chunk in its
+	 * own transaction, without loading any of them. EmailFilter is rebuilt
+	 * afterwards, as it cannot forget the deleted email ids.
+	 * @return long: Number of users deleted.
 	 */
-	@Transactional
-	public void removeUsers() {
+	public long removeUsers() {
 		LOGGER.trace("Deleteing all users from USER repo.");
 
-		userRepository.deleteAll();
+		long deleted = ChunkedDelete.run(chunkTransaction, deleteChunkSize, userRepository::findUidsAfter,
+				userRepository::deleteByUidIn, LOGGER, "USER");
+		emailFilter.rebuild();
+		knownIds.forgetUsers();
+		return deleted;
 	}
 
+	/**
+	 * Validates the request body of a new or replaced user.
+	 * @param user: User JSON to validate.
+	 * @return ResponseHandler: ResponseHandler.VALID, or the first rule broken.
+	 */
 	public ResponseHandler validateUser(User user) {
-		
-		if(user.getName() == null) {
-			LOGGER.error("Name of user is null");
-			return new ResponseHandler(HttpStatus.BAD_REQUEST, "User name can't be null");
-		}
-		if(!(user.getName().matches("^[a-zA-Z]*$"))) {
-			LOGGER.error("Name of user must be a string.");
-			return new ResponseHandler(HttpStatus.BAD_REQUEST, "User name must be a string.");
-		}
-		
-		if(user.getAddress() == null) {
-			LOGGER.error("Address of user is null");
-			return new ResponseHandler(HttpStatus.BAD_REQUEST, "User address can't be null");
-		}
-		
-		if(user.getPhone() == 0) {
-			LOGGER.error("Phone number of user is null");
-			return new ResponseHandler(HttpStatus.BAD_REQUEST, "User phone number can't be null");
-		}
-		
-		if(user.getEmail() == null) {
-			LOGGER.error("Email id of user is null");
-			return new ResponseHandler(HttpStatus.BAD_REQUEST, "User email id can't be null");
-		}
-		
-		return new ResponseHandler(HttpStatus.OK, "User request body is valid");
+		return USER_RULES.validate(user);
+	}
+
+	/**
+	 * Validates the request body of a partial user update.
+	 * @param patch: UserPatch JSON to validate; null attributes are not checked.
+	 * @return ResponseHandler: ResponseHandler.VALID, or the first rule broken.
+	 */
+	public ResponseHandler validateUserPatch(UserPatch patch) {
+		return USER_PATCH_RULES.validate(patch);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package rest.springboot.restfulWebService.sharding;
+
+import java.util.Comparator;
+import java.util.Date;
+
+/**
+ * OrderKey class provides holder for the sort key of an order in date
+ * queries, so pages can be merged across shards before any order is loaded.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class OrderKey {
+
+	/** Order of date queries: by order date, then order id. */
+	public static final Comparator<OrderKey> BY_ORDER_DATE = Comparator.comparing(OrderKey::getOrderDate)
+			.thenComparingLong(OrderKey::getOid);
+
+	private final long oid;
+	private final Date orderDate;
+
+	public OrderKey(long oid, Date orderDate) {
+		this.oid = oid;
+		this.orderDate = orderDate;
+	}
+
+	public long getOid() {
+		return oid;
+	}
+
+	public Date getOrderDate() {
+		return orderDate;
+	}
+}
\ No newline at end of file
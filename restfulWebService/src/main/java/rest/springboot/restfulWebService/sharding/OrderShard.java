@@ -0,0 +1,319 @@
+package rest.springboot.restfulWebService.sharding;
+
+import java.io.Closeable;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import rest.springboot.restfulWebService.model.OrderLine;
+import rest.springboot.restfulWebService.model.Orders;
+
+/**
+ * OrderShard class provides access to ORDERS and its line items on one
+ * shard. The tables are those JPA maps Orders to, read and written over
+ * plain JDBC, as the persistence unit is bound to spring.datasource.
+ * Statements run in the shard's transaction when inside inTransaction, and
+ * on their own otherwise.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class OrderShard implements Closeable {
+
+	/** Script creating the tables and indexes of a shard, where missing. */
+	static final String SCHEMA = "shard-schema.sql";
+
+	/** Largest number of ids bound into a single IN list. */
+	static final int IN_CHUNK_SIZE = 500;
+
+	private static final String INSERT_ORDER = "insert into orders (oid, user_id, total, order_date, version)"
+			+ " values (:oid, :userId, :total, :orderDate, :version)";
+	private static final String INSERT_LINE = "insert into orders_product_id (orders_oid, product_id, unit_price)"
+			+ " values (:oid, :productId, :unitPrice)";
+	private static final String SELECT_ORDERS = "select oid, user_id, order_date, version from orders"
+			+ " where oid in (:oids)";
+	private static final String SELECT_LINES = "select orders_oid, product_id, unit_price from orders_product_id"
+			+ " where orders_oid in (:oids)";
+	private static final String SELECT_OIDS = "select oid from orders where oid in (:oids)";
+	private static final String SELECT_OIDS_AFTER = "select oid from orders where oid > :after order by oid"
+			+ " limit :limit";
+	private static final String SELECT_KEYS_BETWEEN = "select oid, order_date from orders"
+			+ " where order_date >= :from and order_date < :to order by order_date, oid limit :limit";
+	private static final String SELECT_OIDS_BY_USER = "select oid from orders where user_id = :userId"
+			+ " order by order_date desc, oid desc limit :limit";
+	private static final String SELECT_OIDS_BY_USER_BEFORE = "select oid from orders where user_id = :userId"
+			+ " and (order_date < :beforeDate or (order_date = :beforeDate and oid < :beforeOid))"
+			+ " order by order_date desc, oid desc limit :limit";
+	private static final String SELECT_PRODUCT_IDS = "select product_id from orders_product_id"
+			+ " where orders_oid = :oid";
+	private static final String SELECT_PRODUCT_IDS_IN = "select product_id from orders_product_id"
+			+ " where orders_oid in (:oids)";
+	private static final String UPDATE_ORDER = "update orders set user_id = :userId, total = :total,"
+			+ " order_date = :orderDate, version = version + 1 where oid = :oid and version = :version";
+	private static final String PATCH_ORDER = "update orders set user_id = coalesce(:userId, user_id),"
+			+ " total = coalesce(:total, total), order_date = :orderDate, version = version + 1"
+			+ " where oid = :oid and version = :version";
+	private static final String DELETE_LINES = "delete from orders_product_id where orders_oid in (:oids)";
+	private static final String DELETE_ORDERS = "delete from orders where oid in (:oids)";
+	private static final String COUNT_ORDERS = "select count(*) from orders";
+
+	private final int index;
+	private final HikariDataSource dataSource;
+	private final NamedParameterJdbcTemplate jdbc;
+	private final TransactionTemplate transaction;
+
+	public OrderShard(int index, HikariDataSource dataSource) {
+		this.index = index;
+		this.dataSource = dataSource;
+		this.jdbc = new NamedParameterJdbcTemplate(dataSource);
+		this.transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+	}
+
+	/**
+	 * Creates the tables and indexes of SCHEMA that do not exist yet. Failed
+	 * statements are skipped, as there is no portable "if not exists" for
+	 * indexes; countOrders tells whether the tables are usable.
+	 */
+	public void createSchema() {
+		new ResourceDatabasePopulator(true, false, "UTF-8", new ClassPathResource(SCHEMA)).execute(dataSource);
+	}
+
+	/** Position of the shard in oms.shards.nodes. */
+	public int getIndex() {
+		return index;
+	}
+
+	/** Name of the shard and of its connection pool. */
+	public String getName() {
+		return dataSource.getPoolName();
+	}
+
+	/** Template running work in a transaction on this shard. */
+	public TransactionTemplate getTransaction() {
+		return transaction;
+	}
+
+	/**
+	 * Runs work in a transaction on this shard, rolled back if it throws.
+	 * @param work: Statements to run against this shard.
+	 * @return T: Result of work.
+	 */
+	public <T> T inTransaction(Supplier<T> work) {
+		return transaction.execute(status -> work.get());
+	}
+
+	/**
+	 * Inserts orders and their line items, as two JDBC batches.
+	 * @param orders: Orders with their ids assigned.
+	 */
+	public void insert(Collection<Orders> orders) {
+		List<SqlParameterSource> rows = new ArrayList<SqlParameterSource>(orders.size());
+		List<SqlParameterSource> lines = new ArrayList<SqlParameterSource>();
+		for (Orders order : orders) {
+			rows.add(new MapSqlParameterSource("oid", order.getOid()).addValue("userId", order.getUserId())
+					.addValue("total", order.getTotal()).addValue("orderDate", order.getOrderDate())
+					.addValue("version", order.getVersion()));
+			addLines(lines, order.getOid(), order.getLines());
+		}
+
+		jdbc.batchUpdate(INSERT_ORDER, rows.toArray(new SqlParameterSource[rows.size()]));
+		jdbc.batchUpdate(INSERT_LINE, lines.toArray(new SqlParameterSource[lines.size()]));
+	}
+
+	/**
+	 * Loads the given orders with their line items, two statements per
+	 * IN_CHUNK_SIZE ids, keyed by order id. Ids with no order are skipped.
+	 * @param oids: Ids of orders on this shard.
+	 * @return Map<Long, Orders>: Orders found, by id.
+	 */
+	public Map<Long, Orders> findByOids(Collection<Long> oids) {
+		Map<Long, Orders> byOid = new HashMap<Long, Orders>();
+		for (List<Long> chunk : chunks(oids)) {
+			MapSqlParameterSource params = new MapSqlParameterSource("oids", chunk);
+
+			Map<Long, List<OrderLine>> lines = new HashMap<Long, List<OrderLine>>();
+			jdbc.query(SELECT_LINES, params, rs -> {
+				lines.computeIfAbsent(rs.getLong(1), oid -> new ArrayList<OrderLine>())
+						.add(new OrderLine(rs.getLong(2), rs.getLong(3)));
+			});
+
+			jdbc.query(SELECT_ORDERS, params, rs -> {
+				long oid = rs.getLong(1);
+				List<OrderLine> _lines = lines.get(oid);
+				Orders order = new Orders(rs.getLong(2), toDate(rs.getTimestamp(3)),
+						_lines == null ? new ArrayList<OrderLine>() : _lines);
+				order.setOid(oid);
+				order.setVersion(rs.getLong(4));
+				byOid.put(oid, order);
+			});
+		}
+		return byOid;
+	}
+
+	/**
+	 * Tells which of the given orders exist on this shard.
+	 * @param oids: Ids of orders.
+	 * @return List<Long>: Ids of those on this shard.
+	 */
+	public List<Long> findExistingOids(Collection<Long> oids) {
+		List<Long> existing = new ArrayList<Long>();
+		for (List<Long> chunk : chunks(oids)) {
+			existing.addAll(jdbc.queryForList(SELECT_OIDS, new MapSqlParameterSource("oids", chunk), Long.class));
+		}
+		return existing;
+	}
+
+	/**
+	 * Page of order ids greater than after, ascending, off the primary key.
+	 * @param after: Order id after which the page starts.
+	 * @param limit: Maximum number of ids.
+	 * @return List<Long>: Order ids, ascending.
+	 */
+	public List<Long> findOidsAfter(long after, int limit) {
+		return jdbc.queryForList(SELECT_OIDS_AFTER,
+				new MapSqlParameterSource("after", after).addValue("limit", limit), Long.class);
+	}
+
+	/**
+	 * First keys of orders placed in [from, to), off the orderDate index.
+	 * @param from: Inclusive lower bound of order date.
+	 * @param to: Exclusive upper bound of order date.
+	 * @param limit: Maximum number of keys.
+	 * @return List<OrderKey>: Keys in OrderKey.BY_ORDER_DATE order.
+	 */
+	public List<OrderKey> findKeysBetween(Date from, Date to, int limit) {
+		return jdbc.query(SELECT_KEYS_BETWEEN,
+				new MapSqlParameterSource("from", from).addValue("to", to).addValue("limit", limit),
+				(rs, row) -> new OrderKey(rs.getLong(1), toDate(rs.getTimestamp(2))));
+	}
+
+	/**
+	 * Page of a user's order ids, newest first, off the (userId, orderDate)
+	 * index; see OrdersRepository.findOidsByUserBefore.
+	 * @param userId: Id of the user.
+	 * @param beforeDate: Order date of the last order of the previous page; null for the first page.
+	 * @param beforeOid: Order id of the last order of the previous page.
+	 * @param limit: Maximum number of ids.
+	 * @return List<Long>: Order ids, newest first.
+	 */
+	public List<Long> findOidsByUser(long userId, Date beforeDate, long beforeOid, int limit) {
+		MapSqlParameterSource params = new MapSqlParameterSource("userId", userId).addValue("limit", limit);
+		if (beforeDate == null) {
+			return jdbc.queryForList(SELECT_OIDS_BY_USER, params, Long.class);
+		}
+		return jdbc.queryForList(SELECT_OIDS_BY_USER_BEFORE,
+				params.addValue("beforeDate", beforeDate).addValue("beforeOid", beforeOid), Long.class);
+	}
+
+	/** Line items of an order, without loading the order. */
+	public List<Long> findProductIdsByOid(long oid) {
+		return jdbc.queryForList(SELECT_PRODUCT_IDS, new MapSqlParameterSource("oid", oid), Long.class);
+	}
+
+	/** Line items of the given orders, without loading the orders. */
+	public List<Long> findProductIdsByOids(List<Long> oids) {
+		return jdbc.queryForList(SELECT_PRODUCT_IDS_IN, new MapSqlParameterSource("oids", oids), Long.class);
+	}
+
+	/**
+	 * Writes an order changed in memory and bumps its version, if it is
+	 * still at the version it was read at. Line items are not written.
+	 * @param order: Order as changed, still at the version it was read at.
+	 * @return int: 1 if updated, 0 if missing or at another version.
+	 */
+	public int update(Orders order) {
+		return jdbc.update(UPDATE_ORDER, new MapSqlParameterSource("oid", order.getOid())
+				.addValue("version", order.getVersion()).addValue("userId", order.getUserId())
+				.addValue("total", order.getTotal()).addValue("orderDate", order.getOrderDate()));
+	}
+
+	/**
+	 * Applies a partial update to an order, if it is still at the given
+	 * version, and bumps the version; see OrdersRepository.patch.
+	 * @return int: 1 if updated, 0 if missing or at another version.
+	 */
+	public int patch(long oid, long version, Long userId, Long total, Date orderDate) {
+		return jdbc.update(PATCH_ORDER, new MapSqlParameterSource("oid", oid).addValue("version", version)
+				.addValue("userId", userId, Types.BIGINT).addValue("total", total, Types.BIGINT)
+				.addValue("orderDate", orderDate));
+	}
+
+	/**
+	 * Replaces the line items of an order.
+	 * @param oid: Id of the order.
+	 * @param lines: New line items.
+	 */
+	public void replaceLines(long oid, List<OrderLine> lines) {
+		jdbc.update(DELETE_LINES, new MapSqlParameterSource("oids", Collections.singletonList(oid)));
+
+		List<SqlParameterSource> _lines = new ArrayList<SqlParameterSource>(lines.size());
+		addLines(_lines, oid, lines);
+		jdbc.batchUpdate(INSERT_LINE, _lines.toArray(new SqlParameterSource[_lines.size()]));
+	}
+
+	/**
+	 * Deletes the given orders and their line items without loading them.
+	 * @param oids: Ids of orders, at most IN_CHUNK_SIZE.
+	 * @return int: Number of orders deleted.
+	 */
+	public int delete(List<Long> oids) {
+		MapSqlParameterSource params = new MapSqlParameterSource("oids", oids);
+		jdbc.update(DELETE_LINES, params);
+		return jdbc.update(DELETE_ORDERS, params);
+	}
+
+	/** Number of orders on this shard. */
+	public long countOrders() {
+		return jdbc.getJdbcTemplate().queryForObject(COUNT_ORDERS, Long.class);
+	}
+
+	/** Closes the shard's connection pool. */
+	@Override
+	public void close() {
+		dataSource.close();
+	}
+
+	private static void addLines(List<SqlParameterSource> rows, long oid, List<OrderLine> lines) {
+		if (lines != null) {
+			for (OrderLine line : lines) {
+				rows.add(new MapSqlParameterSource("oid", oid).addValue("productId", line.getProductId())
+						.addValue("unitPrice", line.getUnitPrice()));
+			}
+		}
+	}
+
+	private static List<List<Long>> chunks(Collection<Long> ids) {
+		List<Long> _ids = (ids instanceof List) ? (List<Long>) ids : new ArrayList<Long>(ids);
+		List<List<Long>> chunks = new ArrayList<List<Long>>();
+		for (int from = 0; from < _ids.size(); from += IN_CHUNK_SIZE) {
+			chunks.add(_ids.subList(from, Math.min(from + IN_CHUNK_SIZE, _ids.size())));
+		}
+		return chunks;
+	}
+
+	/** Reads timestamps as plain Dates, which compare symmetrically with the Dates of new orders. */
+	private static Date toDate(Timestamp timestamp) {
+		return (timestamp == null) ? null : new Date(timestamp.getTime());
+	}
+
+	@Override
+	public String toString() {
+		return getName();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,180 @@
+package rest.springboot.restfulWebService.sharding;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import rest.springboot.restfulWebService.model.ShardBucket;
+
+/**
+ * OrderShards class maps buckets of ShardKeys onto the configured shards, as
+ * assigned in SHARD_BUCKET, and runs queries on several shards at once. The
+ * assignment is read at start and reread by ShardRebalancer, which changes
+ * it only once a bucket's orders have been copied to its new shard.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class OrderShards implements Closeable {
+
+	private final List<OrderShard> shards;
+
+	/** Index of the shard keeping every bucket. */
+	private volatile int[] owners;
+
+	/** Runs scatter queries, one thread per shard. */
+	private final ExecutorService scatterPool;
+
+	public OrderShards(List<OrderShard> shards) {
+		this.shards = Collections.unmodifiableList(new ArrayList<OrderShard>(shards));
+
+		AtomicInteger threads = new AtomicInteger();
+		this.scatterPool = Executors.newFixedThreadPool(shards.size(), runnable -> {
+			Thread thread = new Thread(runnable, "oms-shard-scatter-" + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/** Shards, in the order of oms.shards.nodes. */
+	public List<OrderShard> getShards() {
+		return shards;
+	}
+
+	/**
+	 * Takes the shard of every bucket from SHARD_BUCKET.
+	 * @param buckets: One row per bucket.
+	 * @throws IllegalStateException if a bucket is missing, or kept on a shard
+	 * not in oms.shards.nodes, whose orders could not be read.
+	 */
+	public void assign(Collection<ShardBucket> buckets) {
+		if (buckets.size() != ShardKeys.BUCKETS) {
+			throw new IllegalStateException("SHARD_BUCKET must have " + ShardKeys.BUCKETS + " rows, not "
+					+ buckets.size() + ".");
+		}
+		int[] assigned = new int[ShardKeys.BUCKETS];
+		for (ShardBucket bucket : buckets) {
+			if (bucket.getShard() < 0 || bucket.getShard() >= shards.size()) {
+				throw new IllegalStateException("Bucket " + bucket.getBucket() + " is kept on shard "
+						+ bucket.getShard() + ", which is not in oms.shards.nodes.");
+			}
+			assigned[bucket.getBucket()] = bucket.getShard();
+		}
+		owners = assigned;
+	}
+
+	/** Shard keeping the given bucket. */
+	public OrderShard forBucket(int bucket) {
+		return shards.get(owners[bucket]);
+	}
+
+	/** Shard keeping the orders of the given user. */
+	public OrderShard forUser(long userId) {
+		return forBucket(ShardKeys.bucketOfUser(userId));
+	}
+
+	/** Shard keeping the given order. */
+	public OrderShard forOrder(long oid) {
+		return forBucket(ShardKeys.bucketOfOrder(oid));
+	}
+
+	/**
+	 * Splits order ids by the shard keeping them.
+	 * @param oids: Ids of orders.
+	 * @return Map<OrderShard, List<Long>>: Ids per shard, in the order given.
+	 */
+	public Map<OrderShard, List<Long>> groupByShard(Collection<Long> oids) {
+		Map<OrderShard, List<Long>> byShard = new LinkedHashMap<OrderShard, List<Long>>();
+		for (Long oid : oids) {
+			byShard.computeIfAbsent(forOrder(oid), shard -> new ArrayList<Long>()).add(oid);
+		}
+		return byShard;
+	}
+
+	/**
+	 * Runs a query on every shard at once.
+	 * @param query: Query to run against one shard.
+	 * @return List<T>: Result of every shard, in the order of getShards.
+	 */
+	public <T> List<T> scatter(Function<OrderShard, T> query) {
+		return scatter(shards, query);
+	}
+
+	/**
+	 * Runs a query on the given shards at once; a single shard is queried on
+	 * the calling thread. The first failure is rethrown once all are done.
+	 * @param targets: Shards to query.
+	 * @param query: Query to run against one shard.
+	 * @return List<T>: Result of every shard, in the order of targets.
+	 */
+	public <T> List<T> scatter(Collection<OrderShard> targets, Function<OrderShard, T> query) {
+		if (targets.size() == 1) {
+			return Collections.singletonList(query.apply(targets.iterator().next()));
+		}
+
+		List<CompletableFuture<T>> futures = new ArrayList<CompletableFuture<T>>(targets.size());
+		for (OrderShard shard : targets) {
+			futures.add(CompletableFuture.supplyAsync(() -> query.apply(shard), scatterPool));
+		}
+
+		try {
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+		} catch (CompletionException ce) {
+			if (ce.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ce.getCause();
+			}
+			throw ce;
+		}
+
+		List<T> results = new ArrayList<T>(futures.size());
+		futures.forEach(future -> results.add(future.join()));
+		return results;
+	}
+
+	/**
+	 * Merges lists sorted in the given order into one, stopping at limit
+	 * elements; each list is read only as far as the merge needs.
+	 * @param sorted: Lists, each sorted in order.
+	 * @param order: Order of the lists and of the result.
+	 * @param limit: Maximum number of elements merged.
+	 * @return List<T>: First limit elements of all lists, in order.
+	 */
+	public static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> order, int limit) {
+		int[] next = new int[sorted.size()];
+		PriorityQueue<Integer> heads = new PriorityQueue<Integer>(Math.max(1, sorted.size()),
+				(a, b) -> order.compare(sorted.get(a).get(next[a]), sorted.get(b).get(next[b])));
+		for (int i = 0; i < sorted.size(); i++) {
+			if (!sorted.get(i).isEmpty()) {
+				heads.add(i);
+			}
+		}
+
+		List<T> merged = new ArrayList<T>();
+		while (merged.size() < limit && !heads.isEmpty()) {
+			int i = heads.poll();
+			merged.add(sorted.get(i).get(next[i]++));
+			if (next[i] < sorted.get(i).size()) {
+				heads.add(i);
+			}
+		}
+		return merged;
+	}
+
+	/** Stops the scatter threads and closes the shards' connection pools. */
+	@Override
+	public void close() {
+		scatterPool.shutdown();
+		shards.forEach(OrderShard::close);
+	}
+}
\ No newline at end of file
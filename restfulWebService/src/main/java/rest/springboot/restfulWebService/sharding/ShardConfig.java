@@ -0,0 +1,81 @@
+package rest.springboot.restfulWebService.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import rest.springboot.restfulWebService.datasource.DataSourceNode;
+import rest.springboot.restfulWebService.model.ShardBucket;
+import rest.springboot.restfulWebService.repository.ShardBucketRepository;
+
+/**
+ * ShardConfig sets up the shards in oms.shards.nodes that ORDERS is spread
+ * over, creating their tables where missing, and reads which shard keeps
+ * each bucket from SHARD_BUCKET. Users, products, the orders_seq sequence and
+ * SHARD_BUCKET stay on spring.datasource.
+ * Enabled with oms.shards.enabled=true.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Configuration
+@ConditionalOnProperty(name = "oms.shards.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardProperties.class)
+public class ShardConfig {
+
+	/** Logger instance for ShardConfig class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ShardConfig.class);
+
+	/**
+	 * Shards of ORDERS. Their pools are not DataSource beans, so JPA and
+	 * schema initialization keep to spring.datasource.
+	 */
+	@Bean
+	public OrderShards orderShards(ShardProperties shardProperties, ShardBucketRepository shardBucketRepository) {
+		List<DataSourceNode> nodes = shardProperties.getNodes();
+		if (nodes.isEmpty() || nodes.size() > ShardKeys.BUCKETS) {
+			throw new IllegalStateException("oms.shards.nodes must list 1 to " + ShardKeys.BUCKETS
+					+ " shards, not " + nodes.size() + ".");
+		}
+
+		List<OrderShard> shards = new ArrayList<OrderShard>(nodes.size());
+		for (DataSourceNode node : nodes) {
+			OrderShard shard = new OrderShard(shards.size(), node.build("shard-" + shards.size()));
+			shards.add(shard);
+			shard.createSchema();
+			LOGGER.info("Shard {} at {} holds {} orders.", shard.getName(), node.getUrl(), shard.countOrders());
+		}
+		OrderShards orderShards = new OrderShards(shards);
+		orderShards.assign(loadAssignment(shardBucketRepository, shards.size()));
+		return orderShards;
+	}
+
+	/**
+	 * Reads SHARD_BUCKET, filling it on first start with bucket b on shard
+	 * b % shards, where orders were kept before the assignment was stored.
+	 */
+	private List<ShardBucket> loadAssignment(ShardBucketRepository shardBucketRepository, int shards) {
+		List<ShardBucket> buckets = shardBucketRepository.findAll();
+		if (!buckets.isEmpty()) {
+			return buckets;
+		}
+
+		buckets = new ArrayList<ShardBucket>(ShardKeys.BUCKETS);
+		for (int bucket = 0; bucket < ShardKeys.BUCKETS; bucket++) {
+			buckets.add(new ShardBucket(bucket, bucket % shards));
+		}
+		try {
+			shardBucketRepository.saveAll(buckets);
+			LOGGER.info("Assigned {} buckets to {} shards.", ShardKeys.BUCKETS, shards);
+		} catch (DataIntegrityViolationException dive) {
+			LOGGER.debug("SHARD_BUCKET was filled by another instance.");
+		}
+		return shardBucketRepository.findAll();
+	}
+}
\ No newline at end of file
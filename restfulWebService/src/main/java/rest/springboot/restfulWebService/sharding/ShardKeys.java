@@ -0,0 +1,61 @@
+package rest.springboot.restfulWebService.sharding;
+
+/**
+ * ShardKeys places users and their orders into buckets. A user's bucket is
+ * a hash of the user id; an order is kept in its user's bucket, which is
+ * encoded in the low BUCKET_BITS of the order id, so an order can be found
+ * from its id alone. Buckets are mapped onto shards by OrderShards; the
+ * number of buckets is fixed so that adding shards moves whole buckets and
+ * never changes an order id.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public final class ShardKeys {
+
+	/** Log2 of the number of buckets. */
+	public static final int BUCKET_BITS = 10;
+
+	/** Number of buckets; also the largest number of shards. */
+	public static final int BUCKETS = 1 << BUCKET_BITS;
+
+	private static final long BUCKET_MASK = BUCKETS - 1;
+
+	private ShardKeys() {
+	}
+
+	/**
+	 * Bucket of a user's orders. Ids are mixed first (the MurmurHash3
+	 * finalizer), so sequential user ids spread over all buckets.
+	 * @param userId: Id of the user.
+	 * @return int: Bucket in [0, BUCKETS).
+	 */
+	public static int bucketOfUser(long userId) {
+		long hash = userId;
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return (int) (hash & BUCKET_MASK);
+	}
+
+	/**
+	 * Bucket encoded in an order id by orderId.
+	 * @param oid: Id of the order.
+	 * @return int: Bucket in [0, BUCKETS).
+	 */
+	public static int bucketOfOrder(long oid) {
+		return (int) (oid & BUCKET_MASK);
+	}
+
+	/**
+	 * Builds a globally unique order id from a value of orders_seq and the
+	 * bucket of the order's user. Ids keep the order of the sequence.
+	 * @param sequence: Value drawn from orders_seq.
+	 * @param bucket: Bucket of the order's user.
+	 * @return long: Order id.
+	 */
+	public static long orderId(long sequence, int bucket) {
+		return sequence << BUCKET_BITS | bucket;
+	}
+}
\ No newline at end of file
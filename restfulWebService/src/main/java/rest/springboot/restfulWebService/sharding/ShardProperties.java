@@ -0,0 +1,43 @@
+package rest.springboot.restfulWebService.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import rest.springboot.restfulWebService.datasource.DataSourceNode;
+
+/**
+ * ShardProperties class provides holder for the oms.shards.* settings: the
+ * databases ORDERS is spread over.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@ConfigurationProperties("oms.shards")
+public class ShardProperties {
+
+	/** Whether orders are kept on the shards instead of spring.datasource. */
+	private boolean enabled;
+
+	/**
+	 * Shards, in order; SHARD_BUCKET assigns buckets to them by index. New
+	 * shards go at the end, and none can be removed.
+	 */
+	private List<DataSourceNode> nodes = new ArrayList<DataSourceNode>();
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public List<DataSourceNode> getNodes() {
+		return nodes;
+	}
+
+	public void setNodes(List<DataSourceNode> nodes) {
+		this.nodes = nodes;
+	}
+}
\ No newline at end of file
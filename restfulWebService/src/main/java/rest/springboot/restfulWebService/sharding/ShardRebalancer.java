@@ -0,0 +1,225 @@
+package rest.springboot.restfulWebService.sharding;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import rest.springboot.restfulWebService.model.Orders;
+import rest.springboot.restfulWebService.model.ShardBucket;
+import rest.springboot.restfulWebService.repository.ShardBucketRepository;
+
+/**
+ * ShardRebalancer moves buckets onto shards added to oms.shards.nodes. Only
+ * the buckets shards hold beyond an even share are moved, so adding a shard
+ * moves just the buckets given to it. Orders keep their ids, as buckets do
+ * not change. Shards cannot be removed: OrderShards refuses to start while a
+ * bucket is assigned to a shard no longer listed.
+ * <p>
+ * A move is recorded in SHARD_BUCKET before it starts, so an interrupted
+ * rebalance resumes it when rerun. Orders are copied while reads and writes
+ * still go to the old shard; the bucket is switched once its orders are
+ * copied, and the old copies are deleted after every instance has reread
+ * the assignment, which they do every assignment-refresh-ms.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Component
+@ConditionalOnProperty(name = "oms.shards.enabled", havingValue = "true")
+public class ShardRebalancer {
+
+	/** Logger instance for ShardRebalancer class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(ShardRebalancer.class);
+
+	/** Injecting object dependency of OrderShards. */
+	@Autowired
+	OrderShards orderShards;
+
+	/** Injecting object dependency of ShardBucketRepository. */
+	@Autowired
+	ShardBucketRepository shardBucketRepository;
+
+	/** Number of orders read off a shard at a time. */
+	@Value("${oms.shards.rebalance-chunk-size:500}")
+	int chunkSize;
+
+	/** How often instances reread SHARD_BUCKET. */
+	@Value("${oms.shards.assignment-refresh-ms:5000}")
+	long assignmentRefreshMillis;
+
+	/**
+	 * Number of orders on every shard.
+	 * @return Map<String, Long>: Orders per shard name, in shard order.
+	 */
+	public Map<String, Long> countOrders() {
+		Map<String, Long> counts = new LinkedHashMap<String, Long>();
+		List<Long> perShard = orderShards.scatter(OrderShard::countOrders);
+		for (OrderShard shard : orderShards.getShards()) {
+			counts.put(shard.getName(), perShard.get(shard.getIndex()));
+		}
+		return counts;
+	}
+
+	/** Rereads SHARD_BUCKET, so buckets another instance moved are read from their new shard. */
+	@Scheduled(fixedDelayString = "${oms.shards.assignment-refresh-ms:5000}",
+			initialDelayString = "${oms.shards.assignment-refresh-ms:5000}")
+	public void refreshAssignment() {
+		orderShards.assign(shardBucketRepository.findAll());
+	}
+
+	/**
+	 * Moves buckets until every shard holds an even share, resuming moves
+	 * an interrupted run left, and deletes orders left on a shard their
+	 * bucket has moved off. Orders are read chunkSize at a time. Changes made
+	 * to an order while it is moved may be lost, so order writes should be
+	 * stopped while this runs.
+	 * @return long: Number of orders copied to their new shard.
+	 * @throws InterruptedException if interrupted while other instances
+	 * reread the assignment; rerunning finishes the deletes.
+	 */
+	public synchronized long rebalance() throws InterruptedException {
+		List<ShardBucket> buckets = shardBucketRepository.findAll();
+		Map<Integer, Integer> moves = new TreeMap<Integer, Integer>();
+		buckets.stream().filter(bucket -> bucket.getMovingTo() != null)
+				.forEach(bucket -> moves.put(bucket.getBucket(), bucket.getMovingTo()));
+		if (moves.isEmpty()) {
+			moves.putAll(plan(owners(buckets), orderShards.getShards().size()));
+			buckets.forEach(bucket -> bucket.setMovingTo(moves.get(bucket.getBucket())));
+			buckets = shardBucketRepository.saveAll(buckets);
+		}
+		LOGGER.info("Moving {} buckets over {} shards.", moves.size(), orderShards.getShards().size());
+
+		long copied = 0;
+		for (OrderShard source : orderShards.getShards()) {
+			copied += copyMoving(source, moves);
+		}
+
+		for (ShardBucket bucket : buckets) {
+			if (bucket.getMovingTo() != null) {
+				bucket.setShard(bucket.getMovingTo());
+				bucket.setMovingTo(null);
+			}
+		}
+		orderShards.assign(shardBucketRepository.saveAll(buckets));
+		LOGGER.info("Moved {} buckets; deleting their orders off their old shards in {} ms.", moves.size(),
+				2 * assignmentRefreshMillis);
+
+		Thread.sleep(2 * assignmentRefreshMillis);
+		for (OrderShard shard : orderShards.getShards()) {
+			deleteMisplaced(shard);
+		}
+		return copied;
+	}
+
+	/**
+	 * Chooses the buckets to move so that every shard holds BUCKETS / shards
+	 * of them, or one more; the shards holding most keep the extra ones.
+	 * Only buckets beyond a shard's share are moved, the highest first.
+	 * @param owners: Shard of every bucket.
+	 * @param shards: Number of shards.
+	 * @return Map<Integer, Integer>: New shard per bucket to move.
+	 */
+	static Map<Integer, Integer> plan(int[] owners, int shards) {
+		List<Deque<Integer>> held = new ArrayList<Deque<Integer>>(shards);
+		for (int shard = 0; shard < shards; shard++) {
+			held.add(new ArrayDeque<Integer>());
+		}
+		for (int bucket = 0; bucket < owners.length; bucket++) {
+			held.get(owners[bucket]).addLast(bucket);
+		}
+
+		List<Integer> byHeld = new ArrayList<Integer>(shards);
+		for (int shard = 0; shard < shards; shard++) {
+			byHeld.add(shard);
+		}
+		byHeld.sort(Comparator.comparingInt((Integer shard) -> held.get(shard).size()).reversed());
+		int[] share = new int[shards];
+		for (int i = 0; i < shards; i++) {
+			share[byHeld.get(i)] = owners.length / shards + ((i < owners.length % shards) ? 1 : 0);
+		}
+
+		Deque<Integer> surplus = new ArrayDeque<Integer>();
+		for (int shard = 0; shard < shards; shard++) {
+			while (held.get(shard).size() > share[shard]) {
+				surplus.addLast(held.get(shard).removeLast());
+			}
+		}
+		Map<Integer, Integer> moves = new TreeMap<Integer, Integer>();
+		for (int shard = 0; shard < shards; shard++) {
+			while (held.get(shard).size() < share[shard]) {
+				int bucket = surplus.removeFirst();
+				held.get(shard).addLast(bucket);
+				moves.put(bucket, shard);
+			}
+		}
+		return moves;
+	}
+
+	private static int[] owners(List<ShardBucket> buckets) {
+		int[] owners = new int[ShardKeys.BUCKETS];
+		buckets.forEach(bucket -> owners[bucket.getBucket()] = bucket.getShard());
+		return owners;
+	}
+
+	/** Copies the orders of buckets moving off source to their new shard. */
+	private long copyMoving(OrderShard source, Map<Integer, Integer> moves) {
+		long copied = 0;
+		long after = Long.MIN_VALUE;
+		List<Long> oids;
+		while (!(oids = source.findOidsAfter(after, chunkSize)).isEmpty()) {
+			after = oids.get(oids.size() - 1);
+
+			Map<Integer, List<Long>> byTarget = new TreeMap<Integer, List<Long>>();
+			for (Long oid : oids) {
+				Integer target = moves.get(ShardKeys.bucketOfOrder(oid));
+				if (target != null && target != source.getIndex()) {
+					byTarget.computeIfAbsent(target, shard -> new ArrayList<Long>()).add(oid);
+				}
+			}
+			for (Map.Entry<Integer, List<Long>> moving : byTarget.entrySet()) {
+				copied += copy(source, orderShards.getShards().get(moving.getKey()), moving.getValue());
+			}
+		}
+		LOGGER.info("Copied {} orders off shard {}.", copied, source.getName());
+		return copied;
+	}
+
+	/** Copies orders from source to target, skipping copies left by an interrupted run. */
+	private int copy(OrderShard source, OrderShard target, List<Long> oids) {
+		Map<Long, Orders> orders = source.findByOids(oids);
+		return target.inTransaction(() -> {
+			target.findExistingOids(oids).forEach(orders::remove);
+			target.insert(orders.values());
+			return orders.size();
+		});
+	}
+
+	/** Deletes the orders on shard whose bucket is kept on another shard. */
+	private void deleteMisplaced(OrderShard shard) {
+		long deleted = 0;
+		long after = Long.MIN_VALUE;
+		List<Long> oids;
+		while (!(oids = shard.findOidsAfter(after, chunkSize)).isEmpty()) {
+			after = oids.get(oids.size() - 1);
+
+			Map<OrderShard, List<Long>> byShard = orderShards.groupByShard(oids);
+			byShard.remove(shard);
+			for (List<Long> misplaced : byShard.values()) {
+				deleted += shard.inTransaction(() -> shard.delete(misplaced));
+			}
+		}
+		LOGGER.info("Deleted {} orders moved off shard {}.", deleted, shard.getName());
+	}
+}
\ No newline at end of file
@@ -0,0 +1,48 @@
+package rest.springboot.restfulWebService.stats;
+
+import java.time.LocalDate;
+
+/**
+ * CategoryDayRevenue class provides holder for the revenue of the order
+ * lines of one product category on one day, as returned by CategoryRevenue.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public class CategoryDayRevenue {
+
+	/** Calendar day the orders were placed on, in the server's time zone. */
+	private final LocalDate day;
+
+	/** Id of the category; CategoryRevenue.UNKNOWN_CATEGORY for lines whose product no longer exists. */
+	private final long categoryId;
+
+	/** Name of the category; null if CATEGORY has no such row. */
+	private final String category;
+
+	/** Sum of the unit prices of the lines. */
+	private final long revenue;
+
+	/** Parameterized constructor for a category's revenue on a day. */
+	public CategoryDayRevenue(LocalDate day, long categoryId, String category, long revenue) {
+		this.day = day;
+		this.categoryId = categoryId;
+		this.category = category;
+		this.revenue = revenue;
+	}
+
+	public LocalDate getDay() {
+		return day;
+	}
+
+	public long getCategoryId() {
+		return categoryId;
+	}
+
+	public String getCategory() {
+		return category;
+	}
+
+	public long getRevenue() {
+		return revenue;
+	}
+}
\ No newline at end of file
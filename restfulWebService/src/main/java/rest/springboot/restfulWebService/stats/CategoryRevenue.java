@@ -0,0 +1,234 @@
+package rest.springboot.restfulWebService.stats;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import rest.springboot.restfulWebService.service.OrdersChangedEvent;
+import rest.springboot.restfulWebService.service.ProductChangedEvent;
+
+/**
+ * CategoryRevenue computes the revenue of every product category per day,
+ * following order lines to PRODUCT by product id and PRODUCT to CATEGORY by
+ * category id; a line's revenue is its unit price when ordered.
+ * <p>
+ * A date range is split into days, which are summed up in parallel on a
+ * fork-join pool of parallelism threads, each day with one read-only query
+ * over the orderDate index that groups the day's lines by category, so only
+ * a row per category leaves the database. Results are kept in LongLongMaps
+ * keyed by category id. Days before today are cached until orders of that
+ * day change, products change or closed-day-ttl passes; today is always read.
+ * Lines whose product no longer exists, or has no category, are summed up
+ * under UNKNOWN_CATEGORY rather than dropped.
+ * Enabled with oms.analytics.enabled=true.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Component
+@ConditionalOnProperty(name = "oms.analytics.enabled", havingValue = "true")
+public class CategoryRevenue {
+
+	/** Logger instance for CategoryRevenue class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(CategoryRevenue.class);
+
+	/** Category id of lines whose product is deleted or has no category. */
+	public static final long UNKNOWN_CATEGORY = -1;
+
+	/** Category name of UNKNOWN_CATEGORY. */
+	public static final String UNKNOWN_CATEGORY_NAME = "unknown";
+
+	/** Revenue per category id of the lines of orders placed in [?, ?). */
+	static final String REVENUE_BY_CATEGORY = "select coalesce(p.category_id, " + UNKNOWN_CATEGORY + ") as category,"
+			+ " sum(l.unit_price) from orders o join orders_product_id l on l.orders_oid = o.oid"
+			+ " left join product p on p.id = l.product_id"
+			+ " where o.order_date >= ? and o.order_date < ? group by category";
+
+	/** Names of all categories. */
+	static final String CATEGORY_NAMES = "select id, name from category";
+
+	/** Injecting the application's JdbcTemplate. */
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	/** Injecting the transaction manager days are read with. */
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	/** Injecting the application's meter registry. */
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	/** Number of days read at once; each holds a connection while it is read. */
+	@Value("${oms.analytics.parallelism:4}")
+	int parallelism;
+
+	/** Most closed days kept in memory. */
+	@Value("${oms.analytics.max-cached-days:3660}")
+	long maxCachedDays;
+
+	/** How long a closed day is kept; bounds how stale other instances' changes are. */
+	@Value("${oms.analytics.closed-day-ttl:1h}")
+	Duration closedDayTtl;
+
+	/** Revenue per category id of days before today. */
+	private Cache<LocalDate, LongLongMap> closedDays;
+
+	private ForkJoinPool pool;
+	private TransactionTemplate readOnlyTransaction;
+	private Timer timer;
+
+	@PostConstruct
+	void init() {
+		closedDays = Caffeine.newBuilder().maximumSize(maxCachedDays).expireAfterWrite(closedDayTtl).build();
+		pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+			thread.setName("oms-analytics-" + thread.getPoolIndex());
+			return thread;
+		}, null, false);
+		readOnlyTransaction = new TransactionTemplate(transactionManager);
+		readOnlyTransaction.setReadOnly(true);
+		timer = Timer.builder("oms.analytics.category.revenue")
+				.description("Computations of revenue per category per day").register(meterRegistry);
+	}
+
+	@PreDestroy
+	void close() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Retrieves the revenue of every category on every day from from to to.
+	 * @param from: First day, inclusive.
+	 * @param to: Last day, inclusive.
+	 * @return List<CategoryDayRevenue>: Revenue per category per day, by day
+	 * then category id; categories without orders on a day are left out.
+	 */
+	public List<CategoryDayRevenue> getRevenueByCategory(LocalDate from, LocalDate to) {
+		List<LocalDate> days = new ArrayList<LocalDate>();
+		for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+			days.add(day);
+		}
+
+		LongLongMap[] revenue = new LongLongMap[days.size()];
+		LocalDate today = LocalDate.now();
+		timer.record(() -> {
+			pool.invoke(new DaysTask(days, revenue, today, 0, days.size()));
+		});
+
+		Map<Long, String> names = categoryNames();
+		List<CategoryDayRevenue> rows = new ArrayList<CategoryDayRevenue>();
+		for (int i = 0; i < days.size(); i++) {
+			for (long categoryId : revenue[i].keys()) {
+				rows.add(new CategoryDayRevenue(days.get(i), categoryId, names.get(categoryId),
+						revenue[i].get(categoryId)));
+			}
+		}
+		LOGGER.debug("Revenue of {} days from {} computed as {} category rows.", days.size(), from, rows.size());
+		return rows;
+	}
+
+	/** Sums up days[from, to) into revenue, splitting the range until one day is left. */
+	private final class DaysTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final List<LocalDate> days;
+		private final LongLongMap[] revenue;
+		private final LocalDate today;
+		private final int from;
+		private final int to;
+
+		DaysTask(List<LocalDate> days, LongLongMap[] revenue, LocalDate today, int from, int to) {
+			this.days = days;
+			this.revenue = revenue;
+			this.today = today;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				revenue[from] = revenueOf(days.get(from), today);
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new DaysTask(days, revenue, today, from, mid), new DaysTask(days, revenue, today, mid, to));
+			}
+		}
+	}
+
+	/** Revenue per category id of a day, from the cache for days before today. */
+	private LongLongMap revenueOf(LocalDate day, LocalDate today) {
+		if (day.isAfter(today)) {
+			return new LongLongMap();
+		}
+		if (day.isBefore(today)) {
+			return closedDays.get(day, this::readDay);
+		}
+		return readDay(day);
+	}
+
+	/** Reads the revenue per category id of a day in one query. */
+	private LongLongMap readDay(LocalDate day) {
+		ZoneId zone = ZoneId.systemDefault();
+		Date from = Date.from(day.atStartOfDay(zone).toInstant());
+		Date to = Date.from(day.plusDays(1).atStartOfDay(zone).toInstant());
+
+		return readOnlyTransaction.execute(status -> {
+			LongLongMap revenue = new LongLongMap();
+			jdbcTemplate.query(REVENUE_BY_CATEGORY,
+					(RowCallbackHandler) rs -> revenue.add(rs.getLong(1), rs.getLong(2)), from, to);
+			return revenue;
+		});
+	}
+
+	private Map<Long, String> categoryNames() {
+		Map<Long, String> names = new HashMap<Long, String>();
+		names.put(UNKNOWN_CATEGORY, UNKNOWN_CATEGORY_NAME);
+		jdbcTemplate.query(CATEGORY_NAMES, (RowCallbackHandler) rs -> names.put(rs.getLong(1), rs.getString(2)));
+		return names;
+	}
+
+	/** Drops the cached days of orders once their change commits. */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onOrdersChanged(OrdersChangedEvent event) {
+		if (event.getDays() == null) {
+			closedDays.invalidateAll();
+		} else {
+			closedDays.invalidateAll(event.getDays());
+		}
+	}
+
+	/** Drops all cached days once a product change commits, as it may have moved to another category. */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onProductChanged(ProductChangedEvent event) {
+		closedDays.invalidateAll();
+	}
+}
\ No newline at end of file
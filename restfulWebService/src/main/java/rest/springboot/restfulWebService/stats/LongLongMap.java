@@ -0,0 +1,113 @@
+package rest.springboot.restfulWebService.stats;
+
+import java.util.Arrays;
+
+/**
+ * LongLongMap maps long keys to long sums without boxing either: keys and
+ * values are kept in two parallel arrays, probed linearly from a Fibonacci
+ * hash of the key, and the table doubles once it is half full. Not thread
+ * safe; a map is filled by one thread and only read once published.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+final class LongLongMap {
+
+	/** Marks a free slot, so it cannot be used as a key. */
+	static final long FREE = Long.MIN_VALUE;
+
+	private long[] keys;
+	private long[] values;
+	private int shift;
+	private int size;
+
+	/** Empty map sized for a few keys. */
+	LongLongMap() {
+		this(8);
+	}
+
+	/** Empty map sized for expectedKeys before it has to grow. */
+	LongLongMap(int expectedKeys) {
+		allocate(Math.max(4, Integer.highestOneBit(Math.max(1, expectedKeys) * 2 - 1) << 1));
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		Arrays.fill(keys, FREE);
+		values = new long[capacity];
+		shift = 64 - Integer.numberOfTrailingZeros(capacity);
+	}
+
+	/** Adds delta to the value of key, which starts at 0. */
+	void add(long key, long delta) {
+		if (key == FREE) {
+			throw new IllegalArgumentException("Key " + key + " is reserved.");
+		}
+
+		int slot = slot(key);
+		if (keys[slot] == key) {
+			values[slot] += delta;
+			return;
+		}
+
+		keys[slot] = key;
+		values[slot] = delta;
+		if (++size * 2 > keys.length) {
+			grow();
+		}
+	}
+
+	/** Value of key; 0 if it was never added. */
+	long get(long key) {
+		int slot = slot(key);
+		return (keys[slot] == key) ? values[slot] : 0;
+	}
+
+	/** Adds every value of other to this map. */
+	void addAll(LongLongMap other) {
+		for (int slot = 0; slot < other.keys.length; slot++) {
+			if (other.keys[slot] != FREE) {
+				add(other.keys[slot], other.values[slot]);
+			}
+		}
+	}
+
+	/** Keys added so far, ascending. */
+	long[] keys() {
+		long[] present = new long[size];
+		int i = 0;
+		for (long key : keys) {
+			if (key != FREE) {
+				present[i++] = key;
+			}
+		}
+		Arrays.sort(present);
+		return present;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/** Slot holding key, or the free slot it would go to. */
+	private int slot(long key) {
+		int mask = keys.length - 1;
+		int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+		while (keys[slot] != FREE && keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		long[] oldValues = values;
+		allocate(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != FREE) {
+				int slot = slot(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+}
\ No newline at end of file
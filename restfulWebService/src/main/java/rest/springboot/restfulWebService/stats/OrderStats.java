@@ -0,0 +1,558 @@
+package rest.springboot.restfulWebService.stats;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import rest.springboot.restfulWebService.model.DailyOrderStats;
+import rest.springboot.restfulWebService.model.StatsRebuild;
+import rest.springboot.restfulWebService.model.UserOrderStats;
+import rest.springboot.restfulWebService.repository.DailyOrderStatsRepository;
+import rest.springboot.restfulWebService.repository.StatsRebuildRepository;
+import rest.springboot.restfulWebService.repository.UserOrderStatsRepository;
+
+/**
+ * OrderStats class keeps the read model of order totals per user and per
+ * day, in USER_ORDER_STATS and DAILY_ORDER_STATS, so they are read with a key
+ * lookup instead of a scan of ORDERS.
+ * <p>
+ * OrdersServiceImpl hands over what every change takes from and adds to the
+ * totals once its transaction commits. Changes are kept in memory and written
+ * every flush-interval-ms, summed up to one UPDATE per key, so orders never
+ * wait on the rows of busy users or of the current day. Rows read are cached
+ * for cache-ttl; reads add the changes not yet written, so the totals are
+ * current on this instance and at most cache-ttl behind the others. Changes
+ * lost on a crash are corrected by the next rebuild, which recomputes both
+ * tables from ORDERS. Days are cut at midnight in the server's time zone, by
+ * OrderSummary, both for changes and for rebuilds.
+ * <p>
+ * A rebuild reads ORDERS in one statement and notes which changes that
+ * statement sees: each transaction takes a sequence number and the time just
+ * before it commits, holding a read lock until its change is recorded, and
+ * the rebuild starts its statement under the write lock. Once the rebuild
+ * commits, this instance drops exactly the changes numbered up to that point.
+ * The rebuild also stores the time in STATS_REBUILD; other instances drop
+ * their changes stamped before it on their next flush, which is exact up to
+ * the clock skew between instances.
+ * <p>
+ * Rebuilds lock the STATS_REBUILD row while they run, so instances take
+ * turns, and flushes wait for a rebuild on another instance to finish. A
+ * rebuild by rebuild-cron or on first start is skipped if another instance's
+ * rebuild finished after it was due, as when every instance's cron fires at
+ * once. Rebuilds asked for by rebuildLater run in the background.
+ * Enabled with oms.stats.enabled=true.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Component
+@ConditionalOnProperty(name = "oms.stats.enabled", havingValue = "true")
+public class OrderStats {
+
+	/** Logger instance for OrderStats class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(OrderStats.class);
+
+	/** Every order with its line count, read by a rebuild in one statement. */
+	private static final String SELECT_ORDERS = "select o.user_id, o.order_date, "
+			+ "(select count(*) from orders_product_id l where l.orders_oid = o.oid), o.total from orders o";
+
+	private static final String INSERT_USER = "insert into user_order_stats (user_id, orders, items, revenue)"
+			+ " values (?, ?, ?, ?)";
+
+	private static final String INSERT_DAY = "insert into daily_order_stats (order_day, orders, items, revenue)"
+			+ " values (?, ?, ?, ?)";
+
+	/** Rows a rebuild fetches from ORDERS at a time. */
+	private static final int REBUILD_FETCH_SIZE = 1000;
+
+	/** Injecting object dependency of UserOrderStatsRepository. */
+	@Autowired
+	UserOrderStatsRepository userOrderStatsRepository;
+
+	/** Injecting object dependency of DailyOrderStatsRepository. */
+	@Autowired
+	DailyOrderStatsRepository dailyOrderStatsRepository;
+
+	/** Injecting object dependency of StatsRebuildRepository. */
+	@Autowired
+	StatsRebuildRepository statsRebuildRepository;
+
+	/** Injecting the data source rebuilds read ORDERS and write the tables with. */
+	@Autowired
+	DataSource dataSource;
+
+	/** Injecting the transaction manager flushes and rebuilds run with. */
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	/** Injecting the application's meter registry. */
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	/** How long rows read are cached; bounds how far behind other instances' changes reads are. */
+	@Value("${oms.stats.cache-ttl:1m}")
+	Duration cacheTtl;
+
+	/** Most user rows kept in memory. */
+	@Value("${oms.stats.max-cached-users:100000}")
+	long maxCachedUsers;
+
+	/** Most day rows kept in memory. */
+	@Value("${oms.stats.max-cached-days:3660}")
+	long maxCachedDays;
+
+	/** Changes not yet written, in the order they were recorded. */
+	private final Queue<Change> pending = new ConcurrentLinkedQueue<Change>();
+
+	/** Changes being written by flush, until it commits. */
+	private volatile List<Change> flushing = Collections.<Change>emptyList();
+
+	/** Numbers changes, in the order of their commits relative to a rebuild's read of ORDERS. */
+	private final AtomicLong sequence = new AtomicLong();
+
+	/**
+	 * Held for reading from just before a commit until its change is
+	 * recorded, and for writing while a rebuild starts its read of ORDERS.
+	 */
+	private final ReentrantReadWriteLock commitLock = new ReentrantReadWriteLock();
+
+	/** Snapshot time of the last rebuild this instance dropped its changes for; guarded by this. */
+	private Long lastSnapshotAt;
+
+	/** Rows as last read, per user and per day. */
+	private Cache<Long, OrderTotals> users;
+	private Cache<LocalDate, OrderTotals> days;
+
+	private TransactionTemplate transaction;
+	private JdbcTemplate jdbcTemplate;
+
+	/** Set while a rebuild is queued in the background and has not started. */
+	private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+	private Counter flushFailures;
+	private Timer rebuildTimer;
+
+	@PostConstruct
+	void init() {
+		users = Caffeine.newBuilder().maximumSize(maxCachedUsers).expireAfterWrite(cacheTtl).build();
+		days = Caffeine.newBuilder().maximumSize(maxCachedDays).expireAfterWrite(cacheTtl).build();
+		transaction = new TransactionTemplate(transactionManager);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.setFetchSize(REBUILD_FETCH_SIZE);
+		flushFailures = Counter.builder("oms.stats.flush.failures")
+				.description("Writes of order totals that failed and were retried").register(meterRegistry);
+		rebuildTimer = Timer.builder("oms.stats.rebuild").description("Rebuilds of order totals from ORDERS")
+				.register(meterRegistry);
+	}
+
+	/** Builds the tables from ORDERS in the background on first start, when they are still empty. */
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuildIfEmpty() {
+		Date due = new Date();
+		runInBackground(() -> {
+			if (userOrderStatsRepository.count() == 0) {
+				rebuild(due);
+			}
+		});
+	}
+
+	/**
+	 * Records a change to orders once the current transaction commits, or at
+	 * once outside a transaction.
+	 * @param removed: Summaries of orders as they were before the change.
+	 * @param added: Summaries of orders as they are after the change.
+	 */
+	public void recordAfterCommit(List<OrderSummary> removed, List<OrderSummary> added) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				private boolean locked;
+				private long number;
+				private long recordedAt;
+
+				@Override
+				public void beforeCommit(boolean readOnly) {
+					commitLock.readLock().lock();
+					locked = true;
+					number = sequence.incrementAndGet();
+					recordedAt = System.currentTimeMillis();
+				}
+
+				@Override
+				public void afterCommit() {
+					record(removed, added, number, recordedAt);
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					if (locked) {
+						locked = false;
+						commitLock.readLock().unlock();
+					}
+				}
+			});
+		} else {
+			commitLock.readLock().lock();
+			try {
+				record(removed, added, sequence.incrementAndGet(), System.currentTimeMillis());
+			} finally {
+				commitLock.readLock().unlock();
+			}
+		}
+	}
+
+	private void record(List<OrderSummary> removed, List<OrderSummary> added, long number, long recordedAt) {
+		for (OrderSummary summary : removed) {
+			pending.add(new Change(number, recordedAt, summary.getUserId(), summary.getDay(),
+					summary.getTotals().negate()));
+		}
+		for (OrderSummary summary : added) {
+			pending.add(new Change(number, recordedAt, summary.getUserId(), summary.getDay(), summary.getTotals()));
+		}
+	}
+
+	/**
+	 * Retrieves the totals of a user's orders.
+	 * @param userId: Id of the user.
+	 * @return UserOrderStats: Totals of the user, all 0 if the user has no orders.
+	 */
+	public UserOrderStats getUserStats(long userId) {
+		OrderTotals totals = users.get(userId, this::loadUser);
+		for (Change change : unwritten()) {
+			if (change.userId == userId) {
+				totals = totals.plus(change.totals);
+			}
+		}
+		return new UserOrderStats(userId, totals.getOrders(), totals.getItems(), totals.getRevenue());
+	}
+
+	/**
+	 * Retrieves the totals of the orders placed on each day from from to to,
+	 * reading the days not cached in one statement.
+	 * @param from: First day, inclusive.
+	 * @param to: Last day, inclusive.
+	 * @return List<DailyOrderStats>: Totals of every day, in day order; all 0
+	 * for days without orders.
+	 */
+	public List<DailyOrderStats> getDailyStats(LocalDate from, LocalDate to) {
+		List<LocalDate> range = new ArrayList<LocalDate>();
+		for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+			range.add(day);
+		}
+
+		Map<LocalDate, OrderTotals> stored = days.getAll(range, this::loadDays);
+		Map<LocalDate, OrderTotals> changes = new HashMap<LocalDate, OrderTotals>();
+		for (Change change : unwritten()) {
+			if (!change.day.isBefore(from) && !change.day.isAfter(to)) {
+				changes.merge(change.day, change.totals, OrderTotals::plus);
+			}
+		}
+
+		List<DailyOrderStats> stats = new ArrayList<DailyOrderStats>(range.size());
+		for (LocalDate day : range) {
+			OrderTotals totals = stored.get(day).plus(changes.get(day));
+			stats.add(new DailyOrderStats(day, totals.getOrders(), totals.getItems(), totals.getRevenue()));
+		}
+		return stats;
+	}
+
+	/** Changes being written, then those pending; at most a flush interval's worth. */
+	private List<Change> unwritten() {
+		List<Change> changes = new ArrayList<Change>(flushing);
+		changes.addAll(pending);
+		return changes;
+	}
+
+	private OrderTotals loadUser(long userId) {
+		return userOrderStatsRepository.findById(userId)
+				.map(stats -> new OrderTotals(stats.getOrders(), stats.getItems(), stats.getRevenue()))
+				.orElse(OrderTotals.ZERO);
+	}
+
+	private Map<LocalDate, OrderTotals> loadDays(Iterable<? extends LocalDate> keys) {
+		Map<LocalDate, OrderTotals> loaded = new HashMap<LocalDate, OrderTotals>();
+		for (LocalDate day : keys) {
+			loaded.put(day, OrderTotals.ZERO);
+		}
+		for (DailyOrderStats stats : dailyOrderStatsRepository.findAllById(loaded.keySet())) {
+			loaded.put(stats.getDay(), new OrderTotals(stats.getOrders(), stats.getItems(), stats.getRevenue()));
+		}
+		return loaded;
+	}
+
+	/**
+	 * Writes the changes recorded since the last flush, all in one
+	 * transaction, after dropping those a rebuild on another instance has
+	 * included. If it fails they are kept for the next one.
+	 */
+	@Scheduled(fixedDelayString = "${oms.stats.flush-interval-ms:1000}")
+	public synchronized void flush() {
+		if (pending.isEmpty()) {
+			return;
+		}
+
+		Map<Long, OrderTotals> userChanges = new HashMap<Long, OrderTotals>();
+		Map<LocalDate, OrderTotals> dayChanges = new HashMap<LocalDate, OrderTotals>();
+		try {
+			transaction.execute(status -> {
+				statsRebuildRepository.shareById(StatsRebuild.ID).ifPresent(this::dropChangesBefore);
+				for (Change change : drain()) {
+					userChanges.merge(change.userId, change.totals, OrderTotals::plus);
+					dayChanges.merge(change.day, change.totals, OrderTotals::plus);
+				}
+				userChanges.values().removeIf(OrderTotals::isZero);
+				dayChanges.values().removeIf(OrderTotals::isZero);
+
+				userChanges.forEach((userId, totals) -> {
+					if (userOrderStatsRepository.addTo(userId, totals.getOrders(), totals.getItems(),
+							totals.getRevenue()) == 0) {
+						userOrderStatsRepository.save(new UserOrderStats(userId, totals.getOrders(),
+								totals.getItems(), totals.getRevenue()));
+					}
+				});
+				dayChanges.forEach((day, totals) -> {
+					if (dailyOrderStatsRepository.addTo(day, totals.getOrders(), totals.getItems(),
+							totals.getRevenue()) == 0) {
+						dailyOrderStatsRepository.save(new DailyOrderStats(day, totals.getOrders(),
+								totals.getItems(), totals.getRevenue()));
+					}
+				});
+				return null;
+			});
+		} catch (RuntimeException e) {
+			flushFailures.increment();
+			LOGGER.error("Failed to write changes to totals of {} users and {} days; retrying later.",
+					userChanges.size(), dayChanges.size(), e);
+			pending.addAll(flushing);
+			flushing = Collections.<Change>emptyList();
+			return;
+		}
+
+		users.invalidateAll(userChanges.keySet());
+		days.invalidateAll(dayChanges.keySet());
+		flushing = Collections.<Change>emptyList();
+		LOGGER.debug("Wrote changes to totals of {} users and {} days.", userChanges.size(), dayChanges.size());
+	}
+
+	/**
+	 * Moves the pending changes over to flushing and returns them. Only flush
+	 * and rebuild take changes out of pending, so the copy is its head.
+	 */
+	private List<Change> drain() {
+		List<Change> changes = new ArrayList<Change>(pending);
+		flushing = changes;
+		for (int i = 0; i < changes.size(); i++) {
+			pending.poll();
+		}
+		return changes;
+	}
+
+	/** Drops the changes recorded before a rebuild not yet seen, which another instance ran. */
+	private void dropChangesBefore(StatsRebuild rebuild) {
+		Long snapshotAt = rebuild.getSnapshotAt();
+		if (snapshotAt == null || snapshotAt.equals(lastSnapshotAt)) {
+			return;
+		}
+		pending.removeIf(change -> change.recordedAt < snapshotAt);
+		lastSnapshotAt = snapshotAt;
+		users.invalidateAll();
+		days.invalidateAll();
+		LOGGER.info("Dropped changes to order totals recorded before the rebuild of {}.", rebuild.getRebuiltAt());
+	}
+
+	/** Rebuilds the tables at rebuild-cron, unless another instance just did. */
+	@Scheduled(cron = "${oms.stats.rebuild-cron:0 30 3 * * *}")
+	public void scheduledRebuild() {
+		rebuild(new Date());
+	}
+
+	/**
+	 * Recomputes USER_ORDER_STATS and DAILY_ORDER_STATS from ORDERS in one
+	 * transaction, after any rebuild running on another instance.
+	 * @return Map<String, Integer>: Number of rows written, as "users" and "days".
+	 */
+	public Map<String, Integer> rebuild() {
+		return rebuild(null);
+	}
+
+	/**
+	 * Rebuilds in the background and returns at once. Asking again before the
+	 * rebuild starts asks for no more than one; asking while it runs queues
+	 * another, so changes it may have missed are included.
+	 */
+	public void rebuildLater() {
+		if (rebuildQueued.compareAndSet(false, true)) {
+			runInBackground(() -> {
+				rebuildQueued.set(false);
+				rebuild();
+			});
+		}
+	}
+
+	private void runInBackground(Runnable task) {
+		CompletableFuture.runAsync(() -> {
+			try {
+				task.run();
+			} catch (RuntimeException e) {
+				LOGGER.error("Failed to rebuild order totals.", e);
+			}
+		});
+	}
+
+	/**
+	 * Recomputes both tables in one transaction, holding the lock on the
+	 * STATS_REBUILD row, and once it commits drops the changes its read of
+	 * ORDERS included.
+	 * @param due: When the rebuild was due; it is skipped if another finished
+	 * since. Null to rebuild regardless.
+	 * @return Map<String, Integer>: Number of rows written, null if skipped.
+	 */
+	private synchronized Map<String, Integer> rebuild(Date due) {
+		createRebuildRow();
+		LOGGER.info("Rebuilding order totals from ORDERS.");
+
+		return rebuildTimer.record(() -> {
+			Snapshot snapshot = transaction.execute(status -> {
+				StatsRebuild rebuild = statsRebuildRepository.lockById(StatsRebuild.ID)
+						.orElseThrow(() -> new IllegalStateException("STATS_REBUILD has no row."));
+				if (due != null && rebuild.getRebuiltAt() != null && rebuild.getRebuiltAt().after(due)) {
+					return null;
+				}
+
+				Snapshot read = readOrders();
+				userOrderStatsRepository.deleteAllInBatch();
+				dailyOrderStatsRepository.deleteAllInBatch();
+				insert(INSERT_USER, read.users);
+				insert(INSERT_DAY, read.days);
+				rebuild.setRebuiltAt(new Date());
+				rebuild.setSnapshotAt(read.takenAt);
+				return read;
+			});
+			if (snapshot == null) {
+				LOGGER.info("Skipped rebuild of order totals due at {}, as another finished since.", due);
+				return null;
+			}
+			pending.removeIf(change -> change.number <= snapshot.number);
+			lastSnapshotAt = snapshot.takenAt;
+			users.invalidateAll();
+			days.invalidateAll();
+
+			Map<String, Integer> rows = new LinkedHashMap<String, Integer>();
+			rows.put("users", snapshot.users.size());
+			rows.put("days", snapshot.days.size());
+			LOGGER.info("Rebuilt order totals of {} users and {} days.", rows.get("users"), rows.get("days"));
+			return rows;
+		});
+	}
+
+	/**
+	 * Sums up ORDERS per user and per day from one statement. The statement
+	 * starts under the write lock, so every change numbered up to the
+	 * snapshot committed before it and every later one after it.
+	 */
+	private Snapshot readOrders() {
+		ReentrantReadWriteLock.WriteLock lock = commitLock.writeLock();
+		lock.lock();
+		try {
+			Snapshot snapshot = new Snapshot(sequence.get(), System.currentTimeMillis());
+			return jdbcTemplate.query(SELECT_ORDERS, rs -> {
+				lock.unlock();
+				while (rs.next()) {
+					OrderTotals totals = new OrderTotals(1, rs.getLong(3), rs.getLong(4));
+					snapshot.users.merge(rs.getLong(1), totals, OrderTotals::plus);
+					snapshot.days.merge(OrderSummary.dayOf(rs.getTimestamp(2)), totals, OrderTotals::plus);
+				}
+				return snapshot;
+			});
+		} finally {
+			if (lock.isHeldByCurrentThread()) {
+				lock.unlock();
+			}
+		}
+	}
+
+	/** Writes one row per key in JDBC batches. */
+	private <K> void insert(String sql, Map<K, OrderTotals> rows) {
+		List<Object[]> args = new ArrayList<Object[]>(rows.size());
+		rows.forEach((key, totals) -> args
+				.add(new Object[] { key, totals.getOrders(), totals.getItems(), totals.getRevenue() }));
+		jdbcTemplate.batchUpdate(sql, args);
+	}
+
+	/** Creates the STATS_REBUILD row rebuilds lock, unless it exists or another instance creates it first. */
+	private void createRebuildRow() {
+		if (statsRebuildRepository.existsById(StatsRebuild.ID)) {
+			return;
+		}
+		try {
+			statsRebuildRepository.saveAndFlush(new StatsRebuild(StatsRebuild.ID, null));
+		} catch (DataIntegrityViolationException dive) {
+			LOGGER.debug("STATS_REBUILD row was created by another instance.");
+		}
+	}
+
+	/** A change to the totals of one user and one day, as recorded after its commit. */
+	private static final class Change {
+		final long number;
+		final long recordedAt;
+		final long userId;
+		final LocalDate day;
+		final OrderTotals totals;
+
+		Change(long number, long recordedAt, long userId, LocalDate day, OrderTotals totals) {
+			this.number = number;
+			this.recordedAt = recordedAt;
+			this.userId = userId;
+			this.day = day;
+			this.totals = totals;
+		}
+	}
+
+	/** Totals read by a rebuild, and the last change number and time its read of ORDERS includes. */
+	private static final class Snapshot {
+		final long number;
+		final long takenAt;
+		final Map<Long, OrderTotals> users = new HashMap<Long, OrderTotals>();
+		final Map<LocalDate, OrderTotals> days = new HashMap<LocalDate, OrderTotals>();
+
+		Snapshot(long number, long takenAt) {
+			this.number = number;
+			this.takenAt = takenAt;
+		}
+	}
+}
\ No newline at end of file
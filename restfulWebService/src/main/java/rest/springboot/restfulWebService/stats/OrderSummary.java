@@ -0,0 +1,82 @@
+package rest.springboot.restfulWebService.stats;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import rest.springboot.restfulWebService.model.OrderLine;
+import rest.springboot.restfulWebService.model.Orders;
+
+/**
+ * OrderSummary class provides holder for what a single order adds to the
+ * totals of its user and of the day it was placed on, in the server's time
+ * zone. Taken when an order is read, as the order may change afterwards.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public final class OrderSummary {
+
+	private final long userId;
+	private final LocalDate day;
+	private final OrderTotals totals;
+
+	/** Parameterized constructor, also used by OrdersRepository.findSummaryByOidAndVersion. */
+	public OrderSummary(long userId, Date orderDate, int items, long revenue) {
+		this(userId, dayOf(orderDate), new OrderTotals(1, items, revenue));
+	}
+
+	private OrderSummary(long userId, LocalDate day, OrderTotals totals) {
+		this.userId = userId;
+		this.day = day;
+		this.totals = totals;
+	}
+
+	/** Summary of order as it is now. */
+	public static OrderSummary of(Orders order) {
+		List<OrderLine> lines = order.getLines();
+		return new OrderSummary(order.getUserId(), order.getOrderDate(), (lines == null) ? 0 : lines.size(),
+				order.getTotal());
+	}
+
+	/** Summaries of orders as they are now. */
+	public static List<OrderSummary> of(Collection<Orders> orders) {
+		List<OrderSummary> summaries = new ArrayList<OrderSummary>(orders.size());
+		for (Orders order : orders) {
+			summaries.add(of(order));
+		}
+		return summaries;
+	}
+
+	/**
+	 * Summary of this order once patched, as OrdersServiceImpl.patchOrder does.
+	 * @param userId: New user id; null keeps the current one.
+	 * @param orderDate: New order date.
+	 * @param lines: New priced line items; null keeps the current ones.
+	 * @return OrderSummary: Summary of the patched order.
+	 */
+	public OrderSummary patched(Long userId, Date orderDate, List<OrderLine> lines) {
+		return new OrderSummary((userId == null) ? this.userId : userId, orderDate,
+				(lines == null) ? (int) totals.getItems() : lines.size(),
+				(lines == null) ? totals.getRevenue() : Orders.total(lines));
+	}
+
+	/** Calendar day of date in the server's time zone, as ORDERS is queried by day. */
+	public static LocalDate dayOf(Date date) {
+		return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+	}
+
+	public long getUserId() {
+		return userId;
+	}
+
+	public LocalDate getDay() {
+		return day;
+	}
+
+	public OrderTotals getTotals() {
+		return totals;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package rest.springboot.restfulWebService.stats;
+
+/**
+ * OrderTotals class provides holder for the number of orders, line items and
+ * revenue of a set of orders; used for the totals of a user or a day and for
+ * changes to them. Instances are immutable.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public final class OrderTotals {
+
+	/** Totals of no orders. */
+	public static final OrderTotals ZERO = new OrderTotals(0, 0, 0);
+
+	private final long orders;
+	private final long items;
+	private final long revenue;
+
+	/** Parameterized constructor for totals. */
+	public OrderTotals(long orders, long items, long revenue) {
+		this.orders = orders;
+		this.items = items;
+		this.revenue = revenue;
+	}
+
+	/** Sum of these totals and other; null counts as ZERO. */
+	public OrderTotals plus(OrderTotals other) {
+		if (other == null) {
+			return this;
+		}
+		return new OrderTotals(orders + other.orders, items + other.items, revenue + other.revenue);
+	}
+
+	/** These totals with every count negated, for orders taken away. */
+	public OrderTotals negate() {
+		return new OrderTotals(-orders, -items, -revenue);
+	}
+
+	/** Whether all counts are 0. */
+	public boolean isZero() {
+		return orders == 0 && items == 0 && revenue == 0;
+	}
+
+	/** Number of orders. */
+	public long getOrders() {
+		return orders;
+	}
+
+	/** Number of line items of the orders. */
+	public long getItems() {
+		return items;
+	}
+
+	/** Sum of the order totals, i.e. of the unit prices of their line items. */
+	public long getRevenue() {
+		return revenue;
+	}
+
+	@Override
+	public String toString() {
+		return "OrderTotals [orders=" + orders + ", items=" + items + ", revenue=" + revenue + "]";
+	}
+}
\ No newline at end of file
@@ -0,0 +1,174 @@
+package rest.springboot.restfulWebService.validation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import rest.springboot.restfulWebService.repository.ProductRepository;
+import rest.springboot.restfulWebService.repository.UserRepository;
+import rest.springboot.restfulWebService.service.ProductChangedEvent;
+
+/**
+ * KnownIds answers whether the users and products an order refers to exist,
+ * for a whole batch of ids at once.
+ * Product ids are held as one set, loaded from PRODUCT on first use and
+ * dropped on every ProductChangedEvent. User ids confirmed to exist are kept
+ * in a bounded cache; the rest of a batch is looked up with chunked IN
+ * queries. Ids found missing are never cached, as they may be created later.
+ * Deleted users are evicted once the deleting transaction commits; evicted
+ * earlier, a concurrent lookup could still see the row and cache it again.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@Component
+public class KnownIds {
+
+	/** Logger instance for KnownIds class. */
+	private static final Logger LOGGER = LoggerFactory.getLogger(KnownIds.class);
+
+	/** Largest number of ids bound into a single IN list. */
+	static final int IN_CHUNK_SIZE = 500;
+
+	/** Injecting object dependency of ProductRepository. */
+	@Autowired
+	ProductRepository productRepository;
+
+	/** Injecting object dependency of UserRepository. */
+	@Autowired
+	UserRepository userRepository;
+
+	/** Largest number of user ids kept as known to exist. */
+	@Value("${oms.validation.known-users.max-entries:100000}")
+	long maxKnownUsers;
+
+	/** Ids of all products; null until loaded or after a product changed. */
+	private volatile Set<Long> productIds;
+
+	/** Number of product changes seen; a load racing a change is discarded. */
+	private long productChanges;
+
+	/** User ids confirmed to exist. */
+	private Cache<Long, Boolean> users;
+
+	@PostConstruct
+	void init() {
+		users = Caffeine.newBuilder().maximumSize(maxKnownUsers).build();
+	}
+
+	/**
+	 * @param ids: Product ids to check.
+	 * @return Set<Long>: Those of ids that are not in PRODUCT, empty if all are.
+	 */
+	public Set<Long> unknownProducts(Collection<Long> ids) {
+		Set<Long> known = productIds;
+		if (known == null) {
+			known = loadProductIds();
+		}
+
+		Set<Long> unknown = Collections.emptySet();
+		for (Long id : ids) {
+			if (!known.contains(id)) {
+				if (unknown.isEmpty()) {
+					unknown = new LinkedHashSet<Long>();
+				}
+				unknown.add(id);
+			}
+		}
+		return unknown;
+	}
+
+	/**
+	 * @param ids: User ids to check.
+	 * @return Set<Long>: Those of ids that are not in USER, empty if all are.
+	 */
+	public Set<Long> unknownUsers(Collection<Long> ids) {
+		List<Long> unconfirmed = null;
+		for (Long id : ids) {
+			if (users.getIfPresent(id) == null) {
+				if (unconfirmed == null) {
+					unconfirmed = new ArrayList<Long>();
+				}
+				unconfirmed.add(id);
+			}
+		}
+		if (unconfirmed == null) {
+			return Collections.emptySet();
+		}
+
+		Set<Long> unknown = new LinkedHashSet<Long>(unconfirmed);
+		List<Long> lookup = new ArrayList<Long>(unknown);
+		for (int from = 0; from < lookup.size(); from += IN_CHUNK_SIZE) {
+			List<Long> chunk = lookup.subList(from, Math.min(from + IN_CHUNK_SIZE, lookup.size()));
+			for (Long uid : userRepository.findExistingUids(chunk)) {
+				users.put(uid, Boolean.TRUE);
+				unknown.remove(uid);
+			}
+		}
+		return unknown;
+	}
+
+	/** Stops treating a deleted user as known, once the current transaction commits. */
+	public void forgetUser(long id) {
+		afterCommit(() -> users.invalidate(id));
+	}
+
+	/** Stops treating any user as known, after users were deleted in bulk. */
+	public void forgetUsers() {
+		afterCommit(users::invalidateAll);
+	}
+
+	private static void afterCommit(Runnable eviction) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					eviction.run();
+				}
+			});
+		} else {
+			eviction.run();
+		}
+	}
+
+	/** Drops the product ids once a product change commits, so they are reloaded. */
+	@TransactionalEventListener(fallbackExecution = true)
+	public synchronized void onProductChanged(ProductChangedEvent event) {
+		productChanges++;
+		productIds = null;
+	}
+
+	/** Reads all product ids, keeping them unless a product changed meanwhile. */
+	private Set<Long> loadProductIds() {
+		long changes;
+		synchronized (this) {
+			changes = productChanges;
+		}
+
+		Set<Long> known = Collections.unmodifiableSet(new HashSet<Long>(productRepository.findAllIds()));
+		synchronized (this) {
+			if (changes == productChanges) {
+				productIds = known;
+			}
+		}
+		LOGGER.debug("Loaded {} known product ids.", known.size());
+		return known;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+package rest.springboot.restfulWebService.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.http.HttpStatus;
+
+import rest.springboot.restfulWebService.responseHandler.ResponseHandler;
+
+/**
+ * Validator checks a request body against an ordered list of rules and
+ * returns the outcome of the first one it breaks. Rules are declared once,
+ * with their patterns compiled and their failures built up front, and each
+ * pattern is matched with a Matcher per thread, reset to every value, so the
+ * Validator itself allocates nothing per request once warm; checks passed to
+ * require allocate whatever they do. A valid body gets ResponseHandler.VALID
+ * and an invalid one the shared failure of the rule it broke.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+public final class Validator<T> {
+
+	/** A check together with the outcome of failing it. */
+	private static final class Rule<T> {
+		final Predicate<? super T> check;
+		final ResponseHandler failure;
+
+		Rule(Predicate<? super T> check, ResponseHandler failure) {
+			this.check = check;
+			this.failure = failure;
+		}
+	}
+
+	private final Rule<T>[] rules;
+
+	private Validator(Rule<T>[] rules) {
+		this.rules = rules;
+	}
+
+	/**
+	 * Validates target against every rule, in declaration order.
+	 * @param target: Request body to validate.
+	 * @return ResponseHandler: ResponseHandler.VALID, or the failure of the first rule broken.
+	 */
+	public ResponseHandler validate(T target) {
+		for (Rule<T> rule : rules) {
+			if (!rule.check.test(target)) {
+				return rule.failure;
+			}
+		}
+		return ResponseHandler.VALID;
+	}
+
+	public static <T> Builder<T> builder() {
+		return new Builder<T>();
+	}
+
+	/** Declares the rules of a Validator, in the order they are checked. */
+	public static final class Builder<T> {
+
+		private final List<Rule<T>> rules = new ArrayList<Rule<T>>();
+
+		private Builder() {
+		}
+
+		/** Rejects with 400 and message unless check holds. */
+		public Builder<T> require(Predicate<? super T> check, String message) {
+			rules.add(new Rule<T>(check, new ResponseHandler(HttpStatus.BAD_REQUEST, message)));
+			return this;
+		}
+
+		/** Rejects with 400 and message if field is null. */
+		public Builder<T> notNull(Function<? super T, ?> field, String message) {
+			return require(target -> field.apply(target) != null, message);
+		}
+
+		/**
+		 * Rejects with 400 and message if field is present but does not match
+		 * pattern in full. Each thread reuses one Matcher, which keeps a
+		 * reference to the last value it checked.
+		 */
+		public Builder<T> matches(Function<? super T, String> field, Pattern pattern, String message) {
+			ThreadLocal<Matcher> matcher = ThreadLocal.withInitial(() -> pattern.matcher(""));
+			return require(target -> {
+				String value = field.apply(target);
+				return value == null || matcher.get().reset(value).matches();
+			}, message);
+		}
+
+		@SuppressWarnings("unchecked")
+		public Validator<T> build() {
+			return new Validator<T>(rules.toArray(new Rule[rules.size()]));
+		}
+	}
+}
\ No newline at end of file
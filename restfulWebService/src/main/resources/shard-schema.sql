@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS orders (oid BIGINT NOT NULL, user_id BIGINT NOT NULL, total BIGINT DEFAULT 0,
+                order_date DATETIME(6), version BIGINT DEFAULT 0, PRIMARY KEY (oid));
+CREATE TABLE IF NOT EXISTS orders_product_id (orders_oid BIGINT NOT NULL, product_id BIGINT NOT NULL,
+                unit_price BIGINT DEFAULT 0);
+CREATE INDEX idx_orders_order_date ON orders (order_date);
+CREATE INDEX idx_orders_user_id_order_date ON orders (user_id, order_date);
+CREATE INDEX idx_orders_product_id_orders_oid ON orders_product_id (orders_oid);
\ No newline at end of file
@@ -1,19 +1,19 @@
 package rest.springboot.restfulWebService;
 
-import javax.activation.DataSource;
+import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.jdbc.datasource.DriverManagerDataSource;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
-@Configuration
+@TestConfiguration
 @EnableJpaRepositories(basePackages = "rest.springboot.restfulWebService")
-@PropertySource("omsTest.properties")
+@PropertySource("classpath:omsTest.properties")
 @EnableTransactionManagement
 public class OMSJpaConfig {
 	@Autowired
@@ -27,6 +27,6 @@ public class OMSJpaConfig {
         dataSource.setUsername(env.getProperty("spring.datasource.username"));
         dataSource.setPassword(env.getProperty("spring.datasource.password"));
 
-        return (DataSource) dataSource;
+        return dataSource;
     }
 }
\ No newline at end of file
@@ -0,0 +1,157 @@
+package rest.springboot.restfulWebService.coalescing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks that SingleFlight makes one call for concurrent callers of a key and
+ * hands its result, or its exception, to each of them.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+class SingleFlightTest {
+
+	/** Number of concurrent callers. */
+	static final int CALLERS = 8;
+
+	private MeterRegistry meterRegistry;
+	private ExecutorService callers;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		callers = Executors.newFixedThreadPool(CALLERS);
+	}
+
+	@AfterEach
+	void tearDown() {
+		callers.shutdownNow();
+	}
+
+	@Test
+	void concurrentCallersShareOneCall() throws Exception {
+		SingleFlight<Long, int[]> singleFlight = new SingleFlight<Long, int[]>("test", meterRegistry);
+		AtomicInteger calls = new AtomicInteger();
+		int[] result = { 42 };
+
+		List<Future<int[]>> results = callConcurrently(singleFlight, () -> {
+			calls.incrementAndGet();
+			return result;
+		});
+
+		for (Future<int[]> caller : results) {
+			assertSame(result, caller.get());
+		}
+		assertEquals(1, calls.get());
+		assertEquals(1, count("led"));
+		assertEquals(CALLERS - 1, count("shared"));
+	}
+
+	@Test
+	void exceptionReachesEveryCaller() throws Exception {
+		SingleFlight<Long, int[]> singleFlight = new SingleFlight<Long, int[]>("test", meterRegistry);
+		AtomicInteger calls = new AtomicInteger();
+		IllegalStateException failure = new IllegalStateException("read failed");
+
+		List<Future<int[]>> results = callConcurrently(singleFlight, () -> {
+			calls.incrementAndGet();
+			throw failure;
+		});
+
+		for (Future<int[]> caller : results) {
+			ExecutionException ee = null;
+			try {
+				caller.get();
+			} catch (ExecutionException e) {
+				ee = e;
+			}
+			assertSame(failure, (ee == null) ? null : ee.getCause());
+		}
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	void everyCallerGetsCopyOfItsOwn() throws Exception {
+		SingleFlight<Long, int[]> singleFlight = new SingleFlight<Long, int[]>("test", meterRegistry, int[]::clone);
+		int[] result = { 42 };
+
+		List<Future<int[]>> results = callConcurrently(singleFlight, () -> result);
+
+		List<int[]> copies = new ArrayList<int[]>();
+		for (Future<int[]> caller : results) {
+			int[] copy = caller.get();
+			assertNotSame(result, copy);
+			copies.forEach(other -> assertNotSame(other, copy));
+			copies.add(copy);
+			copy[0]++;
+		}
+		copies.forEach(copy -> assertArrayEquals(new int[] { 43 }, copy));
+		assertArrayEquals(new int[] { 42 }, result);
+	}
+
+	@Test
+	void resultIsNotKeptOnceCallCompletes() throws Throwable {
+		SingleFlight<Long, Integer> singleFlight = new SingleFlight<Long, Integer>("test", meterRegistry);
+		AtomicInteger calls = new AtomicInteger();
+
+		assertEquals(1, (int) singleFlight.execute(1L, calls::incrementAndGet));
+		assertEquals(2, (int) singleFlight.execute(1L, calls::incrementAndGet));
+	}
+
+	/**
+	 * Runs CALLERS concurrent calls for the same key; the call made is held
+	 * until all other callers have joined it.
+	 */
+	private <V> List<Future<V>> callConcurrently(SingleFlight<Long, V> singleFlight, SingleFlight.Call<V> call)
+			throws InterruptedException {
+		CountDownLatch joined = new CountDownLatch(1);
+		SingleFlight.Call<V> held = () -> {
+			assertTrue(joined.await(10, TimeUnit.SECONDS), "Callers did not join the call in flight.");
+			return call.call();
+		};
+
+		List<Future<V>> results = new ArrayList<Future<V>>();
+		for (int i = 0; i < CALLERS; i++) {
+			results.add(callers.submit(() -> {
+				try {
+					return singleFlight.execute(7L, held);
+				} catch (Exception | Error e) {
+					throw e;
+				} catch (Throwable t) {
+					throw new IllegalStateException(t);
+				}
+			}));
+		}
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (count("shared") < CALLERS - 1 && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		joined.countDown();
+		return results;
+	}
+
+	private double count(String result) {
+		return meterRegistry.get(SingleFlight.METRIC).tag("result", result).counter().count();
+	}
+}
\ No newline at end of file
@@ -0,0 +1,179 @@
+package rest.springboot.restfulWebService.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import rest.springboot.restfulWebService.model.User;
+import rest.springboot.restfulWebService.repository.UserRepository;
+import rest.springboot.restfulWebService.service.UserService;
+
+/**
+ * Checks that the read-only transactions of service reads are routed to a
+ * replica and everything else, repository reads included, to the primary,
+ * using the separate H2 databases of omsReplicas.properties, and that reads
+ * fall back to the primary when no replica passes its check.
+ * Nothing replicates between them, so what a read sees tells where it ran.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@SpringBootTest
+@TestPropertySource(locations = { "classpath:omsTest.properties", "classpath:omsReplicas.properties" },
+		properties = "oms.read-replicas.check-interval-ms=3600000")
+class ReplicaRoutingTest {
+
+	static final String PRIMARY_URL = "jdbc:h2:mem:primary";
+	static final String REPLICA_URL = "jdbc:h2:mem:replica0";
+
+	@Autowired
+	UserService userService;
+
+	@Autowired
+	UserRepository userRepository;
+
+	@Autowired
+	ReadReplicaConfig readReplicaConfig;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+				Statement statement = replica.createStatement()) {
+			if (!hasTable(replica, "USER")) {
+				for (String ddl : schemaOfPrimary()) {
+					statement.execute(ddl);
+				}
+			}
+			statement.execute("create table if not exists replica_lag as select cast(null as int) as lag");
+			statement.execute("update replica_lag set lag = 0");
+		}
+		readReplicaConfig.checkReplicas();
+	}
+
+	@Test
+	void readOnlyTransactionsGoToReplica() throws Exception {
+		User user = userService.addNewUser(new User("Ann", "x", 9999999990L, "ann.replica@x.io"));
+		double replicaReads = connections("replica-0");
+
+		assertFalse(userService.getUser(user.getUid()).isPresent(), "Read-only read did not go to the replica.");
+		assertEquals(replicaReads + 1, connections("replica-0"));
+	}
+
+	@Test
+	void repositoryReadsOutsideServiceReadsGoToPrimary() throws Exception {
+		User user = userService.addNewUser(new User("Eve", "x", 9999999994L, "eve.replica@x.io"));
+		double replicaReads = connections("replica-0");
+
+		assertTrue(userRepository.findById(user.getUid()).isPresent(), "Repository read went to the replica.");
+		assertEquals(replicaReads, connections("replica-0"));
+	}
+
+	@Test
+	void writesGoToPrimary() throws Exception {
+		double primaryConnections = connections(ReplicaRoutingDataSource.PRIMARY);
+		User user = userService.addNewUser(new User("Bob", "x", 9999999991L, "bob.replica@x.io"));
+
+		assertEquals(primaryConnections + 1, connections(ReplicaRoutingDataSource.PRIMARY));
+		Boolean readOnPrimary = readWrite().execute(status -> userService.getUser(user.getUid()).isPresent());
+		assertTrue(readOnPrimary, "Read in a read-write transaction did not go to the primary.");
+		try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+				Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "")) {
+			assertEquals(1, countUsers(primary, user.getUid()));
+			assertEquals(0, countUsers(replica, user.getUid()));
+		}
+	}
+
+	@Test
+	void readsFallBackToPrimaryWhenReplicaLags() throws Exception {
+		User user = userService.addNewUser(new User("Cid", "x", 9999999992L, "cid.replica@x.io"));
+		execute("update replica_lag set lag = 60");
+		readReplicaConfig.checkReplicas();
+
+		assertFallsBack(user);
+	}
+
+	@Test
+	void readsFallBackToPrimaryWhenReplicaIsDown() throws Exception {
+		User user = userService.addNewUser(new User("Dee", "x", 9999999993L, "dee.replica@x.io"));
+		execute("drop table replica_lag");
+		readReplicaConfig.checkReplicas();
+
+		assertFallsBack(user);
+	}
+
+	/** Checks that a read-only read of user ran on the primary, as no replica is usable. */
+	private void assertFallsBack(User user) {
+		double fallbacks = meterRegistry.get("oms.datasource.replica.fallbacks").counter().count();
+		double replicaReads = connections("replica-0");
+
+		assertTrue(userService.getUser(user.getUid()).isPresent(), "Read-only read did not fall back to the primary.");
+		assertEquals(fallbacks + 1, meterRegistry.get("oms.datasource.replica.fallbacks").counter().count());
+		assertEquals(replicaReads, connections("replica-0"));
+	}
+
+	private TransactionTemplate readWrite() {
+		return new TransactionTemplate(transactionManager);
+	}
+
+	private double connections(String target) {
+		return meterRegistry.get(ReplicaRoutingDataSource.CONNECTIONS_METRIC).tag("target", target).counter().count();
+	}
+
+	private static void execute(String sql) throws SQLException {
+		try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+				Statement statement = replica.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+
+	/** DDL of the primary's tables and sequences, as H2 scripts it. */
+	private static List<String> schemaOfPrimary() throws SQLException {
+		List<String> ddl = new ArrayList<String>();
+		try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+				Statement statement = primary.createStatement();
+				ResultSet script = statement.executeQuery("script nodata")) {
+			while (script.next()) {
+				if (!script.getString(1).startsWith("CREATE USER")) {
+					ddl.add(script.getString(1));
+				}
+			}
+		}
+		return ddl;
+	}
+
+	private static boolean hasTable(Connection connection, String table) throws SQLException {
+		try (ResultSet tables = connection.getMetaData().getTables(null, null, table, null)) {
+			return tables.next();
+		}
+	}
+
+	private static long countUsers(Connection connection, long uid) throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet count = statement.executeQuery("select count(*) from user where uid = " + uid)) {
+			count.next();
+			return count.getLong(1);
+		}
+	}
+}
\ No newline at end of file
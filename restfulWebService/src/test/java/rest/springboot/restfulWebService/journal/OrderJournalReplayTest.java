@@ -0,0 +1,113 @@
+package rest.springboot.restfulWebService.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import rest.springboot.restfulWebService.datasource.DataSourceNode;
+import rest.springboot.restfulWebService.model.OrderLine;
+import rest.springboot.restfulWebService.model.Orders;
+import rest.springboot.restfulWebService.sharding.OrderShard;
+
+/**
+ * Checks that OrderJournalReplay applies the changes to an order in version
+ * order, whatever order they were journaled in.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+class OrderJournalReplayTest {
+
+	@TempDir
+	Path directory;
+
+	private OrderShard target;
+
+	@BeforeEach
+	void setUp() {
+		DataSourceNode node = new DataSourceNode();
+		node.setUrl("jdbc:h2:mem:replay;DB_CLOSE_DELAY=-1");
+		node.setUsername("sa");
+		node.setMaximumPoolSize(1);
+		target = new OrderShard(0, node.build("replay"));
+		target.createSchema();
+		target.delete(target.findOidsAfter(0, Integer.MAX_VALUE));
+	}
+
+	@AfterEach
+	void tearDown() {
+		target.close();
+	}
+
+	@Test
+	void patchJournaledBeforeTheUpdateItFollowsIsHeldBack() throws Exception {
+		replay(created(1, 1), patched(1, 2, 3), updated(1, 1, 2));
+
+		Orders order = find(1);
+		assertEquals(2, order.getVersion());
+		assertEquals(3, order.getUserId());
+	}
+
+	@Test
+	void changeJournaledAfterANewerOneIsSkipped() throws Exception {
+		replay(updated(1, 1, 2), created(1, 1), patched(1, 2, 3), updated(1, 1, 4));
+
+		Orders order = find(1);
+		assertEquals(2, order.getVersion());
+		assertEquals(3, order.getUserId());
+	}
+
+	@Test
+	void changeJournaledAfterTheDeleteIsSkipped() throws Exception {
+		replay(created(1, 1), JournalRecord.deleted(Collections.singletonList(1L)).get(0), updated(1, 1, 2),
+				patched(1, 2, 3));
+
+		assertFalse(target.findByOids(Collections.singletonList(1L)).containsKey(1L));
+	}
+
+	private void replay(JournalRecord... records) throws Exception {
+		JournalSegment segment = JournalSegment.open(directory, 0, 1 << 16);
+		for (JournalRecord record : records) {
+			segment.append(record.encode());
+		}
+		segment.force();
+		segment.close();
+
+		new OrderJournalReplay(target, Long.MAX_VALUE).replay(directory);
+	}
+
+	private Orders find(long oid) {
+		Map<Long, Orders> orders = target.findByOids(Collections.singletonList(oid));
+		return orders.get(oid);
+	}
+
+	private static JournalRecord created(long oid, long userId) {
+		return JournalRecord.created(Collections.singletonList(order(oid, 0, userId))).get(0);
+	}
+
+	private static JournalRecord updated(long oid, long version, long userId) {
+		return JournalRecord.updated(order(oid, version, userId));
+	}
+
+	private static JournalRecord patched(long oid, long version, long userId) {
+		return JournalRecord.patched(oid, version, userId, new Date(), null);
+	}
+
+	private static Orders order(long oid, long version, long userId) {
+		List<OrderLine> lines = Arrays.asList(new OrderLine(1, 100), new OrderLine(2, 200));
+		Orders order = new Orders(userId, new Date(), lines);
+		order.setOid(oid);
+		order.setVersion(version);
+		return order;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package rest.springboot.restfulWebService.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks that OrderJournal confirms appended records once forced, and that
+ * waiting for records that are not forced gives up after the timeout.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+class OrderJournalTest {
+
+	@TempDir
+	Path directory;
+
+	private OrderJournal orderJournal;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		orderJournal = new OrderJournal();
+		orderJournal.dir = directory.toString();
+		orderJournal.segmentSize = DataSize.ofKilobytes(64);
+		orderJournal.sync = true;
+		orderJournal.syncTimeout = Duration.ofMillis(100);
+		orderJournal.meterRegistry = new SimpleMeterRegistry();
+		orderJournal.init();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		orderJournal.stop();
+	}
+
+	@Test
+	void appendedRecordsAreConfirmedOnDisk() throws Exception {
+		long ticket = orderJournal.append(JournalRecord.deleted(Collections.singletonList(1L)));
+
+		assertTrue(orderJournal.awaitDurable(ticket, Duration.ofSeconds(10)));
+		assertEquals(Status.UP, orderJournal.health().getStatus());
+	}
+
+	@Test
+	void waitForRecordsNeverForcedIsBounded() throws Exception {
+		long ticket = orderJournal.append(JournalRecord.deleted(Collections.singletonList(1L)));
+		orderJournal.awaitDurable(ticket, Duration.ofSeconds(10));
+
+		long start = System.nanoTime();
+		assertFalse(orderJournal.awaitDurable(ticket + 1, Duration.ofMillis(100)));
+		assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+	}
+}
\ No newline at end of file
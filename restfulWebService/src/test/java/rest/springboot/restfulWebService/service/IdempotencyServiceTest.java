@@ -0,0 +1,208 @@
+package rest.springboot.restfulWebService.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import rest.springboot.restfulWebService.repository.IdempotencyRecordRepository;
+
+/**
+ * Checks IdempotencyService against IDEMPOTENCY_KEY: a key is claimed and its
+ * response replayed, a lapsed claim is taken over, a key reused with another
+ * body gets 422 and one still running gets 409, responses that may be
+ * retried are not recorded, and another instance replays what this one
+ * recorded. Another instance is a second IdempotencyService on the same
+ * database, with nothing in its memory.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:omsTest.properties")
+class IdempotencyServiceTest {
+
+	static final String ENDPOINT = "POST /oms/order";
+
+	@Autowired
+	IdempotencyService idempotencyService;
+
+	@Autowired
+	IdempotencyRecordRepository idempotencyRecordRepository;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	MeterRegistry meterRegistry;
+
+	@Value("${oms.idempotency.ttl:24h}")
+	Duration ttl;
+
+	@Value("${oms.idempotency.pending-ttl:1m}")
+	Duration pendingTtl;
+
+	/** Runs of the action. */
+	private final AtomicInteger runs = new AtomicInteger();
+
+	private String key;
+
+	private Map<String, Object> body;
+
+	@BeforeEach
+	void setUp() {
+		key = UUID.randomUUID().toString();
+		body = Collections.<String, Object>singletonMap("userId", 1);
+	}
+
+	@Test
+	void firstRequestClaimsTheKeyAndRepeatsAreReplayed() {
+		ResponseEntity<?> first = idempotencyService.execute(ENDPOINT, key, body, created());
+		ResponseEntity<?> repeat = idempotencyService.execute(ENDPOINT, key, body, created());
+
+		assertEquals(1, runs.get());
+		assertEquals(HttpStatus.CREATED, first.getStatusCode());
+		assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+		assertReplayed(repeat);
+	}
+
+	@Test
+	void lapsedPendingClaimIsTakenOver() {
+		idempotencyRecordRepository.insertPending(ENDPOINT + " " + key, "stale",
+				new Date(System.currentTimeMillis() - pendingTtl.toMillis() - 1000));
+
+		ResponseEntity<?> response = idempotencyService.execute(ENDPOINT, key, body, created());
+
+		assertEquals(1, runs.get());
+		assertEquals(HttpStatus.CREATED, response.getStatusCode());
+		assertFalse(idempotencyRecordRepository.findById(ENDPOINT + " " + key).get().isPending());
+	}
+
+	@Test
+	void keyReusedWithAnotherBodyIsRejected() {
+		idempotencyService.execute(ENDPOINT, key, body, created());
+
+		ResponseEntity<?> response = idempotencyService.execute(ENDPOINT, key,
+				Collections.<String, Object>singletonMap("userId", 2), created());
+
+		assertEquals(1, runs.get());
+		assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+	}
+
+	@Test
+	void keyRunningOnAnotherInstanceGetsConflict() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<ResponseEntity<?>> running = CompletableFuture
+				.supplyAsync(() -> idempotencyService.execute(ENDPOINT, key, body, () -> {
+					await(release);
+					return created().get();
+				}));
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!idempotencyRecordRepository.existsById(ENDPOINT + " " + key)
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		IdempotencyService other = anotherInstance();
+		assertEquals(HttpStatus.CONFLICT, other.execute(ENDPOINT, key, body, created()).getStatusCode());
+
+		release.countDown();
+		assertEquals(HttpStatus.CREATED, running.get(10, TimeUnit.SECONDS).getStatusCode());
+		assertEquals(1, runs.get());
+		assertReplayed(other.execute(ENDPOINT, key, body, created()));
+	}
+
+	@Test
+	void responsesThatMayBeRetriedAreNotRecorded() {
+		for (HttpStatus status : new HttpStatus[] { HttpStatus.INTERNAL_SERVER_ERROR, HttpStatus.SERVICE_UNAVAILABLE,
+				HttpStatus.CONFLICT, HttpStatus.TOO_MANY_REQUESTS }) {
+			String _key = key + "-" + status.value();
+			ResponseEntity<?> failed = idempotencyService.execute(ENDPOINT, _key, body,
+					() -> new ResponseEntity<>(status));
+
+			assertEquals(status, failed.getStatusCode());
+			assertFalse(idempotencyRecordRepository.existsById(ENDPOINT + " " + _key));
+			assertEquals(HttpStatus.CREATED, idempotencyService.execute(ENDPOINT, _key, body, created())
+					.getStatusCode());
+		}
+		assertEquals(4, runs.get());
+	}
+
+	@Test
+	void anotherInstanceReplaysTheRecordedResponse() {
+		idempotencyService.execute(ENDPOINT, key, body, created());
+
+		assertReplayed(anotherInstance().execute(ENDPOINT, key, body, created()));
+		assertEquals(1, runs.get());
+	}
+
+	@Test
+	void overlongKeyIsRejected() {
+		StringBuilder overlong = new StringBuilder();
+		while (overlong.length() <= IdempotencyService.MAX_KEY_LENGTH) {
+			overlong.append(key);
+		}
+
+		assertEquals(HttpStatus.BAD_REQUEST,
+				idempotencyService.execute(ENDPOINT, overlong.toString(), body, created()).getStatusCode());
+		assertEquals(0, runs.get());
+	}
+
+	/** Action answering 201 with a body, counting its runs. */
+	private Supplier<ResponseEntity<?>> created() {
+		return () -> new ResponseEntity<>(Collections.singletonMap("oid", runs.incrementAndGet()),
+				HttpStatus.CREATED);
+	}
+
+	private static void assertReplayed(ResponseEntity<?> response) {
+		assertEquals(HttpStatus.CREATED, response.getStatusCode());
+		assertEquals("true", response.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+		assertTrue(response.getBody() instanceof JsonNode);
+		assertEquals(1, ((JsonNode) response.getBody()).get("oid").asInt());
+	}
+
+	/** IdempotencyService sharing this one's database but not its memory. */
+	private IdempotencyService anotherInstance() {
+		IdempotencyService other = new IdempotencyService();
+		other.idempotencyRecordRepository = idempotencyRecordRepository;
+		other.objectMapper = objectMapper;
+		other.meterRegistry = meterRegistry;
+		other.ttl = ttl;
+		other.pendingTtl = pendingTtl;
+		other.maxEntries = 100;
+		other.init();
+		return other;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException ie) {
+			throw new IllegalStateException(ie);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+package rest.springboot.restfulWebService.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import rest.springboot.restfulWebService.model.Product;
+import rest.springboot.restfulWebService.repository.ProductRepository;
+
+/**
+ * Checks that PriceTable prices orders at a product's new price once its
+ * update commits, including when a load that read the old price finishes
+ * after the update.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:omsTest.properties")
+class PriceTableTest {
+
+	/** Product repriced by the tests. */
+	static final long PRODUCT_ID = 9;
+
+	@Autowired
+	PriceTable priceTable;
+
+	@Autowired
+	ProductService productService;
+
+	@Test
+	void updatedPriceIsUsedOnceCommitted() {
+		Product product = productService.getProduct(PRODUCT_ID).get();
+		assertEquals(product.getPrice(), price(priceTable));
+
+		long newPrice = product.getPrice() + 100;
+		productService.updateProductData(PRODUCT_ID,
+				new Product(product.getName(), product.getQty(), newPrice, product.getCategoryId()));
+
+		assertEquals(newPrice, price(priceTable));
+	}
+
+	@Test
+	void priceReadBeforeAChangeIsNotKept() {
+		PriceTable table = new PriceTable();
+		table.productRepository = mock(ProductRepository.class);
+		List<Object[]> oldPrice = Collections.singletonList(new Object[] { PRODUCT_ID, 100L });
+		List<Object[]> newPrice = Collections.singletonList(new Object[] { PRODUCT_ID, 200L });
+		when(table.productRepository.findPricesByIdIn(anyCollection())).thenAnswer(invocation -> {
+			table.onProductChanged(new ProductChangedEvent(PRODUCT_ID));
+			return oldPrice;
+		}).thenReturn(newPrice);
+
+		assertEquals(100L, price(table));
+		assertEquals(200L, price(table));
+		assertEquals(200L, price(table));
+	}
+
+	private static long price(PriceTable table) {
+		return table.price(Collections.singletonList(PRODUCT_ID)).get(0).getUnitPrice();
+	}
+}
\ No newline at end of file
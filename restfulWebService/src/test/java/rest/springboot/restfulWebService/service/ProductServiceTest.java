@@ -0,0 +1,84 @@
+package rest.springboot.restfulWebService.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import rest.springboot.restfulWebService.model.Product;
+
+/**
+ * Checks that ProductService caches products only as committed: a rolled
+ * back write leaves the cached product as it was, and a committed one is
+ * read back at once.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:omsTest.properties")
+class ProductServiceTest {
+
+	/** Product renamed by the tests. */
+	static final long PRODUCT_ID = 10;
+
+	@Autowired
+	ProductService productService;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	private Product original;
+
+	@BeforeEach
+	void setUp() {
+		original = productService.getProduct(PRODUCT_ID).get();
+	}
+
+	@AfterEach
+	void tearDown() {
+		productService.updateProductData(PRODUCT_ID, original);
+	}
+
+	@Test
+	void rolledBackUpdateIsNotCached() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			productService.updateProductData(PRODUCT_ID, renamed("rolled back"));
+			status.setRollbackOnly();
+		});
+
+		assertEquals(original.getName(), productService.getProduct(PRODUCT_ID).get().getName());
+		assertFalse(productService.getAllProducts().stream().anyMatch(p -> p.getName().equals("rolled back")));
+	}
+
+	@Test
+	void committedUpdateIsReadBack() {
+		productService.getAllProducts();
+		productService.updateProductData(PRODUCT_ID, renamed("committed"));
+
+		assertEquals("committed", productService.getProduct(PRODUCT_ID).get().getName());
+		assertTrue(productService.getAllProducts().stream().anyMatch(p -> p.getName().equals("committed")));
+	}
+
+	@Test
+	void rolledBackProductIsNotCached() {
+		long[] id = new long[1];
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			id[0] = productService.addNewProduct(renamed("never added")).getId();
+			status.setRollbackOnly();
+		});
+
+		assertFalse(productService.getProduct(id[0]).filter(p -> p.getName().equals("never added")).isPresent());
+	}
+
+	private Product renamed(String name) {
+		return new Product(name, original.getQty(), original.getPrice(), original.getCategoryId());
+	}
+}
\ No newline at end of file
@@ -0,0 +1,160 @@
+package rest.springboot.restfulWebService.serviceImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import rest.springboot.restfulWebService.exception.OutOfStockException;
+import rest.springboot.restfulWebService.repository.ProductRepository;
+import rest.springboot.restfulWebService.service.ProductChangedEvent;
+
+/**
+ * Checks that InventoryServiceImpl reserves stock in the caller's transaction:
+ * as many orders as there are units succeed however many race for them, a
+ * full connection pool does not stall them, and a rollback returns the stock
+ * to both the ledger and PRODUCT.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:omsTest.properties", properties = {
+		"spring.datasource.hikari.maximum-pool-size=" + InventoryServiceImplTest.POOL_SIZE,
+		"spring.datasource.hikari.connection-timeout=2000" })
+class InventoryServiceImplTest {
+
+	static final int POOL_SIZE = 3;
+
+	/** Product reserved by the tests, and its stock at the start of each. */
+	static final long PRODUCT_ID = 7;
+	static final int STOCK = 5;
+
+	@Autowired
+	InventoryServiceImpl inventoryService;
+
+	@Autowired
+	ProductRepository productRepository;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	private TransactionTemplate transaction;
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.update("update product set qty = ? where id = ?", STOCK, PRODUCT_ID);
+		inventoryService.onProductChanged(new ProductChangedEvent(PRODUCT_ID));
+		transaction = new TransactionTemplate(transactionManager);
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void reservationsInEveryPooledConnectionDoNotWaitForAnother() throws Exception {
+		CyclicBarrier allHoldConnections = new CyclicBarrier(POOL_SIZE);
+		List<Future<?>> orders = new ArrayList<Future<?>>();
+		for (int i = 0; i < POOL_SIZE; i++) {
+			orders.add(executor.submit(() -> transaction.executeWithoutResult(status -> {
+				productRepository.findQtyById(PRODUCT_ID);
+				await(allHoldConnections);
+				inventoryService.reserve(Collections.singletonList(PRODUCT_ID));
+			})));
+		}
+		for (Future<?> order : orders) {
+			order.get(10, TimeUnit.SECONDS);
+		}
+
+		assertStock(STOCK - POOL_SIZE);
+	}
+
+	@Test
+	void racingReservationsTakeEachUnitOnce() throws Exception {
+		int orders = 4 * STOCK;
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+		for (int i = 0; i < orders; i++) {
+			results.add(executor.submit(() -> {
+				try {
+					transaction.executeWithoutResult(
+							status -> inventoryService.reserve(Collections.singletonList(PRODUCT_ID)));
+					return true;
+				} catch (OutOfStockException oose) {
+					return false;
+				}
+			}));
+		}
+
+		int reserved = 0;
+		for (Future<Boolean> result : results) {
+			reserved += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+		}
+		assertEquals(STOCK, reserved);
+		assertStock(0);
+	}
+
+	@Test
+	void outOfStockTakesNothing() {
+		assertThrows(OutOfStockException.class, () -> transaction.executeWithoutResult(status -> inventoryService
+				.reserve(Arrays.asList(PRODUCT_ID, PRODUCT_ID, PRODUCT_ID, PRODUCT_ID, PRODUCT_ID, PRODUCT_ID))));
+
+		assertStock(STOCK);
+	}
+
+	@Test
+	void rollbackReturnsReservedStock() {
+		transaction.executeWithoutResult(status -> {
+			inventoryService.reserve(Arrays.asList(PRODUCT_ID, PRODUCT_ID));
+			assertEquals(STOCK - 2, inventoryService.getAvailable(PRODUCT_ID));
+			status.setRollbackOnly();
+		});
+
+		assertStock(STOCK);
+	}
+
+	@Test
+	void reservationOutsideATransactionIsWrittenAtOnce() {
+		inventoryService.reserve(Arrays.asList(PRODUCT_ID, PRODUCT_ID));
+
+		assertStock(STOCK - 2);
+	}
+
+	/** Checks both the ledger and PRODUCT. */
+	private void assertStock(int expected) {
+		assertEquals(expected, inventoryService.getAvailable(PRODUCT_ID));
+		assertEquals(expected, (int) productRepository.findQtyById(PRODUCT_ID).get());
+	}
+
+	private static void await(CyclicBarrier barrier) {
+		try {
+			barrier.await(10, TimeUnit.SECONDS);
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
\ No newline at end of file
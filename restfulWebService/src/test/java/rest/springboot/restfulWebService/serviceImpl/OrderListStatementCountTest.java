@@ -0,0 +1,100 @@
+package rest.springboot.restfulWebService.serviceImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import rest.springboot.restfulWebService.model.OrderLine;
+import rest.springboot.restfulWebService.model.Orders;
+import rest.springboot.restfulWebService.repository.OrdersRepository;
+import rest.springboot.restfulWebService.service.OrderService;
+
+/**
+ * Checks that listing orders costs a fixed number of SQL statements however
+ * many orders are listed, i.e. that line items are not loaded per order.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:omsTest.properties", properties = {
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN" })
+class OrderListStatementCountTest {
+
+	/** Statements a page costs: one for the page of order ids, one joining in the orders and their lines. */
+	static final long STATEMENTS_PER_PAGE = 2;
+
+	@Autowired
+	OrderService orderService;
+
+	@Autowired
+	OrdersRepository ordersRepository;
+
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		orderService.removeOrders();
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 10, 100 })
+	void pageOfOrdersTakesFixedStatementCount(int orders) throws Exception {
+		saveOrders(orders);
+
+		statistics.clear();
+		List<Orders> page = orderService.getAllOrders(0, orders);
+		String json = objectMapper.writeValueAsString(page);
+
+		assertEquals(STATEMENTS_PER_PAGE, statistics.getPrepareStatementCount());
+		assertEquals(orders, page.size());
+		assertEquals(orders, objectMapper.readTree(json).size());
+		page.forEach(order -> assertEquals(Arrays.asList(1L, 2L), order.getProductId()));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 10, 100 })
+	void ordersOfDayTakeFixedStatementCount(int orders) throws Exception {
+		saveOrders(orders);
+
+		statistics.clear();
+		List<Orders> page = orderService.getOrdersForDay(LocalDate.now(), 0, orders).getContent();
+		objectMapper.writeValueAsString(page);
+
+		assertEquals(STATEMENTS_PER_PAGE, statistics.getPrepareStatementCount());
+		assertEquals(orders, page.size());
+		page.forEach(order -> assertEquals(Arrays.asList(1L, 2L), order.getProductId()));
+	}
+
+	private void saveOrders(int count) {
+		List<Orders> orders = new ArrayList<Orders>(count);
+		for (int i = 0; i < count; i++) {
+			orders.add(new Orders(1, new Date(), Arrays.asList(new OrderLine(1, 100), new OrderLine(2, 200))));
+		}
+		ordersRepository.saveAll(orders);
+	}
+}
\ No newline at end of file
@@ -0,0 +1,152 @@
+package rest.springboot.restfulWebService.serviceImpl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.TestPropertySource;
+
+import rest.springboot.restfulWebService.model.Orders;
+import rest.springboot.restfulWebService.service.InventoryService;
+import rest.springboot.restfulWebService.service.OrderService;
+import rest.springboot.restfulWebService.sharding.OrderShard;
+import rest.springboot.restfulWebService.sharding.OrderShards;
+import rest.springboot.restfulWebService.sharding.ShardKeys;
+
+/**
+ * Checks ShardedOrdersServiceImpl against the two in-memory shards of
+ * omsShards.properties: orders are kept on the shard of their user, pages
+ * gathered from both shards come out in order, and deleting all orders
+ * empties both shards and returns the stock of their lines.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@SpringBootTest
+@TestPropertySource(locations = { "classpath:omsTest.properties", "classpath:omsShards.properties" },
+		properties = "oms.delete.chunk-size=3")
+class ShardedOrdersServiceTest {
+
+	/** Orders created per test, by users 1 to ORDERS. */
+	static final int ORDERS = 20;
+
+	@Autowired
+	OrderService orderService;
+
+	@Autowired
+	OrderShards orderShards;
+
+	@Autowired
+	InventoryService inventoryService;
+
+	@BeforeEach
+	void setUp() {
+		assertTrue(orderService instanceof ShardedOrdersServiceImpl);
+		orderService.removeOrders();
+	}
+
+	@Test
+	void ordersAreKeptOnTheShardOfTheirUser() {
+		List<Orders> orders = createOrders();
+
+		Map<OrderShard, Integer> counts = new HashMap<OrderShard, Integer>();
+		for (Orders order : orders) {
+			OrderShard shard = orderShards.forUser(order.getUserId());
+			assertEquals(ShardKeys.bucketOfUser(order.getUserId()), ShardKeys.bucketOfOrder(order.getOid()));
+			assertSame(shard, orderShards.forOrder(order.getOid()));
+			for (OrderShard other : orderShards.getShards()) {
+				assertEquals(other == shard,
+						!other.findExistingOids(Collections.singletonList(order.getOid())).isEmpty());
+			}
+			counts.merge(shard, 1, Integer::sum);
+		}
+
+		assertEquals(2, counts.size(), "users 1 to " + ORDERS + " should reach both shards");
+		for (OrderShard shard : orderShards.getShards()) {
+			assertEquals((long) counts.get(shard), shard.countOrders());
+		}
+	}
+
+	@Test
+	void pagesOfAllOrdersMergeShardsInIdOrder() {
+		List<Long> expected = new ArrayList<Long>();
+		createOrders().forEach(order -> expected.add(order.getOid()));
+		Collections.sort(expected);
+
+		List<Long> oids = new ArrayList<Long>();
+		List<Integer> sizes = new ArrayList<Integer>();
+		List<Orders> page;
+		long after = 0;
+		while (!(page = orderService.getAllOrders(after, 7)).isEmpty()) {
+			sizes.add(page.size());
+			page.forEach(order -> oids.add(order.getOid()));
+			after = page.get(page.size() - 1).getOid();
+		}
+
+		assertEquals(expected, oids);
+		assertEquals(Arrays.asList(7, 7, 6), sizes);
+	}
+
+	@Test
+	void pagesOfOrdersBetweenMergeShardsInDateOrder() {
+		Date from = new Date(System.currentTimeMillis() - 1000);
+		List<Orders> created = createOrders();
+		Date to = new Date(System.currentTimeMillis() + 1000);
+		created.sort(Comparator.comparing(Orders::getOrderDate).thenComparingLong(Orders::getOid));
+		List<Long> expected = new ArrayList<Long>();
+		created.forEach(order -> expected.add(order.getOid()));
+
+		List<Long> oids = new ArrayList<Long>();
+		Slice<Orders> slice;
+		int page = 0;
+		do {
+			slice = orderService.getOrdersBetween(from, to, page++, 6);
+			slice.getContent().forEach(order -> oids.add(order.getOid()));
+		} while (slice.hasNext());
+
+		assertEquals(expected, oids);
+		assertEquals(4, page);
+	}
+
+	@Test
+	void removeOrdersEmptiesEveryShardAndReleasesStock() {
+		int available = inventoryService.getAvailable(1);
+		List<Orders> orders = new ArrayList<Orders>();
+		for (long userId = 1; userId <= 4; userId++) {
+			orders.add(new Orders(null, Collections.singletonList(1L), userId));
+		}
+		orderService.addNewOrders(orders);
+		assertEquals(available - 4, inventoryService.getAvailable(1));
+		createOrders();
+
+		assertEquals(ORDERS + 4, orderService.removeOrders());
+
+		for (OrderShard shard : orderShards.getShards()) {
+			assertEquals(0, shard.countOrders());
+		}
+		assertEquals(available, inventoryService.getAvailable(1));
+		assertTrue(orderService.getAllOrders(0, 1).isEmpty());
+	}
+
+	/** Creates one order without products for each of users 1 to ORDERS. */
+	private List<Orders> createOrders() {
+		List<Orders> orders = new ArrayList<Orders>(ORDERS);
+		for (long userId = 1; userId <= ORDERS; userId++) {
+			orders.add(orderService.addNewOrder(new Orders(null, Collections.<Long>emptyList(), userId)));
+		}
+		return orders;
+	}
+}
\ No newline at end of file
@@ -0,0 +1,122 @@
+package rest.springboot.restfulWebService.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import rest.springboot.restfulWebService.datasource.DataSourceNode;
+import rest.springboot.restfulWebService.model.OrderLine;
+import rest.springboot.restfulWebService.model.Orders;
+import rest.springboot.restfulWebService.model.ShardBucket;
+import rest.springboot.restfulWebService.repository.ShardBucketRepository;
+
+/**
+ * Checks that ShardRebalancer moves onto an added shard only the buckets it
+ * is given, about a third of them when going from two shards to three, and
+ * that afterwards every order is on the shard its bucket is assigned to.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+class ShardRebalancerTest {
+
+	/** Orders created on the two original shards, by users 1 to ORDERS. */
+	static final int ORDERS = 200;
+
+	private List<ShardBucket> buckets;
+
+	private OrderShards orderShards;
+
+	private ShardRebalancer shardRebalancer;
+
+	@BeforeEach
+	void setUp() {
+		List<OrderShard> shards = new ArrayList<OrderShard>();
+		for (int i = 0; i < 3; i++) {
+			DataSourceNode node = new DataSourceNode();
+			node.setUrl("jdbc:h2:mem:rebalance" + i + ";DB_CLOSE_DELAY=-1");
+			node.setUsername("sa");
+			node.setMaximumPoolSize(2);
+			OrderShard shard = new OrderShard(i, node.build("rebalance-" + i));
+			shard.createSchema();
+			shard.delete(shard.findOidsAfter(Long.MIN_VALUE, Integer.MAX_VALUE));
+			shards.add(shard);
+		}
+		orderShards = new OrderShards(shards);
+
+		buckets = new ArrayList<ShardBucket>();
+		for (int bucket = 0; bucket < ShardKeys.BUCKETS; bucket++) {
+			buckets.add(new ShardBucket(bucket, bucket % 2));
+		}
+		orderShards.assign(buckets);
+
+		ShardBucketRepository shardBucketRepository = mock(ShardBucketRepository.class);
+		when(shardBucketRepository.findAll()).thenAnswer(invocation -> buckets);
+		when(shardBucketRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+		shardRebalancer = new ShardRebalancer();
+		shardRebalancer.orderShards = orderShards;
+		shardRebalancer.shardBucketRepository = shardBucketRepository;
+		shardRebalancer.chunkSize = 7;
+	}
+
+	@AfterEach
+	void tearDown() {
+		orderShards.close();
+	}
+
+	@Test
+	void addedShardIsGivenOnlyItsShare() {
+		int[] owners = new int[ShardKeys.BUCKETS];
+		for (int bucket = 0; bucket < owners.length; bucket++) {
+			owners[bucket] = bucket % 2;
+		}
+
+		Map<Integer, Integer> moves = ShardRebalancer.plan(owners, 3);
+
+		assertEquals(ShardKeys.BUCKETS / 3, moves.size());
+		assertTrue(moves.values().stream().allMatch(shard -> shard == 2));
+		assertTrue(ShardRebalancer.plan(owners, 2).isEmpty());
+	}
+
+	@Test
+	void rebalanceMovesOrdersOfMovedBucketsOnly() throws Exception {
+		for (long userId = 1; userId <= ORDERS; userId++) {
+			int bucket = ShardKeys.bucketOfUser(userId);
+			Orders order = new Orders(userId, new Date(), Arrays.asList(new OrderLine(1, 100)));
+			order.setOid(ShardKeys.orderId(userId, bucket));
+			orderShards.forBucket(bucket).insert(Collections.singletonList(order));
+		}
+
+		long moved = shardRebalancer.rebalance();
+
+		assertEquals(moved, orderShards.getShards().get(2).countOrders());
+		long total = 0;
+		for (OrderShard shard : orderShards.getShards()) {
+			total += shard.countOrders();
+		}
+		assertEquals(ORDERS, total);
+		for (long userId = 1; userId <= ORDERS; userId++) {
+			int bucket = ShardKeys.bucketOfUser(userId);
+			long oid = ShardKeys.orderId(userId, bucket);
+			OrderShard owner = orderShards.forBucket(bucket);
+			assertTrue(bucket % 2 == owner.getIndex() || owner.getIndex() == 2);
+			assertEquals(Collections.singletonList(oid), owner.findExistingOids(Collections.singletonList(oid)));
+		}
+		for (ShardBucket bucket : buckets) {
+			assertNull(bucket.getMovingTo());
+		}
+	}
+}
\ No newline at end of file
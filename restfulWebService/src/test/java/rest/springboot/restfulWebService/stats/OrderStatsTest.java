@@ -0,0 +1,164 @@
+package rest.springboot.restfulWebService.stats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import rest.springboot.restfulWebService.model.DailyOrderStats;
+import rest.springboot.restfulWebService.model.Orders;
+import rest.springboot.restfulWebService.model.StatsRebuild;
+import rest.springboot.restfulWebService.repository.UserOrderStatsRepository;
+import rest.springboot.restfulWebService.service.OrderService;
+
+/**
+ * Checks that OrderStats counts every order once: changes are read before
+ * they are written and written once by flush, a rebuild drops exactly the
+ * changes its read of ORDERS saw however orders race with it, and a rebuild
+ * on another instance drops the changes recorded before it. Flushes run only
+ * when the tests call them.
+ * @author adash
+ * @version Java: 1.8, Spring boot: 2.3.1
+ */
+@SpringBootTest
+@TestPropertySource(locations = "classpath:omsTest.properties", properties = { "oms.stats.enabled=true",
+		"oms.stats.flush-interval-ms=3600000", "oms.stats.rebuild-cron=-" })
+class OrderStatsTest {
+
+	/** User whose orders the tests create. */
+	static final long USER_ID = 42;
+
+	@Autowired
+	OrderStats orderStats;
+
+	@Autowired
+	OrderService orderService;
+
+	@Autowired
+	UserOrderStatsRepository userOrderStatsRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	private ExecutorService executor;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.update("delete from orders_product_id");
+		jdbcTemplate.update("delete from orders");
+		orderStats.rebuild();
+		orderStats.flush();
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void changesAreReadBeforeFlushAndWrittenOnce() {
+		createOrders(3);
+		assertOrders(3);
+		assertFalse(userOrderStatsRepository.existsById(USER_ID));
+
+		orderStats.flush();
+		assertEquals(3, userOrderStatsRepository.findById(USER_ID).get().getOrders());
+		assertOrders(3);
+
+		orderStats.flush();
+		assertOrders(3);
+	}
+
+	@Test
+	void rebuildDropsTheChangesItRead() {
+		createOrders(2);
+		orderStats.rebuild();
+		assertEquals(2, userOrderStatsRepository.findById(USER_ID).get().getOrders());
+		assertOrders(2);
+
+		createOrders(1);
+		orderStats.flush();
+		assertOrders(3);
+		assertEquals(3, userOrderStatsRepository.findById(USER_ID).get().getOrders());
+	}
+
+	@Test
+	void ordersRacingRebuildsAreCountedOnce() throws Exception {
+		List<Future<?>> writers = new ArrayList<Future<?>>();
+		for (int i = 0; i < 4; i++) {
+			writers.add(executor.submit(() -> createOrders(25)));
+		}
+		for (int i = 0; i < 3; i++) {
+			orderStats.rebuild();
+		}
+		for (Future<?> writer : writers) {
+			writer.get(30, TimeUnit.SECONDS);
+		}
+
+		assertOrders(100);
+		orderStats.flush();
+		assertOrders(100);
+		orderStats.rebuild();
+		assertOrders(100);
+	}
+
+	@Test
+	void rebuildOnAnotherInstanceDropsChangesRecordedBeforeIt() throws Exception {
+		createOrders(2);
+		Thread.sleep(5);
+		jdbcTemplate.update("insert into user_order_stats (user_id, orders, items, revenue) values (?, 2, 0, 0)",
+				USER_ID);
+		jdbcTemplate.update("insert into daily_order_stats (order_day, orders, items, revenue) values (?, 2, 0, 0)",
+				LocalDate.now());
+		jdbcTemplate.update("update stats_rebuild set snapshot_at = ? where id = ?", System.currentTimeMillis(),
+				StatsRebuild.ID);
+		createOrders(1);
+
+		orderStats.flush();
+		assertEquals(3, userOrderStatsRepository.findById(USER_ID).get().getOrders());
+		assertOrders(3);
+	}
+
+	@Test
+	void removeOrdersRebuildsInTheBackground() throws Exception {
+		createOrders(2);
+		orderStats.flush();
+
+		orderService.removeOrders();
+		long deadline = System.currentTimeMillis() + 10000;
+		while (userOrderStatsRepository.existsById(USER_ID) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertOrders(0);
+	}
+
+	private void createOrders(int count) {
+		for (int i = 0; i < count; i++) {
+			orderService.addNewOrder(new Orders(null, Collections.<Long>emptyList(), USER_ID));
+		}
+	}
+
+	/** Checks the totals of USER_ID and of today. */
+	private void assertOrders(long expected) {
+		assertEquals(expected, orderStats.getUserStats(USER_ID).getOrders());
+		LocalDate today = LocalDate.now();
+		List<DailyOrderStats> days = orderStats.getDailyStats(today, today);
+		assertEquals(expected, days.get(0).getOrders());
+	}
+}
\ No newline at end of file